@@ -0,0 +1,167 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.filter.codec.ProtocolCodecSession;
+import org.mrcp4j.MrcpEventName;
+import org.mrcp4j.MrcpMethodName;
+import org.mrcp4j.MrcpRequestState;
+import org.mrcp4j.client.MrcpMessageDecoder;
+import org.mrcp4j.client.MrcpRequestEncoder;
+import org.mrcp4j.message.MrcpEvent;
+import org.mrcp4j.message.MrcpMessage;
+import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.codec.MrcpMessageWriter;
+import org.mrcp4j.message.header.MrcpHeaderName;
+import org.mrcp4j.message.request.MrcpRequest;
+import org.mrcp4j.message.request.MrcpRequestFactory;
+import org.mrcp4j.server.MrcpMessageEncoder;
+import org.mrcp4j.server.MrcpRequestDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the server and client codecs on typical RECOGNIZE, response and RECOGNITION-COMPLETE messages.
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    private static final String CHANNEL_ID = "32AECB23433801@speechrecog";
+
+    private static final String GRAMMAR =
+        "<?xml version=\"1.0\"?>\r\n" +
+        "<grammar xmlns=\"http://www.w3.org/2001/06/grammar\" xml:lang=\"en-US\" version=\"1.0\" root=\"request\">\r\n" +
+        "  <rule id=\"request\">may I speak to <one-of><item>Michel Tremblay</item><item>Andre Roy</item></one-of></rule>\r\n" +
+        "</grammar>";
+
+    private static final String RESULT =
+        "<?xml version=\"1.0\"?>\r\n" +
+        "<result xmlns=\"urn:ietf:params:xml:ns:mrcpv2\" grammar=\"session:request1@form-level.store\">\r\n" +
+        "  <interpretation><instance>Andre Roy</instance><input mode=\"speech\">may I speak to Andre Roy</input></interpretation>\r\n" +
+        "</result>";
+
+    private MrcpRequestDecoder _requestDecoder;
+    private MrcpMessageEncoder _messageEncoder;
+    private MrcpMessageDecoder _messageDecoder;
+    private MrcpRequestEncoder _requestEncoder;
+    private ProtocolCodecSession _session;
+
+    private byte[] _requestBytes;
+    private byte[] _eventBytes;
+
+    private MrcpRequest _request;
+    private MrcpResponse _response;
+    private MrcpEvent _event;
+
+    @Setup
+    public void setUp() {
+        _requestDecoder = new MrcpRequestDecoder();
+        _messageEncoder = new MrcpMessageEncoder();
+        _messageDecoder = new MrcpMessageDecoder();
+        _requestEncoder = new MrcpRequestEncoder();
+        _session = new ProtocolCodecSession();
+
+        _request = MrcpRequestFactory.createRequest(MrcpMethodName.RECOGNIZE);
+        _request.setVersion(MrcpMessage.MRCP_VERSION_2_0);
+        _request.setRequestID(543257);
+        _request.addHeader(MrcpHeaderName.CHANNEL_IDENTIFIER.createHeader(CHANNEL_ID));
+        _request.addHeader(MrcpHeaderName.CONFIDENCE_THRESHOLD.createHeader("0.9"));
+        _request.addHeader(MrcpHeaderName.NO_INPUT_TIMEOUT.createHeader("5000"));
+        _request.setContent("application/srgs+xml", "request1@form-level.store", GRAMMAR);
+
+        _response = new MrcpResponse();
+        _response.setVersion(MrcpMessage.MRCP_VERSION_2_0);
+        _response.setRequestID(543257);
+        _response.setStatusCode(MrcpResponse.STATUS_SUCCESS);
+        _response.setRequestState(MrcpRequestState.IN_PROGRESS);
+        _response.addHeader(MrcpHeaderName.CHANNEL_IDENTIFIER.createHeader(CHANNEL_ID));
+
+        _event = new MrcpEvent();
+        _event.setVersion(MrcpMessage.MRCP_VERSION_2_0);
+        _event.setEventName(MrcpEventName.RECOGNITION_COMPLETE);
+        _event.setRequestID(543257);
+        _event.setRequestState(MrcpRequestState.COMPLETE);
+        _event.addHeader(MrcpHeaderName.CHANNEL_IDENTIFIER.createHeader(CHANNEL_ID));
+        _event.addHeader(MrcpHeaderName.COMPLETION_CAUSE.createHeader("000 success"));
+        _event.setContent("application/nlsml+xml", null, RESULT);
+
+        _requestBytes = encode(_request);
+        _eventBytes = encode(_event);
+    }
+
+    private static byte[] encode(MrcpMessage message) {
+        ByteBuffer buf = ByteBuffer.allocate(MrcpMessageWriter.prepare(message));
+        MrcpMessageWriter.write(message, buf);
+        return buf.array();
+    }
+
+    @Benchmark
+    public Object decodeRequest() throws Exception {
+        _requestDecoder.decode(_session, IoBuffer.wrap(_requestBytes), _session.getDecoderOutput());
+        return _session.getDecoderOutputQueue().poll();
+    }
+
+    @Benchmark
+    public Object encodeResponse() throws Exception {
+        _messageEncoder.encode(_session, _response, _session.getEncoderOutput());
+        return _session.getEncoderOutputQueue().poll();
+    }
+
+    @Benchmark
+    public Object encodeEvent() throws Exception {
+        _messageEncoder.encode(_session, _event, _session.getEncoderOutput());
+        return _session.getEncoderOutputQueue().poll();
+    }
+
+    @Benchmark
+    public Object decodeEvent() throws Exception {
+        _messageDecoder.decode(_session, IoBuffer.wrap(_eventBytes), _session.getDecoderOutput());
+        return _session.getDecoderOutputQueue().poll();
+    }
+
+    @Benchmark
+    public Object encodeRequest() throws Exception {
+        _requestEncoder.encode(_session, _request, _session.getEncoderOutput());
+        return _session.getEncoderOutputQueue().poll();
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.mrcp4j.message.header.MrcpHeader;
+import org.mrcp4j.message.header.MrcpHeaderName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks header construction and header-name lookup from strings.
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeaderBenchmark {
+
+    /**
+     * Headers whose names lie near the start and the end of the {@link MrcpHeaderName} constants, in non-canonical
+     * case, and a vendor-specific header whose name is not found at all.
+     */
+    @Param({"channel-identifier:32AECB23433801@speechrecog", "Content-Length:1234", "confidence-threshold:0.5",
+            "Early-No-Match:true", "Vendor-Specific-Parameters:com.example.param=1", "X-Vendor-Unknown:1234"})
+    public String _header;
+
+    private String _name;
+    private String _value;
+
+    @Setup
+    public void setUp() {
+        int colon = _header.indexOf(':');
+        _name = _header.substring(0, colon);
+        _value = _header.substring(colon + 1);
+    }
+
+    @Benchmark
+    public MrcpHeader createHeader() {
+        return MrcpHeaderName.createHeader(_name, _value);
+    }
+
+    @Benchmark
+    public Object fromString() {
+        try {
+            return MrcpHeaderName.fromString(_name);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+}
@@ -0,0 +1,373 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.benchmark;
+
+import static org.mrcp4j.client.MrcpProvider.PROTOCOL_TCP_MRCPv2;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+
+import org.mrcp4j.MrcpEventName;
+import org.mrcp4j.MrcpMethodName;
+import org.mrcp4j.MrcpRequestState;
+import org.mrcp4j.client.MrcpChannel;
+import org.mrcp4j.client.MrcpEventListener;
+import org.mrcp4j.client.MrcpFactory;
+import org.mrcp4j.client.MrcpProvider;
+import org.mrcp4j.message.MrcpEvent;
+import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.request.MrcpRequest;
+import org.mrcp4j.message.request.MrcpRequestFactory.UnimplementedRequest;
+import org.mrcp4j.message.request.StartInputTimersRequest;
+import org.mrcp4j.message.request.StopRequest;
+import org.mrcp4j.server.MrcpServerSocket;
+import org.mrcp4j.server.MrcpSession;
+import org.mrcp4j.server.provider.RecogOnlyRequestHandler;
+import org.mrcp4j.util.LatencyHistogram;
+
+/**
+ * Drives a request mix from an {@link MrcpProvider} against an {@link MrcpServerSocket} in the same JVM over the
+ * loopback interface and reports throughput and latency percentiles.
+ * <p>
+ * Requests are sent open-loop at a fixed rate, spread round robin over the channels, and each latency is
+ * measured from the time the request was scheduled to be sent rather than from when it actually was.  A stall
+ * anywhere in the client or server therefore shows up in the latencies of all requests delayed by it, which
+ * corrects for coordinated omission.  The rate must be chosen below the saturation throughput for the latencies
+ * to be meaningful.
+ * </p>
+ * Options (all optional), e.g. {@code gradle loadgen -PloadgenArgs='--rate=5000 --duration=60'}:
+ * <pre>
+ *   --channels=16            channels opened
+ *   --connections=4          connections the channels are spread over
+ *   --rate=2000              requests per second
+ *   --duration=30            measured seconds
+ *   --warmup=5               seconds of load before measuring
+ *   --mix=SET-PARAMS:50,DEFINE-GRAMMAR:20,RECOGNIZE:30
+ *                            relative weights of the methods sent
+ *   --grammar-kb=16          size of DEFINE-GRAMMAR bodies
+ *   --events=2               events per RECOGNIZE, the last one RECOGNITION-COMPLETE
+ *   --event-delay=5          milliseconds between RECOGNIZE events
+ *   --handler=class          recognizer handler class (public, no-arg constructor) instead of the stub
+ *   --port=32419             server port
+ * </pre>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class LoadGenerator {
+
+    private final Map<String, String> _options;
+
+    private final Map<MrcpMethodName, LatencyHistogram> _responseLatency =
+        new EnumMap<MrcpMethodName, LatencyHistogram>(MrcpMethodName.class);
+    private final LatencyHistogram _completionLatency = new LatencyHistogram();
+    private final AtomicLong _errors = new AtomicLong();
+    private final AtomicInteger _outstanding = new AtomicInteger();
+
+    private volatile long _measureStart;
+    private volatile long _measureEnd;
+
+    LoadGenerator(Map<String, String> options) {
+        _options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<String, String>();
+        for (String arg : args) {
+            int i = arg.indexOf('=');
+            if (!arg.startsWith("--") || i < 0) {
+                System.err.println("Usage: LoadGenerator [--option=value]..., see class documentation for options");
+                System.exit(1);
+            }
+            options.put(arg.substring(2, i), arg.substring(i + 1));
+        }
+        new LoadGenerator(options).run();
+        System.exit(0);
+    }
+
+    private int intOption(String name, int defaultValue) {
+        String value = _options.get(name);
+        return (value == null) ? defaultValue : Integer.parseInt(value);
+    }
+
+    void run() throws Exception {
+        int channelCount = intOption("channels", 16);
+        int connections = intOption("connections", 4);
+        int rate = intOption("rate", 2000);
+        int duration = intOption("duration", 30);
+        int warmup = intOption("warmup", 5);
+        int port = intOption("port", 32419);
+        int events = Math.max(1, intOption("events", 2));
+        int eventDelay = intOption("event-delay", 5);
+        String mix = _options.containsKey("mix") ? _options.get("mix") : "SET-PARAMS:50,DEFINE-GRAMMAR:20,RECOGNIZE:30";
+        MrcpMethodName[] schedule = parseMix(mix);
+
+        byte[] grammar = new byte[intOption("grammar-kb", 16) * 1024];
+        Arrays.fill(grammar, (byte) 'g');
+
+        ScheduledExecutorService eventScheduler = Executors.newScheduledThreadPool(2);
+        MrcpServerSocket server = new MrcpServerSocket(port);
+        MrcpProvider provider = MrcpFactory.newInstance().createProvider();
+        provider.setConnectionsPerEndpoint(connections);
+        try {
+            Channel[] channels = new Channel[channelCount];
+            for (int i = 0; i < channelCount; i++) {
+                String channelID = Long.toHexString(System.nanoTime()) + i + "@speechrecog";
+                server.openChannel(channelID, createHandler(events, eventDelay, eventScheduler));
+                channels[i] = new Channel(provider.createChannel(channelID, InetAddress.getLoopbackAddress(), port, PROTOCOL_TCP_MRCPv2));
+            }
+
+            System.out.println("Sending " + rate + " requests/s over " + channelCount + " channels and " + connections +
+                    " connections, mix " + mix + ", " + warmup + " s warmup, " + duration + " s measured");
+
+            long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+            long start = System.nanoTime();
+            _measureStart = start + TimeUnit.SECONDS.toNanos(warmup);
+            _measureEnd = _measureStart + TimeUnit.SECONDS.toNanos(duration);
+            Random random = new Random(42);
+            for (long i = 0; ; i++) {
+                long intended = start + i * interval;
+                if (intended >= _measureEnd) {
+                    break;
+                }
+                long delay = intended - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                MrcpMethodName methodName = schedule[random.nextInt(schedule.length)];
+                channels[(int) (i % channelCount)].send(methodName, intended, grammar);
+            }
+
+            // let outstanding requests finish
+            long drainEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (_outstanding.get() > 0 && System.nanoTime() < drainEnd) {
+                Thread.sleep(10);
+            }
+            report(duration, server);
+        } finally {
+            provider.dispose();
+            server.dispose();
+            eventScheduler.shutdownNow();
+        }
+    }
+
+    private static MrcpMethodName[] parseMix(String mix) {
+        MrcpMethodName[] schedule = new MrcpMethodName[0];
+        for (String entry : mix.split(",")) {
+            int i = entry.indexOf(':');
+            MrcpMethodName methodName = MrcpMethodName.fromString(entry.substring(0, i).trim());
+            int weight = Integer.parseInt(entry.substring(i + 1).trim());
+            int length = schedule.length;
+            schedule = Arrays.copyOf(schedule, length + weight);
+            Arrays.fill(schedule, length, length + weight, methodName);
+        }
+        return schedule;
+    }
+
+    private RecogOnlyRequestHandler createHandler(int events, int eventDelay, ScheduledExecutorService scheduler)
+      throws Exception {
+        String handlerClass = _options.get("handler");
+        if (handlerClass != null) {
+            return (RecogOnlyRequestHandler) Class.forName(handlerClass).getDeclaredConstructor().newInstance();
+        }
+        return new StubRecogHandler(events, eventDelay, scheduler);
+    }
+
+    private boolean isMeasured(long intended) {
+        return intended >= _measureStart && intended < _measureEnd;
+    }
+
+    private synchronized void recordResponse(MrcpMethodName methodName, long intended) {
+        LatencyHistogram histogram = _responseLatency.get(methodName);
+        if (histogram == null) {
+            histogram = new LatencyHistogram();
+            _responseLatency.put(methodName, histogram);
+        }
+        histogram.record(System.nanoTime() - intended);
+    }
+
+    private void report(int duration, MrcpServerSocket server) {
+        long total = 0;
+        System.out.println();
+        System.out.println(String.format("%-24s %9s %9s %9s %9s %9s %9s", "latency (us)", "count", "p50", "p90", "p99", "p99.9", "max"));
+        synchronized (this) {
+            for (Map.Entry<MrcpMethodName, LatencyHistogram> entry : _responseLatency.entrySet()) {
+                total += entry.getValue().getCount();
+                printRow(entry.getKey() + " response", entry.getValue());
+            }
+        }
+        printRow("RECOGNIZE complete", _completionLatency);
+        System.out.println();
+        System.out.println(String.format("throughput: %.1f responses/s, errors: %d, unfinished: %d",
+                (double) total / duration, _errors.get(), _outstanding.get()));
+
+        System.out.println();
+        System.out.println("server handler latency (us, not corrected, includes warmup):");
+        for (Map.Entry<String, LatencyHistogram.Snapshot> entry : server.getMetrics().getHandlerLatency().entrySet()) {
+            LatencyHistogram.Snapshot snapshot = entry.getValue();
+            System.out.println(String.format("  %-30s count %d, p50 %d, p99 %d, max %d", entry.getKey(), snapshot.getCount(),
+                    snapshot.getMedian() / 1000, snapshot.getPercentile99() / 1000, snapshot.getMax() / 1000));
+        }
+    }
+
+    private static void printRow(String name, LatencyHistogram histogram) {
+        System.out.println(String.format("%-24s %9d %9d %9d %9d %9d %9d", name, histogram.getCount(),
+                histogram.getPercentile(0.5) / 1000, histogram.getPercentile(0.9) / 1000,
+                histogram.getPercentile(0.99) / 1000, histogram.getPercentile(0.999) / 1000,
+                histogram.getPercentile(1.0) / 1000));
+    }
+
+    /**
+     * A client channel and the intended start times of its RECOGNIZE requests awaiting their COMPLETE event.
+     */
+    private class Channel implements MrcpEventListener {
+
+        private final MrcpChannel _channel;
+        private final ConcurrentMap<Long, Long> _recognizing = new ConcurrentHashMap<Long, Long>();
+
+        Channel(MrcpChannel channel) {
+            _channel = channel;
+            channel.addEventListener(this);
+        }
+
+        void send(final MrcpMethodName methodName, final long intended, byte[] grammar) {
+            MrcpRequest request = _channel.createRequest(methodName);
+            if (methodName == MrcpMethodName.DEFINE_GRAMMAR) {
+                request.setContent("application/srgs+xml", null, grammar);
+            }
+            final boolean recognize = (methodName == MrcpMethodName.RECOGNIZE);
+            if (recognize) {
+                _recognizing.put(request.getRequestID(), intended);
+            }
+            final long requestID = request.getRequestID();
+            _outstanding.incrementAndGet();
+            CompletableFuture<MrcpResponse> future = _channel.sendRequestAsync(request);
+            future.whenComplete(new BiConsumer<MrcpResponse, Throwable>() {
+                public void accept(MrcpResponse response, Throwable cause) {
+                    if (cause != null) {
+                        _errors.incrementAndGet();
+                    } else if (isMeasured(intended)) {
+                        recordResponse(methodName, intended);
+                    }
+                    if (cause != null || !recognize || response.getRequestState() == MrcpRequestState.COMPLETE) {
+                        _recognizing.remove(requestID);
+                        _outstanding.decrementAndGet();
+                    }
+                }
+            });
+        }
+
+        public void eventReceived(MrcpEvent event) {
+            if (event.getRequestState() == MrcpRequestState.COMPLETE) {
+                Long intended = _recognizing.remove(event.getRequestID());
+                if (intended != null) {
+                    if (isMeasured(intended)) {
+                        _completionLatency.record(System.nanoTime() - intended);
+                    }
+                    _outstanding.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Recognizer stub responding immediately, RECOGNIZE with IN-PROGRESS followed by START-OF-INPUT events and a
+     * final RECOGNITION-COMPLETE event.
+     */
+    private static class StubRecogHandler implements RecogOnlyRequestHandler {
+
+        private final int _events;
+        private final int _eventDelay;
+        private final ScheduledExecutorService _scheduler;
+
+        StubRecogHandler(int events, int eventDelay, ScheduledExecutorService scheduler) {
+            _events = events;
+            _eventDelay = eventDelay;
+            _scheduler = scheduler;
+        }
+
+        private static MrcpResponse complete(MrcpSession session) {
+            return session.createResponse(MrcpResponse.STATUS_SUCCESS, MrcpRequestState.COMPLETE);
+        }
+
+        public MrcpResponse recognize(UnimplementedRequest request, final MrcpSession session) {
+            for (int i = 1; i <= _events; i++) {
+                final boolean last = (i == _events);
+                _scheduler.schedule(new Runnable() {
+                    public void run() {
+                        try {
+                            session.postEvent(last ?
+                                session.createEvent(MrcpEventName.RECOGNITION_COMPLETE, MrcpRequestState.COMPLETE) :
+                                session.createEvent(MrcpEventName.START_OF_INPUT, MrcpRequestState.IN_PROGRESS));
+                        } catch (Exception e) {
+                            // connection closed
+                        }
+                    }
+                }, (long) i * _eventDelay, TimeUnit.MILLISECONDS);
+            }
+            return session.createResponse(MrcpResponse.STATUS_SUCCESS, MrcpRequestState.IN_PROGRESS);
+        }
+
+        public MrcpResponse setParams(UnimplementedRequest request, MrcpSession session) {
+            return complete(session);
+        }
+
+        public MrcpResponse getParams(UnimplementedRequest request, MrcpSession session) {
+            return complete(session);
+        }
+
+        public MrcpResponse defineGrammar(UnimplementedRequest request, MrcpSession session) {
+            return complete(session);
+        }
+
+        public MrcpResponse interpret(UnimplementedRequest request, MrcpSession session) {
+            return complete(session);
+        }
+
+        public MrcpResponse getResult(UnimplementedRequest request, MrcpSession session) {
+            return complete(session);
+        }
+
+        public MrcpResponse startInputTimers(StartInputTimersRequest request, MrcpSession session) {
+            return complete(session);
+        }
+
+        public MrcpResponse stop(StopRequest request, MrcpSession session) {
+            return complete(session);
+        }
+    }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.benchmark;
+
+import static org.mrcp4j.client.MrcpProvider.PROTOCOL_TCP_MRCPv2;
+
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+
+import org.mrcp4j.MrcpMethodName;
+import org.mrcp4j.MrcpRequestState;
+import org.mrcp4j.client.MrcpChannel;
+import org.mrcp4j.client.MrcpFactory;
+import org.mrcp4j.client.MrcpProvider;
+import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.request.MrcpRequest;
+import org.mrcp4j.message.request.StopRequest;
+import org.mrcp4j.message.request.MrcpRequestFactory.UnimplementedRequest;
+import org.mrcp4j.message.request.StartInputTimersRequest;
+import org.mrcp4j.server.MrcpServerSocket;
+import org.mrcp4j.server.MrcpSession;
+import org.mrcp4j.server.provider.RecogOnlyRequestHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks a SET-PARAMS request/response round trip between an {@link MrcpChannel} and an {@link MrcpServerSocket}
+ * over the loopback interface.
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoundTripBenchmark {
+
+    private static final int PORT = 32418;
+
+    private MrcpServerSocket _server;
+    private MrcpProvider _provider;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        _server = new MrcpServerSocket(PORT);
+        _provider = MrcpFactory.newInstance().createProvider();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        _provider.dispose();
+        _server.dispose();
+    }
+
+    /**
+     * A channel per benchmark thread, so that concurrent threads exercise separate channels on a shared connection.
+     */
+    @State(Scope.Thread)
+    public static class ChannelState {
+
+        MrcpChannel _channel;
+
+        @Setup(Level.Trial)
+        public void setUp(RoundTripBenchmark benchmark) throws Exception {
+            String channelID = Long.toHexString(System.nanoTime()) + "@speechrecog";
+            benchmark._server.openChannel(channelID, new CompletingRequestHandler());
+            _channel = benchmark._provider.createChannel(channelID, InetAddress.getLoopbackAddress(), PORT, PROTOCOL_TCP_MRCPv2);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            _channel.close();
+        }
+    }
+
+    @Benchmark
+    public MrcpResponse setParams(ChannelState state) throws Exception {
+        MrcpRequest request = state._channel.createRequest(MrcpMethodName.SET_PARAMS);
+        return state._channel.sendRequest(request);
+    }
+
+    private static class CompletingRequestHandler implements RecogOnlyRequestHandler {
+
+        private static MrcpResponse complete(MrcpSession session) {
+            return session.createResponse(MrcpResponse.STATUS_SUCCESS, MrcpRequestState.COMPLETE);
+        }
+
+        public MrcpResponse setParams(UnimplementedRequest request, MrcpSession session) {
+            return complete(session);
+        }
+
+        public MrcpResponse getParams(UnimplementedRequest request, MrcpSession session) {
+            return complete(session);
+        }
+
+        public MrcpResponse defineGrammar(UnimplementedRequest request, MrcpSession session) {
+            return complete(session);
+        }
+
+        public MrcpResponse recognize(UnimplementedRequest request, MrcpSession session) {
+            return complete(session);
+        }
+
+        public MrcpResponse interpret(UnimplementedRequest request, MrcpSession session) {
+            return complete(session);
+        }
+
+        public MrcpResponse getResult(UnimplementedRequest request, MrcpSession session) {
+            return complete(session);
+        }
+
+        public MrcpResponse startInputTimers(StartInputTimersRequest request, MrcpSession session) {
+            return complete(session);
+        }
+
+        public MrcpResponse stop(StopRequest request, MrcpSession session) {
+            return complete(session);
+        }
+    }
+
+}
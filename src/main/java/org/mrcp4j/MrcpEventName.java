@@ -22,6 +22,10 @@
  */
 package org.mrcp4j;
 
+import java.nio.ByteBuffer;
+
+import org.mrcp4j.util.AsciiTokenTable;
+
 /**
  * Defines the event names that are valid values for MRCPv2 event messages.
  * 
@@ -90,6 +94,8 @@ public enum MrcpEventName {
     //START_OF_INPUT                ("START-OF-INPUT"),  <- already defined under recognizer-event
 
 
+    private static final AsciiTokenTable<MrcpEventName> TOKEN_TABLE = new AsciiTokenTable<MrcpEventName>(values());
+
     private String _name;
 
     private MrcpEventName(String name) {
@@ -112,12 +118,22 @@ public enum MrcpEventName {
      * a valid MRCP event name
      */
     public static MrcpEventName fromString(String str) throws IllegalArgumentException {
-        for (MrcpEventName value : MrcpEventName.values()) {
-            if (value.toString().equalsIgnoreCase(str)) {
-                return value;
-            }
+        MrcpEventName value = TOKEN_TABLE.get(str);
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid MRCP event-name: " + str);
         }
-        throw new IllegalArgumentException("Invalid MRCP event-name: " + str);
+        return value;
+    }
+
+    /**
+     * Looks up an MRCP event-name held in a range of bytes, ignoring case.
+     * @param buf buffer containing the token
+     * @param start index of the first byte of the token
+     * @param end index following the last byte of the token
+     * @return the enum instance corresponding to the token, or null if the token is not valid
+     */
+    public static MrcpEventName lookup(ByteBuffer buf, int start, int end) {
+        return TOKEN_TABLE.get(buf, start, end);
     }
 
 }
\ No newline at end of file
@@ -22,6 +22,10 @@
  */
 package org.mrcp4j;
 
+import java.nio.ByteBuffer;
+
+import org.mrcp4j.util.AsciiTokenTable;
+
 /**
  * Defines the method names that are valid values for MRCPv2 request messages.
  * 
@@ -245,6 +249,8 @@ public enum MrcpMethodName {
      */
     GET_INTERMEDIATE_RESULT ("GET-INTERMEDIATE-RESULT");
     
+    private static final AsciiTokenTable<MrcpMethodName> TOKEN_TABLE = new AsciiTokenTable<MrcpMethodName>(values());
+
     private String _name;
 
     private MrcpMethodName(String name) {
@@ -267,12 +273,22 @@ public enum MrcpMethodName {
      * an existing MRCP method name
      */
     public static MrcpMethodName fromString(String str) throws IllegalArgumentException {
-        for (MrcpMethodName value : MrcpMethodName.values()) {
-            if (value.toString().equalsIgnoreCase(str)) {
-                return value;
-            }
+        MrcpMethodName value = TOKEN_TABLE.get(str);
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid MRCP method-name: " + str);
         }
-        throw new IllegalArgumentException("Invalid MRCP method-name: " + str);
+        return value;
+    }
+
+    /**
+     * Looks up an MRCP method-name held in a range of bytes, ignoring case.
+     * @param buf buffer containing the token
+     * @param start index of the first byte of the token
+     * @param end index following the last byte of the token
+     * @return the enum instance corresponding to the token, or null if the token is not valid
+     */
+    public static MrcpMethodName lookup(ByteBuffer buf, int start, int end) {
+        return TOKEN_TABLE.get(buf, start, end);
     }
 
 }
\ No newline at end of file
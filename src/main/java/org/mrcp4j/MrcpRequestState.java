@@ -22,6 +22,10 @@
  */
 package org.mrcp4j;
 
+import java.nio.ByteBuffer;
+
+import org.mrcp4j.util.AsciiTokenTable;
+
 /**
  * Defines the request states that are valid for MRCPv2.
  * 
@@ -47,6 +51,8 @@ public enum MrcpRequestState {
      */
     COMPLETE    ("COMPLETE");
 
+    private static final AsciiTokenTable<MrcpRequestState> TOKEN_TABLE = new AsciiTokenTable<MrcpRequestState>(values());
+
     private String _name;
 
     MrcpRequestState(String name) {
@@ -69,12 +75,22 @@ public enum MrcpRequestState {
      * an existing MRCP request state
      */
     public static MrcpRequestState fromString(String str) throws IllegalArgumentException {
-        for (MrcpRequestState value : MrcpRequestState.values()) {
-            if (value.toString().equalsIgnoreCase(str)) {
-                return value;
-            }
+        MrcpRequestState value = TOKEN_TABLE.get(str);
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid MRCP request-state: " + str);
         }
-        throw new IllegalArgumentException("Invalid MRCP request-state: " + str);
+        return value;
+    }
+
+    /**
+     * Looks up an MRCP request-state held in a range of bytes, ignoring case.
+     * @param buf buffer containing the token
+     * @param start index of the first byte of the token
+     * @param end index following the last byte of the token
+     * @return the enum instance corresponding to the token, or null if the token is not valid
+     */
+    public static MrcpRequestState lookup(ByteBuffer buf, int start, int end) {
+        return TOKEN_TABLE.get(buf, start, end);
     }
 
 }
\ No newline at end of file
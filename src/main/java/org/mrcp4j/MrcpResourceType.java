@@ -22,6 +22,10 @@
  */
 package org.mrcp4j;
 
+import java.nio.ByteBuffer;
+
+import org.mrcp4j.util.AsciiTokenTable;
+
 /**
  * Defines the resource types that are valid for MRCPv2.
  * 
@@ -64,6 +68,8 @@ public enum MrcpResourceType {
     RECORDER     ("recorder");
 
 
+    private static final AsciiTokenTable<MrcpResourceType> TOKEN_TABLE = new AsciiTokenTable<MrcpResourceType>(values());
+
     private String _name;
 
     MrcpResourceType(String name) {
@@ -86,12 +92,22 @@ public enum MrcpResourceType {
      * an existing MRCP resource type.
      */
     public static MrcpResourceType fromString(String str) throws IllegalArgumentException {
-        for (MrcpResourceType value : MrcpResourceType.values()) {
-            if (value.toString().equalsIgnoreCase(str)) {
-                return value;
-            }
+        MrcpResourceType value = TOKEN_TABLE.get(str);
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid MRCP resource type: " + str);
         }
-        throw new IllegalArgumentException("Invalid MRCP resource type: " + str);
+        return value;
+    }
+
+    /**
+     * Looks up an MRCP resource type held in a range of bytes, ignoring case.
+     * @param buf buffer containing the token
+     * @param start index of the first byte of the token
+     * @param end index following the last byte of the token
+     * @return the enum instance corresponding to the token, or null if the token is not valid
+     */
+    public static MrcpResourceType lookup(ByteBuffer buf, int start, int end) {
+        return TOKEN_TABLE.get(buf, start, end);
     }
 
     /**
@@ -101,11 +117,27 @@ public enum MrcpResourceType {
      * @throws IllegalArgumentException if the channel ID is not correctly formatted.
      */
     public static MrcpResourceType fromChannelID(String channelID) {
-        String[] tokens = channelID.split("@");
-        if (tokens.length != 2) {
+        int at = channelID.indexOf('@');
+        if (at < 0 || at == channelID.length() - 1 || channelID.indexOf('@', at + 1) >= 0) {
             throw new IllegalArgumentException("Illegal Channel-Identifier value: " + channelID);
         }
-        return fromString(tokens[1]);
+        MrcpResourceType value = TOKEN_TABLE.get(channelID, at + 1, channelID.length());
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid MRCP resource type: " + channelID.substring(at + 1));
+        }
+        return value;
+    }
+
+    /**
+     * Looks up an MRCP resource type held in a range of characters, ignoring case.
+     * @param chars characters containing the resource type
+     * @param start index of the first character of the resource type
+     * @param end index following the last character of the resource type
+     * @return the resource type enum instance corresponding to the characters, or null if they are not a valid
+     * resource type
+     */
+    public static MrcpResourceType lookup(CharSequence chars, int start, int end) {
+        return TOKEN_TABLE.get(chars, start, end);
     }
 
 }
\ No newline at end of file
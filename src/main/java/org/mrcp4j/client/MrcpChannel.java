@@ -26,10 +26,17 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
+import org.apache.mina.core.future.IoFutureListener;
+import org.apache.mina.core.future.WriteFuture;
 import org.mrcp4j.MrcpMethodName;
+import org.mrcp4j.MrcpRequestState;
 import org.mrcp4j.message.MrcpEvent;
 import org.mrcp4j.message.MrcpMessage;
 import org.mrcp4j.message.MrcpResponse;
@@ -37,6 +44,7 @@ import org.mrcp4j.message.header.ChannelIdentifier;
 import org.mrcp4j.message.header.IllegalValueException;
 import org.mrcp4j.message.header.MrcpHeader;
 import org.mrcp4j.message.header.MrcpHeaderName;
+import org.mrcp4j.message.header.RequestIdList;
 import org.mrcp4j.message.request.MrcpRequest;
 import org.mrcp4j.message.request.MrcpRequestFactory;
 
@@ -52,17 +60,19 @@ import org.mrcp4j.message.request.MrcpRequestFactory;
 public class MrcpChannel implements MrcpMessageHandler {
     private static Logger _log = LogManager.getLogger(MrcpChannel.class);
     
-    private MrcpResponse _response = new MrcpResponse();
-    private Object _responseLock = new Object();
+    private ConcurrentMap<Long, PendingResponse> _pendingResponses = new ConcurrentHashMap<Long, PendingResponse>();
+    private ConcurrentMap<Long, PendingResponse> _inProgressRequests = new ConcurrentHashMap<Long, PendingResponse>();
     private List<MrcpEventListener> _listeners = Collections.synchronizedList(new ArrayList<MrcpEventListener>());
 
     private ChannelIdentifier _channelID;
     private MrcpSocket _socket;
     private long _requestID;
+    private MrcpClientMetrics _metrics;
 
-    MrcpChannel(String channelID, MrcpSocket socket) throws IllegalValueException {
+    MrcpChannel(String channelID, MrcpSocket socket, MrcpClientMetrics providerMetrics) throws IllegalValueException {
         _channelID = (ChannelIdentifier) MrcpHeaderName.CHANNEL_IDENTIFIER.createHeaderValue(channelID);
         _socket = socket;
+        _metrics = new MrcpClientMetrics(providerMetrics);
         _requestID = 1;//System.currentTimeMillis();
         socket.addMessageHandler(_channelID, this);
     }
@@ -75,6 +85,21 @@ public class MrcpChannel implements MrcpMessageHandler {
         return _channelID;
     }
 
+    /**
+     * @return the connection this channel sends its requests on.
+     */
+    MrcpSocket getSocket() {
+        return _socket;
+    }
+
+    /**
+     * Retrieves the round trip and completion latencies of the requests sent on this channel.
+     * @return the metrics of this channel.
+     */
+    public MrcpClientMetrics getMetrics() {
+        return _metrics;
+    }
+
     /*public String getType() {
         return null;
     }*/
@@ -134,36 +159,84 @@ public class MrcpChannel implements MrcpMessageHandler {
      * Invokes a request on the MRCP resource associated with this channel.
      * @param  request                 specification of the request to be invoked.
      * @return                         the response provided by the MRCP resource to the specified request.
-     * @throws IOException             if an I/O error occurs.
+     * @throws IOException             if an I/O error occurs or the response exceeded the size limits.
      * @throws MrcpInvocationException           if the MRCP resource returned a response error code
      * @throws InterruptedException    if another thread interrupted the current thread while the current thread
      *                                 was waiting for a response from the MRCP resource.
      */
-    public synchronized MrcpResponse sendRequest(MrcpRequest request)
+    public MrcpResponse sendRequest(MrcpRequest request)
       throws IOException, MrcpInvocationException, InterruptedException {
 
-    	_log.debug("Sending request: "+request.toString());
-        MrcpResponse response = null;
-        synchronized (_responseLock) {
-            _response = null;
-            _socket.sendRequest(request);
-            while (_response == null) {
-                try {
-                    _responseLock.wait();
-                } catch (InterruptedException e) {
-                    //TODO: register response to be discarded if received later
-                    throw e;
-                }
+        CompletableFuture<MrcpResponse> future = sendRequestAsync(request);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            // discard the response if it is received later
+            _pendingResponses.remove(request.getRequestID(), future);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof MrcpInvocationException) {
+                throw (MrcpInvocationException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
             }
-            response = _response;
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Invokes a request on the MRCP resource associated with this channel without waiting for the response.
+     * Any number of requests may be outstanding on a channel at a time; responses are matched to requests
+     * by request-id.
+     * <p>
+     * The returned future is completed by the thread receiving messages from the MRCP server, so dependent
+     * actions that may block should be executed asynchronously.
+     * </p>
+     * @param  request  specification of the request to be invoked.
+     * @return          a future completed with the response provided by the MRCP resource, or completed
+     *                  exceptionally with an {@link MrcpInvocationException} if the response contains an
+     *                  error code or an {@link java.io.IOException} if the request could not be sent or the
+     *                  response exceeded the size limits set by {@link MrcpProvider#setMessageLimits(int, int, int)}.
+     */
+    public CompletableFuture<MrcpResponse> sendRequestAsync(MrcpRequest request) {
+        _log.debug("Sending request: "+request.toString());
+
+        final PendingResponse future = new PendingResponse(request.getMethodNameAsString());
+        final Long requestID = request.getRequestID();
+        if (_pendingResponses.putIfAbsent(requestID, future) != null) {
+            future.completeExceptionally(new IllegalStateException(
+                "A request with request-id " + requestID + " is already outstanding on this channel!"));
+            return future;
         }
-        _log.debug("Got resp: "+response.toString());
-        //TODO: validate that the response matches the request
 
-        if (response.getStatusCode() > 299) {
-            throw new MrcpInvocationException(response);
+        try {
+            _socket.sendRequest(request).addListener(new IoFutureListener<WriteFuture>() {
+                public void operationComplete(WriteFuture writeFuture) {
+                    if (!writeFuture.isWritten()) {
+                        _pendingResponses.remove(requestID, future);
+                        future.completeExceptionally(new IOException("Request could not be sent", writeFuture.getException()));
+                    }
+                }
+            });
+        } catch (IOException e) {
+            _pendingResponses.remove(requestID, future);
+            future.completeExceptionally(e);
         }
-        return response;
+        return future;
+    }
+
+    /**
+     * Closes this channel.  The underlying connection remains open for other channels sharing it, any requests
+     * still awaiting a response are completed exceptionally and no further events are delivered to listeners.
+     */
+    public void close() {
+        _socket.removeMessageHandler(_channelID);
+        connectionClosed();
     }
 
     /**
@@ -188,18 +261,34 @@ public class MrcpChannel implements MrcpMessageHandler {
     public void handleMessage(MrcpMessage message) {
         if (message instanceof MrcpResponse) {
             _log.debug("got a response in handler: "+message.toString());
-            synchronized (_responseLock) {
-            	_log.debug("response lock set");
-                if (_response == null) { // sendRequest is waiting for a response
-                    _response = (MrcpResponse) message;
-                    _responseLock.notifyAll();
+            MrcpResponse response = (MrcpResponse) message;
+            PendingResponse future = _pendingResponses.remove(response.getRequestID());
+            if (future == null) {
+                _log.warn("Unexpected response received for a request that is not outstanding!");
+                _log.warn("Message: "+message.toString());
+            } else {
+                long now = System.nanoTime();
+                _metrics.recordRoundTrip(future._methodName, now - future._sentTime);
+                if (response.getStatusCode() > 299) {
+                    future.completeExceptionally(new MrcpInvocationException(response));
                 } else {
-                    _log.warn("Unexpected response received when no request was being sent!");
-                    _log.warn("Message: "+message.toString());
+                    if (response.getRequestState() != MrcpRequestState.COMPLETE) {
+                        future._respondedTime = now;
+                        _inProgressRequests.put(response.getRequestID(), future);
+                    }
+                    completeStoppedRequests(response, now);
+                    future.complete(response);
                 }
             }
         } else {
         	_log.info("Got an event: "+((MrcpEvent) message).toString());
+            MrcpEvent event = (MrcpEvent) message;
+            if (event.getRequestState() == MrcpRequestState.COMPLETE) {
+                PendingResponse request = _inProgressRequests.remove(event.getRequestID());
+                if (request != null) {
+                    _metrics.recordCompletion(request._methodName, System.nanoTime() - request._respondedTime);
+                }
+            }
             synchronized (_listeners) {
                 for (MrcpEventListener listener : _listeners) {
                     listener.eventReceived((MrcpEvent) message);
@@ -208,4 +297,66 @@ public class MrcpChannel implements MrcpMessageHandler {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Completes the requests terminated by a response (to a STOP or BARGE-IN-OCCURRED request) listing them in its
+     * Active-Request-Id-List header, since no COMPLETE event is received for them.
+     */
+    private void completeStoppedRequests(MrcpResponse response, long now) {
+        MrcpHeader header = response.getHeader(MrcpHeaderName.ACTIVE_REQUEST_ID_LIST);
+        if (header == null) {
+            return;
+        }
+        try {
+            for (Long requestID : ((RequestIdList) header.getValueObject()).getIdList()) {
+                PendingResponse request = _inProgressRequests.remove(requestID);
+                if (request != null) {
+                    _metrics.recordCompletion(request._methodName, now - request._respondedTime);
+                }
+            }
+        } catch (IllegalValueException e) {
+            _log.warn("Invalid Active-Request-Id-List in response: " + response, e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see org.mrcp4j.client.MrcpMessageHandler#messageTooLarge(org.mrcp4j.message.MrcpMessage, java.lang.String)
+     */
+    public void messageTooLarge(MrcpMessage message, String reason) {
+        if (message instanceof MrcpResponse) {
+            PendingResponse future = _pendingResponses.remove(message.getRequestID());
+            if (future != null) {
+                future.completeExceptionally(new IOException("The response to the request was discarded: " + reason));
+            }
+        } else if (((MrcpEvent) message).getRequestState() == MrcpRequestState.COMPLETE) {
+            _inProgressRequests.remove(message.getRequestID());
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see org.mrcp4j.client.MrcpMessageHandler#connectionClosed()
+     */
+    public void connectionClosed() {
+        _inProgressRequests.clear();
+        for (Long requestID : _pendingResponses.keySet()) {
+            CompletableFuture<MrcpResponse> future = _pendingResponses.remove(requestID);
+            if (future != null) {
+                future.completeExceptionally(new IOException("The connection to the MRCP server has been closed."));
+            }
+        }
+    }
+
+    /**
+     * Future of the response to a request, remembering what is needed to record its latencies.
+     */
+    private static class PendingResponse extends CompletableFuture<MrcpResponse> {
+
+        final String _methodName;
+        final long _sentTime = System.nanoTime();
+        volatile long _respondedTime;  // set when responded to as IN-PROGRESS or PENDING
+
+        PendingResponse(String methodName) {
+            _methodName = methodName;
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.client;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.mrcp4j.util.LatencyHistogram;
+
+/**
+ * Latencies observed by MRCP clients, keyed by request method name and in nanoseconds.
+ * <p>
+ * The round trip is the time from sending a request to receiving its response, the completion time is the
+ * time from receiving an {@code IN-PROGRESS} response to receiving the {@code COMPLETE} event of the request
+ * (e.g. {@code RECOGNITION-COMPLETE} for a {@code RECOGNIZE} request).  Each channel keeps its own metrics,
+ * which are also added to the metrics of the provider that created the channel.
+ * </p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class MrcpClientMetrics {
+
+    private final MrcpClientMetrics _parent;
+
+    private final ConcurrentMap<String, LatencyHistogram> _roundTripLatency =
+        new ConcurrentHashMap<String, LatencyHistogram>();
+    private final ConcurrentMap<String, LatencyHistogram> _completionLatency =
+        new ConcurrentHashMap<String, LatencyHistogram>();
+
+    MrcpClientMetrics(MrcpClientMetrics parent) {
+        _parent = parent;
+    }
+
+    void recordRoundTrip(String methodName, long nanos) {
+        histogram(_roundTripLatency, methodName).record(nanos);
+        if (_parent != null) {
+            _parent.recordRoundTrip(methodName, nanos);
+        }
+    }
+
+    void recordCompletion(String methodName, long nanos) {
+        histogram(_completionLatency, methodName).record(nanos);
+        if (_parent != null) {
+            _parent.recordCompletion(methodName, nanos);
+        }
+    }
+
+    private static LatencyHistogram histogram(ConcurrentMap<String, LatencyHistogram> histograms, String methodName) {
+        LatencyHistogram histogram = histograms.get(methodName);
+        if (histogram == null) {
+            LatencyHistogram newHistogram = new LatencyHistogram();
+            histogram = histograms.putIfAbsent(methodName, newHistogram);
+            if (histogram == null) {
+                histogram = newHistogram;
+            }
+        }
+        return histogram;
+    }
+
+    private static Map<String, LatencyHistogram.Snapshot> snapshot(Map<String, LatencyHistogram> histograms) {
+        Map<String, LatencyHistogram.Snapshot> snapshot = new TreeMap<String, LatencyHistogram.Snapshot>();
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().getSnapshot());
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return the time from sending a request to receiving its response, keyed by method name.
+     */
+    public Map<String, LatencyHistogram.Snapshot> getRoundTripLatency() {
+        return snapshot(_roundTripLatency);
+    }
+
+    /**
+     * @return the time from receiving the {@code IN-PROGRESS} response of a request to receiving its
+     *         {@code COMPLETE} event, or the response of the STOP request terminating it, keyed by method name.
+     */
+    public Map<String, LatencyHistogram.Snapshot> getCompletionLatency() {
+        return snapshot(_completionLatency);
+    }
+
+    /**
+     * Discards all recorded latencies of these metrics (but not of the provider metrics they are added to).
+     */
+    public void reset() {
+        _roundTripLatency.clear();
+        _completionLatency.clear();
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.client;
+
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.filter.codec.ProtocolCodecFactory;
+import org.apache.mina.filter.codec.ProtocolDecoder;
+import org.apache.mina.filter.codec.ProtocolEncoder;
+import org.mrcp4j.message.codec.MrcpMessageFrameDecoder;
+
+/**
+ * Provides the encoder and decoder for the client side of an MRCPv2 connection (for internal library use only).
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class MrcpCodecFactory implements ProtocolCodecFactory {
+
+    private volatile int _maxMessageLength = MrcpMessageFrameDecoder.DEFAULT_MAX_MESSAGE_LENGTH;
+    private volatile int _maxHeaderCount = MrcpMessageFrameDecoder.DEFAULT_MAX_HEADER_COUNT;
+    private volatile int _maxLineLength = MrcpMessageFrameDecoder.DEFAULT_MAX_LINE_LENGTH;
+
+    /**
+     * Sets the size limits for received messages.
+     * @param maxMessageLength the maximum message-length in bytes.
+     * @param maxHeaderCount   the maximum number of header lines.
+     * @param maxLineLength    the maximum length in bytes of the start-line and of each header line.
+     * @see org.mrcp4j.message.codec.MrcpMessageFrameDecoder#setLimits(int, int, int)
+     */
+    public void setLimits(int maxMessageLength, int maxHeaderCount, int maxLineLength) {
+        if (maxMessageLength < 1 || maxHeaderCount < 0 || maxLineLength < 1) {
+            throw new IllegalArgumentException("Invalid message limits: " +
+                    maxMessageLength + ", " + maxHeaderCount + ", " + maxLineLength);
+        }
+        _maxMessageLength = maxMessageLength;
+        _maxHeaderCount = maxHeaderCount;
+        _maxLineLength = maxLineLength;
+    }
+
+    public ProtocolDecoder getDecoder(IoSession session) {
+        MrcpMessageDecoder decoder = new MrcpMessageDecoder();
+        decoder.setLimits(_maxMessageLength, _maxHeaderCount, _maxLineLength);
+        return decoder;
+    }
+
+    public ProtocolEncoder getEncoder(IoSession session) {
+        return new MrcpRequestEncoder();
+    }
+
+}
@@ -22,104 +22,40 @@
  */
 package org.mrcp4j.client;
 
-import java.io.BufferedReader;
-import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
 
-import org.apache.log4j.LogManager;
-import org.apache.log4j.Logger;
+import org.apache.mina.core.session.IoSession;
 import org.mrcp4j.message.MrcpMessage;
-import org.mrcp4j.message.header.IllegalValueException;
-import org.mrcp4j.message.header.MrcpHeader;
-import org.mrcp4j.message.header.MrcpHeaderName;
+import org.mrcp4j.message.MrcpServerMessage;
+import org.mrcp4j.message.codec.MrcpMessageFrameDecoder;
+import org.mrcp4j.message.codec.MrcpMessageParser;
 
 /**
- * Decodes messages received in MRCPv2 format into {@link org.mrcp4j.message.MrcpMessage} instances.
+ * Decodes response and event messages received in MRCPv2 format into {@link org.mrcp4j.message.MrcpResponse}
+ * and {@link org.mrcp4j.message.MrcpEvent} instances.
  *
  * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
  */
-public class MrcpMessageDecoder {
-
-	private static Logger _log = LogManager.getLogger(MrcpMessageDecoder.class);
-
-    private MrcpResponseDecoder _responseDecoder = new MrcpResponseDecoder();
-    private MrcpEventDecoder _eventDecoder = new MrcpEventDecoder();
-
-
-    private static final int RESPONSE_LINE_REQUEST_ID_PART  = 2;
-    private static final int START_LINE_PART_COUNT          = 5;
+public class MrcpMessageDecoder extends MrcpMessageFrameDecoder {
 
     // TODO: change ParseException to MrcpProtocolException
-    public MrcpMessage decode(BufferedReader in) throws IOException, ParseException {
-
-        // read until the first non-empty line to get the start-line
-        String line = null;
-        while ((line = in.readLine()) == null || (line = line.trim()).equals("")) {
-            if (_log.isTraceEnabled())
-                _log.trace((line == null) ? "MrcpMessageDecoder: null line" : "MrcpMessageDecoder: empty line");
-            try {
-                Thread.sleep(100); // TODO: make sleep time configurable
-            } catch (InterruptedException e) {
-                _log.debug(e, e);
-            }
-        }
-
-        // verify the start-line contains the correct number of parts
-        String[] startLineParts = line.split(" ");
-        if (startLineParts.length != START_LINE_PART_COUNT) {
-            throw new ParseException("Incorrect start-line format!", -1);
-        }
-
-        // determine if the message is a response or an event message
-        boolean isResponse = false;
-        try {
-            Long.parseLong(startLineParts[RESPONSE_LINE_REQUEST_ID_PART]);
-            isResponse = true;
-        } catch (NumberFormatException e){
-            // ignore, message should be event
-        }
-
-        // create the message from the start-line
-        MrcpMessage message = null;
-        if (isResponse) {
-            message = _responseDecoder.createResponse(line);
-        } else {
-            message = _eventDecoder.createEvent(line);
-        }
-
-        // populate message headers
-        while ((line = in.readLine()) != null && !(line = line.trim()).equals("")) {
-            // TODO: handle multi-line headers
-            int index = line.indexOf(':');
-            if (index < 1) {
-                throw new ParseException("Incorrect message-header format!", -1);
-            }
-            String name = line.substring(0, index);
-            String value = line.substring(index + 1).trim();
-            MrcpHeader header = MrcpHeaderName.createHeader(name, value);
-            message.addHeader(header);
-        }
+    @Override
+    protected MrcpServerMessage parseStartLine(ByteBuffer buf, int start, int end) throws ParseException {
+        return MrcpMessageParser.parseServerMessageLine(buf, start, end);
+    }
 
-        // read message content if present
-        MrcpHeader contentLengthHeader = message.getHeader(MrcpHeaderName.CONTENT_LENGTH);
-        int contentLength = 0;
-        try {
-            contentLength = (contentLengthHeader == null) ? 0 : ((Integer) contentLengthHeader.getValueObject()).intValue();
-        } catch (IllegalValueException e) {
-            throw new ParseException(e.getMessage(), -1);
-        }
-        if (contentLength > 0) {
-            char[] content = new char[contentLength];
-            int length = in.read(content, 0, contentLength);
-            if (length != contentLength) {
-                throw new ParseException("Content length mismatch, expected " +
-                        contentLength + ", got " + length, -1);
-            }
-            message.setContent(new String(content));
+    /**
+     * Passes an oversized response or event on to the channel it is addressed to, so that the request it belongs
+     * to does not wait for it forever.
+     */
+    @Override
+    protected void messageTooLarge(IoSession session, MrcpMessage message, String reason) {
+        super.messageTooLarge(session, message, reason);
+        MrcpSocket socket = MrcpSocket.getSocket(session);
+        if (socket != null) {
+            socket.messageTooLarge(message, reason);
         }
-
-        return message;
     }
 
-
-}
\ No newline at end of file
+}
@@ -41,4 +41,16 @@ public interface MrcpMessageHandler {
      */
     public void handleMessage(MrcpMessage message);
 
+    /**
+     * Called when a message from an MRCP resource has been discarded because it exceeds the size limits.
+     * @param message the discarded message, with its start-line fields and headers but without content
+     * @param reason  description of the exceeded limit
+     */
+    public void messageTooLarge(MrcpMessage message, String reason);
+
+    /**
+     * Called when the connection to the MRCP resource has been closed.
+     */
+    public void connectionClosed();
+
 }
@@ -22,17 +22,29 @@
  */
 package org.mrcp4j.client;
 
+import org.mrcp4j.message.codec.MrcpMessageCopyFilter;
 import org.mrcp4j.message.header.IllegalValueException;
 
+import org.apache.mina.core.service.IoConnector;
+import org.apache.mina.filter.codec.ProtocolCodecFilter;
+import org.apache.mina.transport.socket.nio.NioSocketConnector;
+import org.apache.mina.transport.vmpipe.VmPipeAddress;
+import org.apache.mina.transport.vmpipe.VmPipeConnector;
+
 import java.io.IOException;
 import java.net.InetAddress;
-import java.util.HashMap;
-import java.util.Map;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Provides functionality for simplified management of {@link org.mrcp4j.client.MrcpChannel} instances by an MRCPv2 client.
  *
  * <p>To construct a {@code MrcpProvider} instance use {@link org.mrcp4j.client.MrcpFactory#createProvider()}.</p>
+ *
+ * <p>All connections created by a provider are served by a small fixed set of non-blocking I/O threads owned by
+ * the provider, which are released by {@link #dispose()}.</p>
  * 
  * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
  */
@@ -49,14 +61,76 @@ public class MrcpProvider {
     public static final String PROTOCOL_TLS_MRCPv2 = "TCP/TLS/MRCPv2";
 
     /**
-     * Compile time flag for setting whether to share {@link org.mrcp4j.client.MrcpSocket} instances.
+     * Transport protocol string for MRCPv2 within the JVM, connecting to the
+     * {@link org.mrcp4j.server.MrcpServerSocket} of the same JVM listening on the specified port, which must have
+     * been enabled with {@link org.mrcp4j.server.MrcpServerSocket#bindLocal()}.  Messages are
+     * passed to the server as copies of the message objects, without encoding them or using a socket.
+     */
+    public static final String PROTOCOL_LOCAL_MRCPv2 = "LOCAL/MRCPv2";
+
+    /**
+     * Default maximum number of connections opened to a single MRCP server endpoint.
      */
-    private static final boolean SHARE_SOCKETS = true;
+    public static final int DEFAULT_CONNECTIONS_PER_ENDPOINT = 1;
+
+    private MrcpCodecFactory _codecFactory = new MrcpCodecFactory();
+
+    private MrcpClientMetrics _metrics = new MrcpClientMetrics(null);
+
+    private ConcurrentMap<String, MrcpSocketPool> _socketPools = new ConcurrentHashMap<String, MrcpSocketPool>();
+
+    private volatile int _connectionsPerEndpoint = DEFAULT_CONNECTIONS_PER_ENDPOINT;
 
-    private Map<String, MrcpSocket> _sockets = SHARE_SOCKETS ? new HashMap<String, MrcpSocket>() : null;
+    private NioSocketConnector _connector;
+    private VmPipeConnector _localConnector;  // created with the first local channel
 
     MrcpProvider() {
         // restrict constructor to package visibility
+        _connector = new NioSocketConnector();
+        _connector.getSessionConfig().setTcpNoDelay(true);
+        _connector.getFilterChain().addLast("codec", new ProtocolCodecFilter(_codecFactory));
+        _connector.setHandler(new MrcpSocket.SocketHandler());
+    }
+
+    /**
+     * Sets the maximum number of connections opened to a single MRCP server endpoint.  Channels to the same
+     * endpoint are spread over up to this many connections, each new channel being placed on the connection
+     * carrying the fewest channels.  Only affects endpoints to which no channel has been created yet.
+     * @param connectionsPerEndpoint the maximum number of connections per endpoint (must be at least 1).
+     * @throws IllegalArgumentException if the value is less than 1.
+     */
+    public void setConnectionsPerEndpoint(int connectionsPerEndpoint) {
+        if (connectionsPerEndpoint < 1) {
+            throw new IllegalArgumentException("connectionsPerEndpoint must be at least 1: " + connectionsPerEndpoint);
+        }
+        _connectionsPerEndpoint = connectionsPerEndpoint;
+    }
+
+    /**
+     * @return the maximum number of connections opened to a single MRCP server endpoint.
+     */
+    public int getConnectionsPerEndpoint() {
+        return _connectionsPerEndpoint;
+    }
+
+    /**
+     * Retrieves the round trip and completion latencies of the requests sent on all channels created by this provider.
+     * @return the metrics of this provider.
+     */
+    public MrcpClientMetrics getMetrics() {
+        return _metrics;
+    }
+
+    /**
+     * Sets the size limits for responses and events received on connections opened from now on.  A message
+     * exceeding a limit is discarded and its body is skipped without being buffered, a discarded response fails the
+     * request it answers with an {@link java.io.IOException}.
+     * @param maxMessageLength the maximum message-length in bytes.
+     * @param maxHeaderCount   the maximum number of header lines.
+     * @param maxLineLength    the maximum length in bytes of the start-line and of each header line.
+     */
+    public void setMessageLimits(int maxMessageLength, int maxHeaderCount, int maxLineLength) {
+        _codecFactory.setLimits(maxMessageLength, maxHeaderCount, maxLineLength);
     }
 
     /**
@@ -64,10 +138,12 @@ public class MrcpProvider {
      * @param channelID the channel ID for the channel being created.  This ID should be discovered
      *                  during the resource allocation phase which is mediated using SIP messages
      *                  between the client and server.
-     * @param host      the location of the MRCP resource being accessed by the channel.
+     * @param host      the location of the MRCP resource being accessed by the channel (ignored for
+     *                  {@link org.mrcp4j.client.MrcpProvider#PROTOCOL_LOCAL_MRCPv2}).
      * @param port      the port at which the MRCP resource is listening for MRCP messages.
-     * @param protocol  the transport protocol being used to carry the MRCP messages (currently the only
-     *                  supported value is {@link org.mrcp4j.client.MrcpProvider#PROTOCOL_TCP_MRCPv2}).
+     * @param protocol  the transport protocol being used to carry the MRCP messages (currently supported values
+     *                  are {@link org.mrcp4j.client.MrcpProvider#PROTOCOL_TCP_MRCPv2} and
+     *                  {@link org.mrcp4j.client.MrcpProvider#PROTOCOL_LOCAL_MRCPv2}).
      * 
      * @return                           an active MRCP channel connected to the host and port specified
      * @throws IOException               if an I/O error occurs.
@@ -77,34 +153,61 @@ public class MrcpProvider {
     public MrcpChannel createChannel(String channelID, InetAddress host, int port, String protocol)
       throws IOException, IllegalArgumentException, IllegalValueException {
 
-        // currently only TCP/MRCPv2 is supported
+        // currently only TCP/MRCPv2 and in-JVM connections are supported
         // TODO: add support for TCP/TLS/MRCPv2
-        if (!PROTOCOL_TCP_MRCPv2.equalsIgnoreCase(protocol)) {
+        MrcpSocketPool pool;
+        if (PROTOCOL_TCP_MRCPv2.equalsIgnoreCase(protocol)) {
+            pool = getSocketPool(getSocketKey(host, port, "tcp"), _connector, new InetSocketAddress(host, port));
+        } else if (PROTOCOL_LOCAL_MRCPv2.equalsIgnoreCase(protocol)) {
+            pool = getSocketPool("local:" + port, getLocalConnector(), new VmPipeAddress(port));
+        } else {
             throw new IllegalArgumentException("Unsupported protocol: " + protocol);
         }
 
-        MrcpSocket socket = getSocket(host, port, "tcp");
-        MrcpChannel channel = new MrcpChannel(channelID, socket);
-        return channel;
-        // TODO: provide method to close channel
+        MrcpSocket socket = pool.getSocket();
+        try {
+            return new MrcpChannel(channelID, socket, _metrics);
+        } finally {
+            // the channel has registered with the socket (or failed to), so it is counted by the socket itself
+            pool.release(socket);
+        }
     }
 
-    private MrcpSocket getSocket(InetAddress host, int port, String transport)
-      throws IOException {
-        if (!SHARE_SOCKETS) {
-            return new MrcpSocket(host, port);
+    private synchronized IoConnector getLocalConnector() {
+        if (_localConnector == null) {
+            _localConnector = new VmPipeConnector();
+            _localConnector.getFilterChain().addLast("copy", new MrcpMessageCopyFilter());
+            _localConnector.setHandler(new MrcpSocket.SocketHandler());
         }
+        return _localConnector;
+    }
 
-        String key = getSocketKey(host, port, transport);
+    private MrcpSocketPool getSocketPool(String key, IoConnector connector, SocketAddress address) {
+        MrcpSocketPool pool = _socketPools.get(key);
+        if (pool == null) {
+            MrcpSocketPool newPool = new MrcpSocketPool(connector, address, _connectionsPerEndpoint);
+            pool = _socketPools.putIfAbsent(key, newPool);
+            if (pool == null) {
+                pool = newPool;
+            }
+        }
+        return pool;
+    }
 
-        synchronized (_sockets) {
-            MrcpSocket socket = _sockets.get(key);
-            if (socket == null) {
-                //TODO: move socket initialization outside synchronization block
-                socket = new MrcpSocket(host, port);
-                _sockets.put(key, socket);
+    /**
+     * Closes all connections created by this provider and releases its I/O threads.  Channels created by
+     * this provider can no longer be used afterwards.
+     */
+    public void dispose() {
+        for (MrcpSocketPool pool : _socketPools.values()) {
+            pool.close();
+        }
+        _socketPools.clear();
+        _connector.dispose();
+        synchronized (this) {
+            if (_localConnector != null) {
+                _localConnector.dispose();
             }
-            return socket;
         }
     }
 
@@ -22,66 +22,54 @@
  */
 package org.mrcp4j.client;
 
-import static org.mrcp4j.message.MrcpMessage.CRLF;
+import java.nio.ByteBuffer;
 
-import org.mrcp4j.message.header.MrcpHeader;
+import org.mrcp4j.message.codec.MrcpMessageWriter;
 import org.mrcp4j.message.request.MrcpRequest;
 
-import java.io.IOException;
-import java.io.PrintWriter;
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.filter.codec.ProtocolEncoder;
+import org.apache.mina.filter.codec.ProtocolEncoderException;
+import org.apache.mina.filter.codec.ProtocolEncoderOutput;
 
 /**
  * Encodes {@link org.mrcp4j.message.request.MrcpRequest} instances into MRCPv2 specification format.
  *
  * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
  */
-public class MrcpRequestEncoder {
+public class MrcpRequestEncoder implements ProtocolEncoder {
 
-    public void encode(MrcpRequest request, PrintWriter out) throws IOException {
+    public void encode(IoSession session, Object message, ProtocolEncoderOutput out)
+      throws Exception {
 
-        StringBuilder messageBuffer = new StringBuilder();
-
-        // append request line
-        int offset = appendResponseLine(messageBuffer, request);
-
-        // append headers
-        for (MrcpHeader header : request.getHeaders()) {
-            messageBuffer.append(header.toString()).append(CRLF);
+        if (!(message instanceof MrcpRequest)) {
+            throw new ProtocolEncoderException("Unsupported message type: " + message.getClass().getName());
         }
 
-        // append CRLF line
-        messageBuffer.append(CRLF);
+        MrcpRequest request = (MrcpRequest) message;
+        int messageLength = MrcpMessageWriter.prepare(request);
 
-        // append message content if present
-        if (request.hasContent()) {
-            messageBuffer.append(request.getContent());
+        ByteBuffer content = request.getContentBytes();
+        if (content != null && content.isDirect()) {
+            // memory-mapped content is written from its own buffer instead of being copied after the headers
+            IoBuffer head = IoBuffer.allocate(messageLength - content.remaining());
+            MrcpMessageWriter.writeHead(request, head.buf());
+            head.flip();
+            out.write(head);
+            out.write(IoBuffer.wrap(content));
+            return;
         }
 
-        // determine and set message length
-        int bufferLength = messageBuffer.length();
-        int bufferLengthLength = Integer.toString(bufferLength).length();
-        int messageLength = bufferLength + bufferLengthLength;
-        String messageLengthString = Integer.toString(messageLength);
-        if (messageLengthString.length() > bufferLengthLength) {
-            messageLengthString = Integer.toString(++messageLength);
-        }
-        messageBuffer.insert(offset, messageLengthString);
-        request.setMessageLength(messageLength);
-        bufferLength = messageBuffer.length();
-
-        // write message to out
-        out.print(messageBuffer.toString());
-
+        IoBuffer bytes = IoBuffer.allocate(messageLength);
+        MrcpMessageWriter.write(request, bytes.buf());
+        bytes.flip();
+        out.write(bytes);
     }
 
-    private static int appendResponseLine(StringBuilder encodeBuf, MrcpRequest request) {
-        String version = request.getVersion();
-        encodeBuf.append(version).append(' ');
-        // message length will be inserted at this position after headers and content are encoded
-        encodeBuf.append(' ').append(request.getMethodNameAsString());
-        encodeBuf.append(' ').append(request.getRequestID());
-        encodeBuf.append(CRLF);
-        return version.length() + 1;
+    @Override
+    public void dispose(IoSession session) throws Exception {
+        // No resources to clean up
     }
 
 }
@@ -22,21 +22,23 @@
  */
 package org.mrcp4j.client;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
-import java.net.InetAddress;
-import java.net.Socket;
-import java.text.ParseException;
+import java.net.SocketAddress;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
+import org.apache.mina.core.future.ConnectFuture;
+import org.apache.mina.core.future.WriteFuture;
+import org.apache.mina.core.service.IoConnector;
+import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.session.AttributeKey;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.core.session.IoSessionInitializer;
 import org.mrcp4j.message.MrcpMessage;
 import org.mrcp4j.message.header.ChannelIdentifier;
 import org.mrcp4j.message.header.IllegalValueException;
@@ -50,35 +52,48 @@ import org.mrcp4j.message.request.MrcpRequest;
  * for constructing an {@link org.mrcp4j.client.MrcpChannel} that can be used to send control messages to the media
  * resource on the MRCP server.</p>
  *
+ * <p>Messages are received by the I/O threads of the connector the socket was created on, which are shared by
+ * all sockets of an {@link org.mrcp4j.client.MrcpProvider}, so message handlers must not block.</p>
+ *
  * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
  */
 public class MrcpSocket {
 
 	private static Logger _log = LogManager.getLogger(MrcpSocket.class);
 
-    private MrcpRequestEncoder _requestEncoder = new MrcpRequestEncoder();
+    private static final AttributeKey SOCKET = new AttributeKey(MrcpSocket.class, "socket");
+
     Map<ChannelIdentifier , MrcpMessageHandler> _handlers = Collections.synchronizedMap(new HashMap<ChannelIdentifier , MrcpMessageHandler>());
 
-    private Socket _socket;
-    BufferedReader _in;
-    private PrintWriter _out;
+    private volatile IoSession _session;
 
-    MrcpSocket(InetAddress host, int port) throws IOException {
-        _socket = new Socket(host, port);
-        _in = new BufferedReader(new InputStreamReader(_socket.getInputStream()));
-        _out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(_socket.getOutputStream())));
-        new ReadThread().start();
+    MrcpSocket(IoConnector connector, SocketAddress address) throws IOException {
+        ConnectFuture future = connector.connect(address, new IoSessionInitializer<ConnectFuture>() {
+            public void initializeSession(IoSession session, ConnectFuture future) {
+                _session = session;
+                session.setAttribute(SOCKET, MrcpSocket.this);
+            }
+        });
+        future.awaitUninterruptibly();
+        if (!future.isConnected()) {
+            Throwable cause = future.getException();
+            throw (cause instanceof IOException) ? (IOException) cause
+                    : new IOException("Could not connect to MRCP server at " + address, cause);
+        }
     }
 
-    public void sendRequest(MrcpRequest request) throws IOException {
-        try {
-            _requestEncoder.encode(request, _out);
-            _out.flush();
-        } catch (IOException e){
-            // TODO: may need to reset socket here...
-            _log.debug(e, e);
-            throw e;
+    /**
+     * Writes a request to the MRCP server.
+     * @param request the request to send.
+     * @return the future of the write operation.
+     * @throws IOException if the connection to the MRCP server has been closed.
+     */
+    public WriteFuture sendRequest(MrcpRequest request) throws IOException {
+        IoSession session = _session;
+        if (session == null || session.isClosing()) {
+            throw new IOException("The connection to the MRCP server has been closed.");
         }
+        return session.write(request);
     }
 
     public void addMessageHandler(ChannelIdentifier channelID, MrcpMessageHandler handler) {
@@ -88,42 +103,104 @@ public class MrcpSocket {
     public void removeMessageHandler(ChannelIdentifier channelID) {
         _handlers.remove(channelID);
     }
-    
-    private class ReadThread extends Thread {
 
-        private MrcpMessageDecoder _messageDecoder = new MrcpMessageDecoder();
+    /**
+     * @return the number of channels currently using this socket.
+     */
+    public int getChannelCount() {
+        return _handlers.size();
+    }
+
+    /**
+     * Closes the connection to the MRCP server.
+     */
+    public void close() {
+        IoSession session = _session;
+        if (session != null) {
+            session.closeNow();
+        }
+    }
+
+    /**
+     * @return true if the connection to the MRCP server is open.
+     */
+    public boolean isConnected() {
+        IoSession session = _session;
+        return session != null && session.isConnected() && !session.isClosing();
+    }
+
+    void messageReceived(MrcpMessage message) throws IllegalValueException {
+        ChannelIdentifier channelID = message.getChannelIdentifier();
+        MrcpMessageHandler handler = _handlers.get(channelID);
+        if (handler != null) {
+            handler.handleMessage(message);
+        } else if (_log.isDebugEnabled()) {
+            _log.debug("No handler found for channel: " + channelID);
+        }
+    }
+
+    void messageTooLarge(MrcpMessage message, String reason) {
+        try {
+            ChannelIdentifier channelID = message.getChannelIdentifier();
+            MrcpMessageHandler handler = _handlers.get(channelID);
+            if (handler != null) {
+                handler.messageTooLarge(message, reason);
+            } else if (_log.isDebugEnabled()) {
+                _log.debug("No handler found for channel: " + channelID);
+            }
+        } catch (IllegalValueException e) {
+            _log.warn(e, e);
+        }
+    }
+
+    /**
+     * @param session a connection created by a socket.
+     * @return the socket owning the connection, or null if the connection has not been initialized by a socket.
+     */
+    static MrcpSocket getSocket(IoSession session) {
+        return (MrcpSocket) session.getAttribute(SOCKET);
+    }
+
+    void connectionClosed() {
+        List<MrcpMessageHandler> handlers;
+        synchronized (_handlers) {
+            handlers = new ArrayList<MrcpMessageHandler>(_handlers.values());
+        }
+        for (MrcpMessageHandler handler : handlers) {
+            handler.connectionClosed();
+        }
+    }
+
+    /**
+     * Dispatches the messages received on all connections of a connector to the socket owning the connection.
+     */
+    static class SocketHandler extends IoHandlerAdapter {
+
+        @Override
+        public void messageReceived(IoSession session, Object message) throws Exception {
+            MrcpSocket socket = (MrcpSocket) session.getAttribute(SOCKET);
+            try {
+                socket.messageReceived((MrcpMessage) message);
+            } catch (IllegalValueException e) {
+                // TODO Auto-generated catch block
+                _log.warn(e, e);
+            }
+        }
 
-        /* (non-Javadoc)
-         * @see java.lang.Runnable#run()
-         */
         @Override
-        public void run() {
-            boolean run = true;
-            while (run) {
-                // TODO: switch to nio so that the following statement doesn't block forever when the socket is closed
-                try {
-                    MrcpMessage message = _messageDecoder.decode(_in);
-                    ChannelIdentifier channelID = message.getChannelIdentifier();
-                    MrcpMessageHandler handler = _handlers.get(channelID);
-                    if (handler != null) {
-                        handler.handleMessage(message);
-                    } else if (_log.isDebugEnabled()) {
-                        _log.debug("No handler found for channel: " + channelID);
-                    }
-                } catch (IOException e) {
-                    // TODO Auto-generated catch block
-                    run = false;
-                    _log.warn(e, e);
-                } catch (ParseException e) {
-                    // TODO Auto-generated catch block
-                    _log.warn(e, e);
-                } catch (IllegalValueException e) {
-                    // TODO Auto-generated catch block
-                    _log.warn(e, e);
-                }
+        public void sessionClosed(IoSession session) throws Exception {
+            MrcpSocket socket = (MrcpSocket) session.getAttribute(SOCKET);
+            if (socket != null) {
+                socket.connectionClosed();
             }
         }
 
+        @Override
+        public void exceptionCaught(IoSession session, Throwable cause) {
+            // the stream cannot be resynchronized after a decoding error, so close the connection
+            _log.warn(cause, cause);
+            session.closeNow();
+        }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,171 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.client;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.mina.core.service.IoConnector;
+
+/**
+ * Pool of connections to a single MRCP server endpoint (for internal library use only).
+ * <p>
+ * Up to a maximum number of connections are opened on demand.  Each new channel is placed on the connection
+ * carrying the fewest channels; a new connection is only opened when every open connection already carries at
+ * least one channel.  Connections are established outside of the pool lock, so a slow connect only delays the
+ * callers that actually need the new connection.  A connection returned by {@link #getSocket()} counts as carrying
+ * one more channel until {@link #release(MrcpSocket)} is called, so channels created concurrently are spread over
+ * the connections even before they have registered with their connection.
+ * </p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+class MrcpSocketPool {
+
+    private IoConnector _connector;
+    private SocketAddress _address;
+    private int _maxSockets;
+
+    private List<MrcpSocket> _sockets = new ArrayList<MrcpSocket>();
+    private Map<MrcpSocket, Integer> _reservations = new HashMap<MrcpSocket, Integer>();
+    private int _connecting;
+
+    MrcpSocketPool(IoConnector connector, SocketAddress address, int maxSockets) {
+        _connector = connector;
+        _address = address;
+        _maxSockets = maxSockets;
+    }
+
+    /**
+     * Selects the connection a new channel should use, opening a new connection if required, and reserves it for
+     * the channel.  The caller must call {@link #release(MrcpSocket)} once the channel has registered its message
+     * handler with the connection or has failed to be created.
+     * @return the least loaded connection of the pool.
+     * @throws IOException if a new connection could not be established.
+     */
+    MrcpSocket getSocket() throws IOException {
+        synchronized (this) {
+            while (true) {
+                MrcpSocket leastLoaded = null;
+                int leastLoad = 0;
+                for (Iterator<MrcpSocket> it = _sockets.iterator(); it.hasNext(); ) {
+                    MrcpSocket socket = it.next();
+                    if (!socket.isConnected()) {
+                        it.remove();
+                        _reservations.remove(socket);
+                        continue;
+                    }
+                    int load = getLoad(socket);
+                    if (leastLoaded == null || load < leastLoad) {
+                        leastLoaded = socket;
+                        leastLoad = load;
+                    }
+                }
+
+                // a connection being established carries the channel of the caller opening it, so a busier
+                // connection is only chosen once no connection is being established
+                boolean canGrow = _sockets.size() + _connecting < _maxSockets;
+                if (leastLoaded != null && (leastLoad == 0 || (!canGrow && (_connecting == 0 || leastLoad <= 1)))) {
+                    reserve(leastLoaded);
+                    return leastLoaded;
+                }
+                if (canGrow) {
+                    _connecting++;
+                    break;
+                }
+
+                // the connections are still being established, wait for one of them
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for connection to " + _address, e);
+                }
+            }
+        }
+
+        MrcpSocket socket = null;
+        try {
+            socket = new MrcpSocket(_connector, _address);
+            return socket;
+        } finally {
+            synchronized (this) {
+                _connecting--;
+                if (socket != null) {
+                    _sockets.add(socket);
+                    reserve(socket);
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Releases the reservation taken by {@link #getSocket()}.
+     * @param socket the connection returned by {@link #getSocket()}.
+     */
+    synchronized void release(MrcpSocket socket) {
+        Integer count = _reservations.remove(socket);
+        if (count != null && count > 1) {
+            _reservations.put(socket, count - 1);
+        }
+    }
+
+    private void reserve(MrcpSocket socket) {
+        Integer count = _reservations.get(socket);
+        _reservations.put(socket, (count == null) ? 1 : count + 1);
+    }
+
+    private int getLoad(MrcpSocket socket) {
+        Integer count = _reservations.get(socket);
+        return socket.getChannelCount() + ((count == null) ? 0 : count);
+    }
+
+    /**
+     * @return the number of open connections of the pool.
+     */
+    synchronized int getSocketCount() {
+        return _sockets.size();
+    }
+
+    /**
+     * Closes all connections of the pool.
+     */
+    void close() {
+        List<MrcpSocket> sockets;
+        synchronized (this) {
+            sockets = new ArrayList<MrcpSocket>(_sockets);
+            _sockets.clear();
+            _reservations.clear();
+        }
+        for (MrcpSocket socket : sockets) {
+            socket.close();
+        }
+    }
+
+}
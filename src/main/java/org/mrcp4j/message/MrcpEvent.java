@@ -40,6 +40,13 @@ public class MrcpEvent extends MrcpServerMessage {
         return _eventName;
     }
 
+    @Override
+    public MrcpEvent copy() {
+        MrcpEvent copy = copyTo(new MrcpEvent());
+        copy.setEventName(_eventName);
+        return copy;
+    }
+
     @Override
     protected final StringBuilder appendStartLine(StringBuilder sb) {
         sb.append(getVersion());
@@ -0,0 +1,189 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.mrcp4j.message.header.MrcpHeader;
+import org.mrcp4j.message.header.MrcpHeaderName;
+
+/**
+ * Header container of an {@link MrcpMessage}.  Headers with a known {@link MrcpHeaderName} are found through an array
+ * indexed by the name's ordinal, vendor-specific headers by a case-insensitive scan.  Iteration returns the headers in
+ * the order they were first added, replacing a header keeps its position.
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+final class MrcpHeaderList extends AbstractCollection<MrcpHeader> {
+
+    private static final int HEADER_NAME_COUNT = MrcpHeaderName.values().length;
+
+    private MrcpHeader[] _known;                        // by MrcpHeaderName ordinal, created with the first known header
+    private MrcpHeader[] _headers = new MrcpHeader[8];  // in insertion order
+    private int _size;
+    private int _vendorCount;
+
+    /**
+     * Adds a header, replacing any header with the same name.
+     * @param header the header to add.
+     * @return the header replaced, or null if there was none.
+     */
+    MrcpHeader put(MrcpHeader header) {
+        MrcpHeaderName name = nameOf(header);
+        MrcpHeader previous;
+        if (name != null) {
+            if (_known == null) {
+                _known = new MrcpHeader[HEADER_NAME_COUNT];
+            }
+            previous = _known[name.ordinal()];
+            _known[name.ordinal()] = header;
+            if (previous != null) {
+                _headers[indexOf(previous)] = header;
+                return previous;
+            }
+        } else {
+            int i = indexOfVendor(header.getNameString());
+            if (i >= 0) {
+                previous = _headers[i];
+                _headers[i] = header;
+                return previous;
+            }
+            _vendorCount++;
+        }
+
+        if (_size == _headers.length) {
+            _headers = Arrays.copyOf(_headers, _size * 2);
+        }
+        _headers[_size++] = header;
+        return null;
+    }
+
+    MrcpHeader get(MrcpHeaderName name) {
+        return (_known == null) ? null : _known[name.ordinal()];
+    }
+
+    MrcpHeader get(String name) {
+        MrcpHeaderName headerName = MrcpHeaderName.lookup(name);
+        if (headerName != null) {
+            return get(headerName);
+        }
+        int i = indexOfVendor(name);
+        return (i < 0) ? null : _headers[i];
+    }
+
+    MrcpHeader remove(MrcpHeaderName name) {
+        MrcpHeader header = get(name);
+        if (header != null) {
+            _known[name.ordinal()] = null;
+            removeAt(indexOf(header));
+        }
+        return header;
+    }
+
+    MrcpHeader remove(String name) {
+        MrcpHeaderName headerName = MrcpHeaderName.lookup(name);
+        if (headerName != null) {
+            return remove(headerName);
+        }
+        int i = indexOfVendor(name);
+        if (i < 0) {
+            return null;
+        }
+        MrcpHeader header = _headers[i];
+        removeAt(i);
+        _vendorCount--;
+        return header;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.AbstractCollection#size()
+     */
+    @Override
+    public int size() {
+        return _size;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.AbstractCollection#iterator()
+     */
+    @Override
+    public Iterator<MrcpHeader> iterator() {
+        return new Iterator<MrcpHeader>() {
+
+            private int _next;
+
+            public boolean hasNext() {
+                return _next < _size;
+            }
+
+            public MrcpHeader next() {
+                if (_next >= _size) {
+                    throw new NoSuchElementException();
+                }
+                return _headers[_next++];
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException("Use MrcpMessage.removeHeader() to remove headers");
+            }
+        };
+    }
+
+    /**
+     * A vendor-specific header that uses the field-name of a known header is stored as that header.
+     */
+    private static MrcpHeaderName nameOf(MrcpHeader header) {
+        MrcpHeaderName name = header.getHeaderName();
+        return (name == null) ? MrcpHeaderName.lookup(header.getNameString()) : name;
+    }
+
+    private int indexOf(MrcpHeader header) {
+        for (int i = 0; i < _size; i++) {
+            if (_headers[i] == header) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Header not found: " + header);
+    }
+
+    private int indexOfVendor(String name) {
+        if (_vendorCount > 0) {
+            for (int i = 0; i < _size; i++) {
+                MrcpHeader header = _headers[i];
+                if (header.getHeaderName() == null && header.getNameString().equalsIgnoreCase(name)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void removeAt(int index) {
+        System.arraycopy(_headers, index + 1, _headers, index, _size - index - 1);
+        _headers[--_size] = null;
+    }
+
+}
@@ -28,12 +28,19 @@ import org.mrcp4j.message.header.MrcpHeader;
 import org.mrcp4j.message.header.MrcpHeaderName;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Collection;
-import java.util.LinkedHashMap;
-import java.util.Map;
 
 /**
  *
@@ -48,9 +55,14 @@ public abstract class MrcpMessage {
     private int _messageLength = -1;
     private long _requestID = -1;
 
-    private Map<String, MrcpHeader> _headers = new LinkedHashMap<String, MrcpHeader>();
+    private MrcpHeaderList _headers = new MrcpHeaderList();
 
-    private String _content;
+    private ByteBuffer _contentBytes;  // encoded content, read-only
+    private String _content;           // decoded content, created on demand
+    private InputStream _contentStream;  // content still being received, until read by contentBytes()
+
+    private long _decodeStartTime;     // System.nanoTime() when decoding of a received message started
+    private long _decodedTime;         // System.nanoTime() when a received message was passed on by its decoder
 
     public void setVersion(String version) {
         _version = version;
@@ -76,53 +88,92 @@ public abstract class MrcpMessage {
         return _requestID;
     }
 
+    /**
+     * Records when a received message was decoded, for use by decoders.
+     * @param startTime the {@link System#nanoTime()} at which the start-line of the message was decoded.
+     * @param endTime   the {@link System#nanoTime()} at which the message was passed on by the decoder.
+     */
+    public void setDecodeTimes(long startTime, long endTime) {
+        _decodeStartTime = startTime;
+        _decodedTime = endTime;
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} at which the start-line of this message was decoded, or 0 if the
+     *         message has not been received.
+     */
+    public long getDecodeStartTime() {
+        return _decodeStartTime;
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} at which this message was passed on by its decoder, or 0 if the
+     *         message has not been received.
+     */
+    public long getDecodedTime() {
+        return _decodedTime;
+    }
+
     public void addHeader(MrcpHeader header) {
         if (header != null) {
-            _headers.put(header.getNameString(), header);
+            _headers.put(header);
         }
     }
 
     public MrcpHeader getHeader(MrcpHeaderName name) {
-        return _headers.get(name.toString());
+        return _headers.get(name);
     }
 
+    /**
+     * @param name the header field-name, matched ignoring case.
+     * @return the header with the specified field-name, or null if the message has no such header.
+     */
     public MrcpHeader getHeader(String name) {
         return _headers.get(name);
     }
 
     public MrcpHeader removeHeader(MrcpHeaderName name) {
-        return removeHeader(name.toString());
+        return _headers.remove(name);
     }
 
+    /**
+     * @param name the header field-name, matched ignoring case.
+     * @return the header removed, or null if the message had no such header.
+     */
     public MrcpHeader removeHeader(String name) {
         return _headers.remove(name);
     }
 
+    /**
+     * @return a read-only view of the headers of this message, in the order they were added.
+     */
     public Collection<MrcpHeader> getHeaders() {
-        return _headers.values();
+        return _headers;
     }
 
     /**
      * Sets the content for the body of the message as well as any applicable headers.
-     * @param contentType the MIME type of the content. (required)
+     * @param contentType the MIME type of the content, the charset parameter (default UTF-8) is used to read the URL. (required)
      * @param contentId the ID of the content. (optional)
      * @param content the body of the message. (required)
      * @throws IOException if the URL cannot be opened
      */
     public void setContent(String contentType, String contentId, URL content) throws IOException {
-        BufferedReader in = new BufferedReader(new InputStreamReader(content.openStream()));
-        
         StringBuilder sb = new StringBuilder();
-        String line = null;
-        while ((line = in.readLine()) != null) {
-            sb.append(line);
-            sb.append(CRLF);
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(content.openStream(), charsetOf(contentType)))) {
+            String line = null;
+            while ((line = in.readLine()) != null) {
+                sb.append(line);
+                sb.append(CRLF);
+            }
         }
         setContent(contentType, contentId, sb.substring(0, sb.length()-2));
     }
 
     /**
-     * Sets the content for the body of the message as well as any applicable headers.
+     * Sets the content for the body of the message as well as any applicable headers.  The content is encoded
+     * with the charset parameter of the content type, or UTF-8 if there is none, and Content-Length is set to
+     * the number of encoded bytes.
      * @param contentType the MIME type of the content. (required)
      * @param contentId the ID of the content. (optional)
      * @param content the body of the message. (required, use <code>removeContent()</code> method to remove previously set content.)
@@ -133,6 +184,59 @@ public abstract class MrcpMessage {
                 "Cannot add zero length or null content, to remove content use removeContent() instead!");
         }
 
+        content = content.concat(CRLF);
+        setContent(contentType, contentId, content.getBytes(charsetOf(contentType)));
+        _content = content;
+    }
+
+    /**
+     * Sets already encoded content for the body of the message as well as any applicable headers.  The array is
+     * not copied and must not be modified afterwards.
+     * @param contentType the MIME type of the content. (required)
+     * @param contentId the ID of the content. (optional)
+     * @param content the body of the message. (required, use <code>removeContent()</code> method to remove previously set content.)
+     */
+    public void setContent(String contentType, String contentId, byte[] content) {
+        if (content == null) {
+            throw new IllegalArgumentException(
+                "Cannot add zero length or null content, to remove content use removeContent() instead!");
+        }
+        setContent(contentType, contentId, ByteBuffer.wrap(content));
+    }
+
+    /**
+     * Sets the content of a file for the body of the message as well as any applicable headers.  The file is
+     * memory-mapped rather than read, so its bytes are sent from the page cache, and Content-Length is set to
+     * the file size.  The file must not be modified while the message is in use.
+     * @param contentType the MIME type of the content. (required)
+     * @param contentId the ID of the content. (optional)
+     * @param content the file holding the body of the message. (required)
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public void setContent(String contentType, String contentId, Path content) throws IOException {
+        try (FileChannel channel = FileChannel.open(content, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too large for message content: " + content);
+            }
+            setContent(contentType, contentId, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    /**
+     * Sets already encoded content for the body of the message as well as any applicable headers.  The bytes
+     * from the position to the limit of the buffer are used without copying them, so a buffer (for example a
+     * memory-mapped file) can be shared by any number of messages but must not be modified while they are in use.
+     * @param contentType the MIME type of the content. (required)
+     * @param contentId the ID of the content. (optional)
+     * @param content the body of the message. (required, use <code>removeContent()</code> method to remove previously set content.)
+     */
+    public void setContent(String contentType, String contentId, ByteBuffer content) {
+        if (content == null || !content.hasRemaining()) {
+            throw new IllegalArgumentException(
+                "Cannot add zero length or null content, to remove content use removeContent() instead!");
+        }
+
         if (contentType == null || (contentType = contentType.trim()).length() < 1) {
             throw new IllegalArgumentException(
                 "contentType is a required parameter, must not be null or zero length");
@@ -142,13 +246,10 @@ public abstract class MrcpMessage {
             contentId = null;
         }
 
-        content = content.concat(CRLF);
-        int contentLength = content.length();
-
         // construct applicable headers
         MrcpHeader contentTypeHeader = MrcpHeaderName.CONTENT_TYPE.constructHeader(contentType);
         MrcpHeader contentIdHeader = (contentId == null) ? null : MrcpHeaderName.CONTENT_ID.constructHeader(contentId);
-        MrcpHeader contentLengthHeader = MrcpHeaderName.CONTENT_LENGTH.constructHeader(new Integer(contentLength));
+        MrcpHeader contentLengthHeader = MrcpHeaderName.CONTENT_LENGTH.constructHeader(Integer.valueOf(content.remaining()));
 
         // clean-up any old headers
         removeHeader(MrcpHeaderName.CONTENT_TYPE);
@@ -160,7 +261,9 @@ public abstract class MrcpMessage {
         addHeader(contentIdHeader);
         addHeader(contentLengthHeader);
 
-        _content = content;
+        _contentBytes = content.slice().asReadOnlyBuffer();
+        _content = null;
+        _contentStream = null;
     }
 
     /**
@@ -173,7 +276,9 @@ public abstract class MrcpMessage {
         removeHeader(MrcpHeaderName.CONTENT_ID);
         removeHeader(MrcpHeaderName.CONTENT_LENGTH);
 
+        _contentBytes = null;
         _content = null;
+        _contentStream = null;
     }
 
     /**
@@ -183,22 +288,131 @@ public abstract class MrcpMessage {
      * @param content the body of the message.
      */
     public void setContent(String content) {
+        _contentBytes = (content == null) ? null : ByteBuffer.wrap(content.getBytes(charsetOf(getContentType()))).asReadOnlyBuffer();
         _content = content;
+        _contentStream = null;
+    }
+
+    /**
+     * Method for setting the encoded content of the message if the content type, id and length headers
+     * have already been set.  Provided primarly for use while decoding messages objects from a
+     * MRCP message stream.  MRCP4J clients generally should not use this method.
+     * @param content the body of the message, from its position to its limit.  The bytes are not copied and
+     *        must not be modified afterwards.
+     */
+    public void setContent(ByteBuffer content) {
+        _contentBytes = (content == null) ? null : content.slice().asReadOnlyBuffer();
+        _content = null;
+        _contentStream = null;
+    }
+
+    /**
+     * Method for setting the content of the message to a stream delivering the body as it is received, if the
+     * content type, id and length headers have already been set.  Provided primarly for use while decoding
+     * messages objects from a MRCP message stream.  MRCP4J clients generally should not use this method.
+     * @param content stream of the body of the message.
+     */
+    public void setContentStream(InputStream content) {
+        _contentBytes = null;
+        _content = null;
+        _contentStream = content;
+    }
+
+    /**
+     * Returns the content as a stream.  For a message decoded with content streaming enabled this is the stream
+     * the body is delivered through as it arrives, which must be read to its end or closed (a server closes it
+     * once the response to the request has been returned, see {@link #closeContentStream()}); the other content
+     * accessors read the rest of such a stream and block until the body is complete.
+     * @return the content of the message, or null if the message has no content.
+     */
+    public InputStream getContentStream() {
+        if (_contentStream != null) {
+            return _contentStream;
+        }
+        if (_contentBytes == null) {
+            return null;
+        }
+        ByteBuffer bytes = _contentBytes.duplicate();
+        byte[] content = new byte[bytes.remaining()];
+        bytes.get(content);
+        return new ByteArrayInputStream(content);
+    }
+
+    /**
+     * Closes the content stream of a message decoded with content streaming enabled, so that the part of the body
+     * that has not been read is discarded as it arrives and reading from the connection is not left suspended.
+     * Does nothing if the content is not streamed.
+     */
+    public void closeContentStream() {
+        InputStream content = _contentStream;
+        if (content != null) {
+            try {
+                content.close();
+            } catch (IOException e) {
+                // nothing left to release
+            }
+        }
+    }
+
+    /**
+     * @return true if the content of this message is a stream that has not been read by the other content accessors.
+     */
+    public boolean isContentStreamed() {
+        return _contentStream != null;
     }
 
     /**
      * @return true if this message has content in the body of the message.
      */
     public boolean hasContent() {
-        return _content != null;
+        return _contentBytes != null || _contentStream != null;
     }
 
     /**
-     * TODOC
+     * Returns the content decoded with the charset parameter of the content type, or UTF-8 if there is none.
+     * The content is decoded on the first call only.
      * @return Returns the content.
      */
     public String getContent() {
-        return _content;
+        String content = _content;
+        if (content == null && hasContent()) {
+            content = charsetOf(getContentType()).decode(contentBytes().duplicate()).toString();
+            _content = content;
+        }
+        return content;
+    }
+
+    /**
+     * @return a read-only buffer holding the encoded content, positioned at its start, or null if the message
+     *         has no content.
+     */
+    public ByteBuffer getContentBytes() {
+        return hasContent() ? contentBytes().duplicate() : null;
+    }
+
+    /**
+     * @return the length of the encoded content in bytes, or 0 if the message has no content.
+     */
+    public int getContentByteLength() {
+        return hasContent() ? contentBytes().remaining() : 0;
+    }
+
+    private ByteBuffer contentBytes() {
+        if (_contentStream != null) {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            try (InputStream in = _contentStream) {
+                int n;
+                while ((n = in.read(buf)) >= 0) {
+                    content.write(buf, 0, n);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to receive message content: " + e.getMessage(), e);
+            }
+            _contentBytes = ByteBuffer.wrap(content.toByteArray()).asReadOnlyBuffer();
+            _contentStream = null;
+        }
+        return _contentBytes;
     }
 
     /**
@@ -209,6 +423,34 @@ public abstract class MrcpMessage {
         return (header == null) ? null : header.getValueString();
     }
 
+    /**
+     * Determines the charset of content from the charset parameter of a content type.
+     * @param contentType the MIME type of the content, may be null.
+     * @return the charset named by the content type, or UTF-8 if it names none or an unsupported one.
+     */
+    static Charset charsetOf(String contentType) {
+        if (contentType != null) {
+            int i = contentType.indexOf(';');
+            while (i >= 0) {
+                int next = contentType.indexOf(';', i + 1);
+                String parameter = contentType.substring(i + 1, (next < 0) ? contentType.length() : next).trim();
+                if (parameter.regionMatches(true, 0, "charset=", 0, 8)) {
+                    String name = parameter.substring(8).trim();
+                    if (name.length() > 1 && name.charAt(0) == '"' && name.charAt(name.length() - 1) == '"') {
+                        name = name.substring(1, name.length() - 1);
+                    }
+                    try {
+                        return Charset.forName(name);
+                    } catch (IllegalArgumentException e) {  // illegal or unsupported charset name
+                        return StandardCharsets.UTF_8;
+                    }
+                }
+                i = next;
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
     /**
      * @return the channel identifier associated with this message or null if it has not been set or was set with an invalid value.
      * @throws IllegalValueException if an illegal value has been specified for the channel-identifier header.
@@ -228,7 +470,7 @@ public abstract class MrcpMessage {
         StringBuilder sb = appendStartLine(new StringBuilder());
 
         // append headers
-        for (MrcpHeader header : _headers.values()) {
+        for (MrcpHeader header : _headers) {
             header.appendTo(sb);
             sb.append(CRLF);
         }
@@ -236,14 +478,46 @@ public abstract class MrcpMessage {
         // append CRLF line
         sb.append(CRLF);
 
-        // append message body if present
-        if (hasContent()) {
+        // append message body if present, a streamed body is left to its consumer
+        if (hasContent() && !isContentStreamed()) {
             sb.append(this.getContent());
         }
 
         return sb.toString();
     }
 
+    /**
+     * Creates a copy of this message for delivery to a receiver in the same JVM, so that neither side is affected
+     * by later modifications of its own instance.  Headers and encoded content are immutable and shared by the
+     * copy.  A content stream can only have one reader, so it is moved to the copy and this message is left
+     * without content.
+     * @return a new message equal to this one.
+     */
+    public abstract MrcpMessage copy();
+
+    /**
+     * Copies the start-line fields other than those of the message type, the headers and the content of this
+     * message to a newly created message of the same type, for use by implementations of {@link #copy()}.
+     * @param copy the new message.
+     * @return the copy.
+     */
+    protected <T extends MrcpMessage> T copyTo(T copy) {
+        MrcpMessage target = copy;
+        target._version = _version;
+        target._messageLength = _messageLength;
+        target._requestID = _requestID;
+        for (MrcpHeader header : _headers) {
+            target._headers.put(header);
+        }
+        target._contentBytes = _contentBytes;
+        target._content = _content;
+        target._contentStream = _contentStream;
+        if (_contentStream != null) {
+            removeContent();
+        }
+        return copy;
+    }
+
     protected abstract StringBuilder appendStartLine(StringBuilder sb);
 
 }
\ No newline at end of file
@@ -131,6 +131,13 @@ public class MrcpResponse extends MrcpServerMessage {
     	return statusDesc.get(_statusCode);    	
     }
 
+    @Override
+    public MrcpResponse copy() {
+        MrcpResponse copy = copyTo(new MrcpResponse());
+        copy.setStatusCode(_statusCode);
+        return copy;
+    }
+
     @Override
     protected final StringBuilder appendStartLine(StringBuilder sb) {
         sb.append(getVersion());
@@ -40,4 +40,10 @@ public abstract class MrcpServerMessage extends MrcpMessage {
         return _requestState;
     }
 
+    @Override
+    protected <T extends MrcpMessage> T copyTo(T copy) {
+        ((MrcpServerMessage) copy).setRequestState(_requestState);
+        return super.copyTo(copy);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,167 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.apache.mina.core.session.IoSession;
+
+/**
+ * Content of a streamed message, filled by the decoder as the body arrives and read by the message consumer.
+ * <p>
+ * Reading from the session is suspended while more than the high-water mark of received content is waiting to be
+ * read and resumed once the consumer has drained half of it, which caps the memory held for a connection.
+ * Closing the stream before its end discards the rest of the content as it arrives.
+ * </p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+final class ContentInputStream extends InputStream {
+
+    private final IoSession _session;
+    private final int _highWaterMark;
+
+    private final Deque<byte[]> _chunks = new ArrayDeque<byte[]>();
+    private int _offset;            // read position within the first chunk
+    private int _available;         // bytes received but not yet read
+    private int _pending;           // bytes of content not yet received
+    private boolean _suspended;     // true while reading from the session is suspended by this stream
+    private boolean _closed;        // true once closed by the consumer
+    private IOException _failure;   // set if the connection ended before the content was complete
+
+    ContentInputStream(IoSession session, int contentLength, int highWaterMark) {
+        _session = session;
+        _pending = contentLength;
+        _highWaterMark = highWaterMark;
+    }
+
+    /**
+     * Called by the decoder with the next received part of the content.
+     * @param chunk the received bytes, not copied.
+     */
+    synchronized void append(byte[] chunk) {
+        _pending -= chunk.length;
+        if (_closed) {
+            return;
+        }
+        _chunks.addLast(chunk);
+        _available += chunk.length;
+        if (_available >= _highWaterMark && _pending > 0 && !_suspended) {
+            _suspended = true;
+            _session.suspendRead();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Called by the decoder if the connection ends before the content is complete.
+     * @param failure the exception to be thrown to the consumer once the received content has been read.
+     */
+    synchronized void fail(IOException failure) {
+        if (_pending > 0) {
+            _failure = failure;
+            notifyAll();
+        }
+    }
+
+    /**
+     * @return the number of content bytes not yet received.
+     */
+    synchronized int getPending() {
+        return _pending;
+    }
+
+    @Override
+    public synchronized int read() throws IOException {
+        byte[] b = new byte[1];
+        return (read(b, 0, 1) < 0) ? -1 : (b[0] & 0xff);
+    }
+
+    @Override
+    public synchronized int read(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (_closed) {
+            throw new IOException("Content stream closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        while (_available == 0) {
+            if (_pending <= 0) {
+                return -1;
+            }
+            if (_failure != null) {
+                throw _failure;
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for content");
+            }
+        }
+
+        int count = 0;
+        while (count < len && !_chunks.isEmpty()) {
+            byte[] chunk = _chunks.peekFirst();
+            int n = Math.min(len - count, chunk.length - _offset);
+            System.arraycopy(chunk, _offset, b, off + count, n);
+            count += n;
+            _offset += n;
+            if (_offset == chunk.length) {
+                _chunks.removeFirst();
+                _offset = 0;
+            }
+        }
+        _available -= count;
+        if (_suspended && _available <= _highWaterMark / 2) {
+            _suspended = false;
+            _session.resumeRead();
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized int available() {
+        return _available;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!_closed) {
+            _closed = true;
+            _chunks.clear();
+            _available = 0;
+            if (_suspended) {
+                _suspended = false;
+                _session.resumeRead();
+            }
+        }
+    }
+}
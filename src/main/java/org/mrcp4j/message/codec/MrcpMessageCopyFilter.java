@@ -0,0 +1,68 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message.codec;
+
+import org.apache.mina.core.filterchain.IoFilterAdapter;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.core.write.WriteRequest;
+import org.mrcp4j.message.MrcpMessage;
+
+/**
+ * Takes the place of the codec filter on in-JVM connections, where messages are passed to the peer as objects
+ * instead of being encoded.  Each message written is replaced by a {@link MrcpMessage#copy() copy}, so the
+ * sender and the receiver never share a mutable message instance.  The time taken by the copy is recorded as
+ * the decode times of the message received and passed to {@link #messageCopied(MrcpMessage, long)}, where the
+ * sender can record it in place of the encoding time.
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class MrcpMessageCopyFilter extends IoFilterAdapter {
+
+    /* (non-Javadoc)
+     * @see org.apache.mina.core.filterchain.IoFilterAdapter#filterWrite(org.apache.mina.core.filterchain.IoFilter.NextFilter,
+     *      org.apache.mina.core.session.IoSession, org.apache.mina.core.write.WriteRequest)
+     */
+    @Override
+    public void filterWrite(NextFilter nextFilter, IoSession session, WriteRequest writeRequest) throws Exception {
+        Object message = writeRequest.getMessage();
+        if (message instanceof MrcpMessage) {
+            long startTime = System.nanoTime();
+            MrcpMessage copy = ((MrcpMessage) message).copy();
+            long endTime = System.nanoTime();
+            copy.setDecodeTimes(startTime, endTime);
+            writeRequest.setMessage(copy);
+            messageCopied(copy, endTime - startTime);
+        }
+        nextFilter.filterWrite(session, writeRequest);
+    }
+
+    /**
+     * Called for each message written, once it has been copied and before the copy is passed to the peer.
+     * @param copy  the copy passed to the peer.
+     * @param nanos the time taken to create the copy.
+     */
+    protected void messageCopied(MrcpMessage copy, long nanos) {
+        // nothing to record by default
+    }
+
+}
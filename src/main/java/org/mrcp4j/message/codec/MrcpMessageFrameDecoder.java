@@ -0,0 +1,434 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message.codec;
+
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.session.AttributeKey;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.filter.codec.CumulativeProtocolDecoder;
+import org.apache.mina.filter.codec.ProtocolDecoderException;
+import org.apache.mina.filter.codec.ProtocolDecoderOutput;
+import org.mrcp4j.message.MrcpMessage;
+import org.mrcp4j.message.header.IllegalValueException;
+import org.mrcp4j.message.header.MrcpHeader;
+import org.mrcp4j.message.header.MrcpHeaderName;
+
+/**
+ * Base class for decoders of MRCPv2 messages received over a stream transport.
+ * <p>
+ * Messages are framed on the message-length field of the start-line, so a message may arrive split
+ * over any number of reads and several pipelined messages may arrive in a single read.  Decoding state
+ * for a partially received message is kept in a session attribute between reads.  Start-lines and
+ * headers are parsed in place from the received bytes by {@link MrcpMessageParser}.
+ * </p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public abstract class MrcpMessageFrameDecoder extends CumulativeProtocolDecoder {
+
+	private static Logger _log = LogManager.getLogger(MrcpMessageFrameDecoder.class);
+
+    private final AttributeKey _stateKey = new AttributeKey(getClass(), "state");
+
+    private int _maxMessageLength = DEFAULT_MAX_MESSAGE_LENGTH;
+    private int _maxHeaderCount = DEFAULT_MAX_HEADER_COUNT;
+    private int _maxLineLength = DEFAULT_MAX_LINE_LENGTH;
+
+    private int _streamingThreshold;
+    private int _streamingBufferSize = DEFAULT_STREAMING_BUFFER_SIZE;
+
+    /**
+     * Default maximum message-length of a received message.
+     */
+    public static final int DEFAULT_MAX_MESSAGE_LENGTH = 4 * 1024 * 1024;
+
+    /**
+     * Default maximum number of header lines of a received message.
+     */
+    public static final int DEFAULT_MAX_HEADER_COUNT = 256;
+
+    /**
+     * Default maximum length of the start-line and of each header line of a received message.
+     */
+    public static final int DEFAULT_MAX_LINE_LENGTH = 8 * 1024;
+
+    /**
+     * Sets the size limits for received messages.  A message exceeding the maximum message-length, header count or
+     * header line length is passed to {@link #messageTooLarge(IoSession, MrcpMessage, String)} at the end of its
+     * header section and its remaining bytes are skipped as they arrive, so no more than about one maximum size
+     * message is ever buffered for a connection.  Header lines beyond a limit are dropped, except that a
+     * Channel-Identifier header is still looked for so that the rejection can be routed to its channel.  A
+     * start-line exceeding the maximum line length cannot be framed and fails decoding.
+     * @param maxMessageLength the maximum message-length in bytes.
+     * @param maxHeaderCount   the maximum number of header lines.
+     * @param maxLineLength    the maximum length in bytes of the start-line and of each header line.
+     */
+    public void setLimits(int maxMessageLength, int maxHeaderCount, int maxLineLength) {
+        if (maxMessageLength < 1 || maxHeaderCount < 0 || maxLineLength < 1) {
+            throw new IllegalArgumentException("Invalid message limits: " +
+                    maxMessageLength + ", " + maxHeaderCount + ", " + maxLineLength);
+        }
+        _maxMessageLength = maxMessageLength;
+        _maxHeaderCount = maxHeaderCount;
+        _maxLineLength = maxLineLength;
+    }
+
+    /**
+     * @return the maximum message-length of a received message in bytes.
+     */
+    public int getMaxMessageLength() {
+        return _maxMessageLength;
+    }
+
+    /**
+     * @return the maximum number of header lines of a received message.
+     */
+    public int getMaxHeaderCount() {
+        return _maxHeaderCount;
+    }
+
+    /**
+     * @return the maximum length in bytes of the start-line and of each header line of a received message.
+     */
+    public int getMaxLineLength() {
+        return _maxLineLength;
+    }
+
+    /**
+     * Default number of received content bytes buffered for a streamed message before reading is suspended.
+     */
+    public static final int DEFAULT_STREAMING_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Enables streaming of large message bodies.  A message whose Content-Length is at least the threshold
+     * is passed on as soon as its headers have been decoded, its body is delivered through
+     * {@link MrcpMessage#getContentStream()} as it arrives.  The consumer must read the content stream to its end
+     * or close it, reading from the connection is suspended while the buffered content exceeds the streaming
+     * buffer size.
+     * @param threshold the minimum content length of streamed messages in bytes, or 0 to disable streaming (default).
+     */
+    public void setStreamingThreshold(int threshold) {
+        _streamingThreshold = threshold;
+    }
+
+    /**
+     * @return the minimum content length of streamed messages in bytes, 0 if streaming is disabled.
+     */
+    public int getStreamingThreshold() {
+        return _streamingThreshold;
+    }
+
+    /**
+     * Sets the number of received content bytes buffered for a streamed message before reading from the
+     * connection is suspended.
+     * @param bufferSize the buffer size in bytes.
+     */
+    public void setStreamingBufferSize(int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Streaming buffer size must be positive: " + bufferSize);
+        }
+        _streamingBufferSize = bufferSize;
+    }
+
+    /**
+     * @return the number of received content bytes buffered for a streamed message before reading is suspended.
+     */
+    public int getStreamingBufferSize() {
+        return _streamingBufferSize;
+    }
+
+    /**
+     * Creates a message from its start-line.
+     * @param buf    buffer containing the start-line.
+     * @param start  index of the first byte of the line.
+     * @param end    index of the LF terminating the line.
+     * @return       a message with all start-line fields set.
+     * @throws ParseException if the line is not a correctly formatted start-line.
+     */
+    protected abstract MrcpMessage parseStartLine(ByteBuffer buf, int start, int end) throws ParseException;
+
+    @Override
+    protected boolean doDecode(IoSession session, IoBuffer in, ProtocolDecoderOutput out)
+      throws Exception {
+        DecoderState state = (DecoderState) session.getAttribute(_stateKey);
+        if (state == null) {
+            state = new DecoderState();
+            session.setAttribute(_stateKey, state);
+        }
+
+        try {
+
+            // create message from start-line
+            if (state._message == null) {
+                skipLineBreaks(in);
+                int position = in.position();
+                int end = MrcpMessageParser.indexOfLineEnd(in.buf(), position, in.limit());
+                if (((end < 0) ? in.limit() : end) - position > _maxLineLength) {
+                    throw new ParseException("Start-line exceeds maximum line length " + _maxLineLength, -1);
+                }
+                if (end < 0) {
+                    return false;  // start-line not yet complete
+                }
+                state._startTime = System.nanoTime();
+                state._message = parseStartLine(in.buf(), position, end);
+                in.position(end + 1);
+                state._remaining = state._message.getMessageLength() - (end + 1 - position);
+                state._headersDone = false;
+                state._headerCount = 0;
+                state._rejection = (state._message.getMessageLength() > _maxMessageLength) ?
+                        "Message-length " + state._message.getMessageLength() + " exceeds maximum " + _maxMessageLength : null;
+                state._headersRejected = false;
+                state._discardingLine = false;
+                state._skipping = false;
+            }
+            MrcpMessage message = state._message;
+
+            // read message-header
+            while (!state._headersDone && !state._skipping) {
+                int position = in.position();
+                int end = MrcpMessageParser.indexOfLineEnd(in.buf(), position, in.limit());
+                if (end < 0) {
+                    if (!state._discardingLine && in.limit() - position <= _maxLineLength) {
+                        return false;  // header line not yet complete
+                    }
+                    // drop the received part of an overlong line while looking for its end
+                    rejectHeaders(state, "Header line exceeds maximum line length " + _maxLineLength);
+                    state._discardingLine = true;
+                    int skip = Math.max(0, Math.min(state._remaining, in.remaining()));
+                    in.skip(skip);
+                    state._remaining -= skip;
+                    if (state._remaining > 0) {
+                        return false;
+                    }
+                    break;  // the message ends within the line
+                }
+                if (state._discardingLine) {
+                    state._discardingLine = false;  // end of an overlong line
+                } else if (end - position > _maxLineLength) {
+                    // an overlong line received in one piece is dropped as well
+                    rejectHeaders(state, "Header line exceeds maximum line length " + _maxLineLength);
+                } else if (MrcpMessageParser.isBlankLine(in.buf(), position, end)) {
+                    state._headersDone = true;
+                } else {
+                    if (++state._headerCount > _maxHeaderCount) {
+                        rejectHeaders(state, "Header count exceeds maximum " + _maxHeaderCount);
+                    }
+                    MrcpHeader header = MrcpMessageParser.parseHeader(in.buf(), position, end);
+                    if (!state._headersRejected || header.getHeaderName() == MrcpHeaderName.CHANNEL_IDENTIFIER) {
+                        message.addHeader(header);
+                    }
+                }
+                in.position(end + 1);
+                state._remaining -= end + 1 - position;
+                if (state._headersRejected && state._remaining <= 0) {
+                    break;  // the message ends without terminating its header section
+                }
+            }
+
+            // skip the rest of an oversized message as it arrives
+            if (state._rejection != null && !state._skipping) {
+                reject(session, state, state._rejection);
+            }
+            if (state._skipping) {
+                return skipMessage(state, in);
+            }
+
+            // feed a streamed message body to its content stream as it arrives
+            if (state._stream != null) {
+                return streamContent(state, in);
+            }
+
+            int remaining = state._remaining;
+            if (remaining < 0) {
+                throw new ParseException("Message-length smaller than start-line and headers!", -1);
+            }
+            MrcpHeader contentLengthHeader = message.getHeader(MrcpHeaderName.CONTENT_LENGTH);
+            int contentLength = 0;
+            try {
+                contentLength = (contentLengthHeader == null) ? 0 : contentLengthHeader.getIntValue();
+            } catch (IllegalValueException e) {
+                throw new ProtocolDecoderException(e.getMessage(), e);
+            }
+            if (contentLength > remaining) {
+                throw new ParseException("Content-length " + contentLength +
+                        " exceeds remaining message-length " + remaining, -1);
+            }
+
+            // pass a large message on before its body has arrived
+            if (_streamingThreshold > 0 && contentLength >= _streamingThreshold) {
+                state._stream = new ContentInputStream(session, contentLength, _streamingBufferSize);
+                message.setContentStream(state._stream);
+                message.setDecodeTimes(state._startTime, System.nanoTime());
+                out.write(message);
+                return streamContent(state, in);
+            }
+
+            // wait for the remainder of the message (the message body if present)
+            if (in.remaining() < remaining) {
+                return false;
+            }
+
+            // read message body if present
+            if (contentLength > 0) {
+                // copied once: the cumulative input buffer is reused for the following messages
+                byte[] content = new byte[contentLength];
+                in.get(content);
+                message.setContent(ByteBuffer.wrap(content));
+            }
+
+            // skip any trailing bytes covered by message-length but not by content-length
+            in.skip(remaining - contentLength);
+
+            // write message object to out
+            state._message = null;
+            message.setDecodeTimes(state._startTime, System.nanoTime());
+            out.write(message);
+            return true;
+
+        } catch (ParseException e) {
+            //TODO: return 408 response to client?
+            _log.debug(e, e);
+            state._message = null;
+            throw new ProtocolDecoderException(e.getMessage(), e);
+        } catch (Exception e) {
+            _log.debug(e, e);
+            state._message = null;
+            throw e;
+        }
+    }
+
+    /**
+     * Called when a received message exceeds one of the size limits, once its header section has been received.
+     * The rest of the message is skipped without being buffered.
+     * @param session the session the message was received on.
+     * @param message the message being rejected, with its start-line fields and the headers within the limits,
+     *                plus the Channel-Identifier header if it was found beyond them.
+     * @param reason  description of the exceeded limit.
+     */
+    protected void messageTooLarge(IoSession session, MrcpMessage message, String reason) {
+        _log.warn("Discarding message received from " + session.getRemoteAddress() + ": " + reason);
+    }
+
+    /**
+     * Marks the current message as rejected for a header section exceeding the limits, its remaining header lines
+     * are only looked at for a Channel-Identifier header until the end of the header section.
+     */
+    private static void rejectHeaders(DecoderState state, String reason) {
+        if (state._rejection == null) {
+            state._rejection = reason;
+        }
+        state._headersRejected = true;
+    }
+
+    private void reject(IoSession session, DecoderState state, String reason) {
+        state._skipping = true;
+        messageTooLarge(session, state._message, reason);
+    }
+
+    /**
+     * Skips the received part of a rejected message.
+     * @return true if the message has been skipped entirely.
+     */
+    private static boolean skipMessage(DecoderState state, IoBuffer in) {
+        int skip = Math.max(0, Math.min(state._remaining, in.remaining()));
+        in.skip(skip);
+        state._remaining -= skip;
+        if (state._remaining > 0) {
+            return false;
+        }
+        state._message = null;
+        state._skipping = false;
+        state._rejection = null;
+        return true;
+    }
+
+    /**
+     * Moves the received part of a streamed message body to its content stream.
+     * @return true if the message is complete.
+     */
+    private static boolean streamContent(DecoderState state, IoBuffer in) {
+        ContentInputStream stream = state._stream;
+        int pending = stream.getPending();
+        if (pending > 0 && in.hasRemaining()) {
+            byte[] chunk = new byte[Math.min(pending, in.remaining())];
+            in.get(chunk);
+            stream.append(chunk);
+            state._remaining -= chunk.length;
+        }
+        if (stream.getPending() > 0) {
+            return false;
+        }
+
+        // skip any trailing bytes covered by message-length but not by content-length
+        int skip = Math.min(state._remaining, in.remaining());
+        in.skip(skip);
+        state._remaining -= skip;
+        if (state._remaining > 0) {
+            return false;
+        }
+        state._message = null;
+        state._stream = null;
+        return true;
+    }
+
+    private static void skipLineBreaks(IoBuffer in) {
+        while (in.hasRemaining()) {
+            byte b = in.get(in.position());
+            if (b != '\r' && b != '\n') {
+                break;
+            }
+            in.skip(1);
+        }
+    }
+
+    @Override
+    public void dispose(IoSession session) throws Exception {
+        DecoderState state = (DecoderState) session.removeAttribute(_stateKey);
+        if (state != null && state._stream != null) {
+            state._stream.fail(new EOFException("Connection closed before the message content was complete"));
+        }
+        super.dispose(session);
+    }
+
+    /**
+     * Decoding state of the message currently being received on a session.
+     */
+    private static class DecoderState {
+        MrcpMessage _message;   // message currently being decoded, null while waiting for a start-line
+        long _startTime;        // System.nanoTime() when the start-line of the current message was decoded
+        int _remaining;         // bytes of the current message (as given by message-length) not yet consumed
+        boolean _headersDone;   // true once the empty line terminating the message-header has been consumed
+        ContentInputStream _stream;  // content stream of the current message if its body is streamed
+        int _headerCount;       // number of header lines of the current message consumed so far
+        String _rejection;      // reason for rejecting the current message once its headers are decoded, or null
+        boolean _headersRejected;  // true once the header section has exceeded a limit
+        boolean _discardingLine;   // true while the rest of an overlong header line is being dropped
+        boolean _skipping;      // true while the rest of a rejected message is being skipped
+    }
+}
@@ -0,0 +1,384 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+
+import org.mrcp4j.MrcpEventName;
+import org.mrcp4j.MrcpMethodName;
+import org.mrcp4j.MrcpRequestState;
+import org.mrcp4j.message.MrcpEvent;
+import org.mrcp4j.message.MrcpMessage;
+import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.MrcpServerMessage;
+import org.mrcp4j.message.header.MrcpHeader;
+import org.mrcp4j.message.header.MrcpHeaderName;
+import org.mrcp4j.message.header.VendorSpecificHeader;
+import org.mrcp4j.message.request.MrcpRequest;
+import org.mrcp4j.message.request.MrcpRequestFactory;
+
+/**
+ * Parses MRCPv2 start-lines and header lines directly from the bytes of a {@link java.nio.ByteBuffer}.
+ * <p>
+ * Tokens such as the MRCP version, method names, event names, request states and header field-names are
+ * looked up in place from their bytes (see {@link org.mrcp4j.util.AsciiTokenTable}), numeric fields are parsed straight from the digits
+ * and {@code String} instances are only created for header values and unrecognized tokens.  All methods
+ * take absolute indices and leave the position of the buffer unchanged.
+ * </p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class MrcpMessageParser {
+
+    private static final byte CR    = '\r';
+    private static final byte LF    = '\n';
+    private static final byte SP    = ' ';
+    private static final byte HTAB  = '\t';
+    private static final byte COLON = ':';
+
+    private static final byte[] MRCP_VERSION_2_0 = toBytes(MrcpMessage.MRCP_VERSION_2_0);
+
+    private MrcpMessageParser() {
+        // restrict instance initialization to private access
+    }
+
+    /**
+     * Finds the end of the next line.
+     * @param buf   buffer to search.
+     * @param from  index at which to start searching (inclusive).
+     * @param to    index at which to stop searching (exclusive).
+     * @return      the index of the LF terminating the line, or -1 if the line is not yet complete.
+     */
+    public static int indexOfLineEnd(ByteBuffer buf, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf.get(i) == LF) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Tests whether a line contains nothing but whitespace (i.e. is the empty line terminating the message-header).
+     * @param buf    buffer containing the line.
+     * @param start  index of the first byte of the line.
+     * @param end    index of the LF terminating the line (or the end of the line if there is no terminator).
+     * @return       true if the line is blank.
+     */
+    public static boolean isBlankLine(ByteBuffer buf, int start, int end) {
+        return skipWhitespace(buf, start, end) == end;
+    }
+
+    /**
+     * Parses an MRCPv2 request-line.
+     * @param buf    buffer containing the request-line.
+     * @param start  index of the first byte of the line.
+     * @param end    index of the LF terminating the line (or the end of the line if there is no terminator).
+     * @return       a request instance with version, message-length, method and request-id set.
+     * @throws ParseException if the line is not a correctly formatted request-line.
+     */
+    public static MrcpRequest parseRequestLine(ByteBuffer buf, int start, int end) throws ParseException {
+        end = trimEnd(buf, start, end);
+        int p = skipWhitespace(buf, start, end);
+        if (p == end) {
+            throw new ParseException("No request-line provided!", -1);
+        }
+
+        // mrcp-version
+        int versionStart = p;
+        int versionEnd = tokenEnd(buf, p, end);
+
+        // message-length
+        int lengthStart = skipWhitespace(buf, versionEnd, end);
+        int lengthEnd = tokenEnd(buf, lengthStart, end);
+
+        // method-name
+        int methodStart = skipWhitespace(buf, lengthEnd, end);
+        int methodEnd = tokenEnd(buf, methodStart, end);
+
+        // request-id
+        int idStart = skipWhitespace(buf, methodEnd, end);
+        int idEnd = tokenEnd(buf, idStart, end);
+
+        if (idStart == idEnd || idEnd != end) {
+            throw new ParseException("Incorrect request-line format!", -1);
+        }
+
+        // construct request from method-name
+        MrcpMethodName methodName = MrcpMethodName.lookup(buf, methodStart, methodEnd);
+        if (methodName == null) {
+            throw new ParseException("Incorrect method-name format!", -1);
+        }
+        MrcpRequest request = MrcpRequestFactory.createRequest(methodName);
+
+        request.setVersion(parseVersion(buf, versionStart, versionEnd));
+        request.setMessageLength(parseInt(buf, lengthStart, lengthEnd, "Incorrect message-length format!"));
+        request.setRequestID(parseLong(buf, idStart, idEnd, "Incorrect request-id format!"));
+        return request;
+    }
+
+    /**
+     * Parses the start-line of a message sent from server to client, which is either a response-line
+     * or an event-line.
+     * @param buf    buffer containing the start-line.
+     * @param start  index of the first byte of the line.
+     * @param end    index of the LF terminating the line (or the end of the line if there is no terminator).
+     * @return       an {@link org.mrcp4j.message.MrcpResponse} or {@link org.mrcp4j.message.MrcpEvent} instance
+     *               with all start-line fields set.
+     * @throws ParseException if the line is not a correctly formatted response-line or event-line.
+     */
+    public static MrcpServerMessage parseServerMessageLine(ByteBuffer buf, int start, int end) throws ParseException {
+        end = trimEnd(buf, start, end);
+        int p = skipWhitespace(buf, start, end);
+        if (p == end) {
+            throw new ParseException("No start-line provided!", -1);
+        }
+
+        int versionStart = p;
+        int versionEnd = tokenEnd(buf, p, end);
+        int lengthStart = skipWhitespace(buf, versionEnd, end);
+        int lengthEnd = tokenEnd(buf, lengthStart, end);
+        int thirdStart = skipWhitespace(buf, lengthEnd, end);
+        int thirdEnd = tokenEnd(buf, thirdStart, end);
+        int fourthStart = skipWhitespace(buf, thirdEnd, end);
+        int fourthEnd = tokenEnd(buf, fourthStart, end);
+        int stateStart = skipWhitespace(buf, fourthEnd, end);
+        int stateEnd = tokenEnd(buf, stateStart, end);
+
+        if (stateStart == stateEnd || stateEnd != end) {
+            throw new ParseException("Incorrect start-line format!", -1);
+        }
+
+        // a response-line has the numeric request-id in the third position, an event-line has the event-name
+        MrcpServerMessage message;
+        if (isDigits(buf, thirdStart, thirdEnd)) {
+            MrcpResponse response = new MrcpResponse();
+            response.setRequestID(parseLong(buf, thirdStart, thirdEnd, "Incorrect request-id format!"));
+            int statusCode = parseInt(buf, fourthStart, fourthEnd, "Incorrect status-code format!");
+            if (statusCode > Short.MAX_VALUE) {
+                throw new ParseException("Incorrect status-code format!", -1);
+            }
+            response.setStatusCode((short) statusCode);
+            message = response;
+        } else {
+            MrcpEvent event = new MrcpEvent();
+            MrcpEventName eventName = MrcpEventName.lookup(buf, thirdStart, thirdEnd);
+            if (eventName == null) {
+                throw new ParseException("Incorrect event-name format!", -1);
+            }
+            event.setEventName(eventName);
+            event.setRequestID(parseLong(buf, fourthStart, fourthEnd, "Incorrect request-id format!"));
+            message = event;
+        }
+
+        message.setVersion(parseVersion(buf, versionStart, versionEnd));
+        message.setMessageLength(parseInt(buf, lengthStart, lengthEnd, "Incorrect message-length format!"));
+
+        MrcpRequestState requestState = MrcpRequestState.lookup(buf, stateStart, stateEnd);
+        if (requestState == null) {
+            throw new ParseException("Incorrect request-state format!", -1);
+        }
+        message.setRequestState(requestState);
+
+        return message;
+    }
+
+    /**
+     * Parses a message-header line.  Header field-names defined by {@link org.mrcp4j.message.header.MrcpHeaderName}
+     * are matched case-insensitively, any other field-name results in a
+     * {@link org.mrcp4j.message.header.VendorSpecificHeader}.
+     * @param buf    buffer containing the header line.
+     * @param start  index of the first byte of the line.
+     * @param end    index of the LF terminating the line (or the end of the line if there is no terminator).
+     * @return       the header represented by the line.
+     * @throws ParseException if the line does not contain a field-name followed by a colon.
+     */
+    public static MrcpHeader parseHeader(ByteBuffer buf, int start, int end) throws ParseException {
+        // TODO: handle multi-line headers
+        end = trimEnd(buf, start, end);
+        int nameStart = skipWhitespace(buf, start, end);
+        int colon = -1;
+        for (int i = nameStart; i < end; i++) {
+            if (buf.get(i) == COLON) {
+                colon = i;
+                break;
+            }
+        }
+        if (colon <= nameStart) {
+            throw new ParseException("Incorrect message-header format!", -1);
+        }
+        int nameEnd = trimEnd(buf, nameStart, colon);
+        int valueStart = skipWhitespace(buf, colon + 1, end);
+        String value = toString(buf, valueStart, end);
+
+        MrcpHeaderName headerName = MrcpHeaderName.lookup(buf, nameStart, nameEnd);
+        if (headerName == null) {
+            return new VendorSpecificHeader(toString(buf, nameStart, nameEnd), value);
+        }
+        return headerName.createHeader(value);
+    }
+
+    /**
+     * Parses a non-negative decimal integer.
+     * @param buf      buffer containing the digits.
+     * @param start    index of the first digit.
+     * @param end      index following the last digit.
+     * @param message  error message to use if the bytes are not a valid integer.
+     * @return         the integer value.
+     * @throws ParseException if the range is empty, contains non-digits or overflows an {@code int}.
+     */
+    public static int parseInt(ByteBuffer buf, int start, int end, String message) throws ParseException {
+        long value = parseLong(buf, start, end, message);
+        if (value > Integer.MAX_VALUE) {
+            throw new ParseException(message, -1);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses a non-negative decimal long.
+     * @param buf      buffer containing the digits.
+     * @param start    index of the first digit.
+     * @param end      index following the last digit.
+     * @param message  error message to use if the bytes are not a valid long.
+     * @return         the long value.
+     * @throws ParseException if the range is empty, contains non-digits or overflows a {@code long}.
+     */
+    public static long parseLong(ByteBuffer buf, int start, int end, String message) throws ParseException {
+        if (start >= end || end - start > 18) {  // 18 digits can never overflow a long
+            throw new ParseException(message, -1);
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = buf.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new ParseException(message, -1);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Creates a string from a range of bytes, treating each byte as one character.
+     * @param buf    buffer containing the bytes.
+     * @param start  index of the first byte.
+     * @param end    index following the last byte.
+     * @return       the string value of the bytes.
+     */
+    public static String toString(ByteBuffer buf, int start, int end) {
+        int length = end - start;
+        if (length <= 0) {
+            return "";
+        }
+        if (buf.hasArray()) {
+            return new String(buf.array(), buf.arrayOffset() + start, length, StandardCharsets.ISO_8859_1);
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buf.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private static String parseVersion(ByteBuffer buf, int start, int end) {
+        //TODO: need to check here if version is supported, or maybe at higher level...
+        if (match(MRCP_VERSION_2_0, buf, start, end)) {
+            return MrcpMessage.MRCP_VERSION_2_0;
+        }
+        return toString(buf, start, end);
+    }
+
+    private static boolean isDigits(ByteBuffer buf, int start, int end) {
+        if (start >= end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            byte b = buf.get(i);
+            if (b < '0' || b > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipWhitespace(ByteBuffer buf, int from, int to) {
+        while (from < to) {
+            byte b = buf.get(from);
+            if (b != SP && b != HTAB && b != CR) {
+                break;
+            }
+            from++;
+        }
+        return from;
+    }
+
+    private static int trimEnd(ByteBuffer buf, int from, int to) {
+        while (to > from) {
+            byte b = buf.get(to - 1);
+            if (b != SP && b != HTAB && b != CR && b != LF) {
+                break;
+            }
+            to--;
+        }
+        return to;
+    }
+
+    private static int tokenEnd(ByteBuffer buf, int from, int to) {
+        while (from < to) {
+            byte b = buf.get(from);
+            if (b == SP || b == HTAB) {
+                break;
+            }
+            from++;
+        }
+        return from;
+    }
+
+    private static boolean match(byte[] token, ByteBuffer buf, int start, int end) {
+        if (token.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < token.length; i++) {
+            if (token[i] != toUpperCase(buf.get(start + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte toUpperCase(byte b) {
+        return (b >= 'a' && b <= 'z') ? (byte) (b - ('a' - 'A')) : b;
+    }
+
+    private static byte[] toBytes(String token) {
+        byte[] bytes = token.getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = toUpperCase(bytes[i]);
+        }
+        return bytes;
+    }
+
+}
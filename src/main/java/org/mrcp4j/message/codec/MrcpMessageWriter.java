@@ -0,0 +1,251 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.mrcp4j.MrcpEventName;
+import org.mrcp4j.MrcpMethodName;
+import org.mrcp4j.MrcpRequestState;
+import org.mrcp4j.message.MrcpEvent;
+import org.mrcp4j.message.MrcpMessage;
+import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.header.MrcpHeader;
+import org.mrcp4j.message.header.MrcpHeaderName;
+import org.mrcp4j.message.request.MrcpRequest;
+
+/**
+ * Writes MRCPv2 messages directly into a {@link java.nio.ByteBuffer}.
+ * <p>
+ * The encoded length of a message is computed up front by {@link #prepare(MrcpMessage)}, so the message-length
+ * field can be written in place and the target buffer can be sized exactly.  Version, method, event, request-state
+ * and header field-name tokens are written from pre-encoded byte arrays and all other fields are written character
+ * by character, without any intermediate {@code String} or {@code StringBuilder}.
+ * </p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class MrcpMessageWriter {
+
+    private static final byte CR    = '\r';
+    private static final byte LF    = '\n';
+    private static final byte SP    = ' ';
+    private static final byte COLON = ':';
+
+    private static final byte[]   MRCP_VERSION_2_0 = toBytes(MrcpMessage.MRCP_VERSION_2_0);
+    private static final byte[][] METHOD_BYTES     = toBytes(MrcpMethodName.values());
+    private static final byte[][] EVENT_BYTES      = toBytes(MrcpEventName.values());
+    private static final byte[][] STATE_BYTES      = toBytes(MrcpRequestState.values());
+    private static final byte[][] HEADER_BYTES     = toBytes(MrcpHeaderName.values());
+
+    private MrcpMessageWriter() {
+        // restrict instance initialization to private access
+    }
+
+    /**
+     * Computes the encoded length of a message and sets its message-length field accordingly.
+     * @param message  the message to be encoded.
+     * @return         the number of bytes {@link #write(MrcpMessage, ByteBuffer)} will write for the message.
+     * @throws IllegalArgumentException if the message is not a request, response or event.
+     */
+    public static int prepare(MrcpMessage message) {
+        // everything except the message-length field itself
+        int length = startLineLength(message) + 2;
+        for (MrcpHeader header : message.getHeaders()) {
+            length += headerLength(header) + 2;
+        }
+        length += 2;
+        if (message.hasContent()) {
+            length += message.getContentByteLength();
+        }
+
+        // the message-length includes its own digits
+        int lengthLength = digits(length);
+        int messageLength = length + lengthLength;
+        if (digits(messageLength) > lengthLength) {
+            messageLength++;
+        }
+        message.setMessageLength(messageLength);
+        return messageLength;
+    }
+
+    /**
+     * Writes a message that has been passed to {@link #prepare(MrcpMessage)}, starting at the current position
+     * of the buffer.
+     * @param message  the message to be encoded.
+     * @param buf      buffer with at least message-length bytes remaining.
+     * @throws IllegalArgumentException if the message is not a request, response or event.
+     */
+    public static void write(MrcpMessage message, ByteBuffer buf) {
+        writeHead(message, buf);
+
+        // write message body if present
+        if (message.hasContent()) {
+            buf.put(message.getContentBytes());
+        }
+    }
+
+    /**
+     * Writes the start-line, headers and terminating empty line of a message that has been passed to
+     * {@link #prepare(MrcpMessage)}, leaving the message body to be written separately.
+     * @param message  the message to be encoded.
+     * @param buf      buffer with at least message-length minus content-length bytes remaining.
+     * @throws IllegalArgumentException if the message is not a request, response or event.
+     */
+    public static void writeHead(MrcpMessage message, ByteBuffer buf) {
+
+        // write start-line
+        putVersion(buf, message.getVersion());
+        buf.put(SP);
+        putNumber(buf, message.getMessageLength());
+        if (message instanceof MrcpRequest) {
+            MrcpRequest request = (MrcpRequest) message;
+            buf.put(SP);
+            MrcpMethodName methodName = request.getMethodName();
+            if (methodName != null) {
+                buf.put(METHOD_BYTES[methodName.ordinal()]);
+            } else {
+                putChars(buf, request.getMethodNameAsString());
+            }
+            buf.put(SP);
+            putNumber(buf, request.getRequestID());
+        } else if (message instanceof MrcpResponse) {
+            MrcpResponse response = (MrcpResponse) message;
+            buf.put(SP);
+            putNumber(buf, response.getRequestID());
+            buf.put(SP);
+            putNumber(buf, response.getStatusCode());
+            buf.put(SP);
+            buf.put(STATE_BYTES[response.getRequestState().ordinal()]);
+        } else if (message instanceof MrcpEvent) {
+            MrcpEvent event = (MrcpEvent) message;
+            buf.put(SP);
+            buf.put(EVENT_BYTES[event.getEventName().ordinal()]);
+            buf.put(SP);
+            putNumber(buf, event.getRequestID());
+            buf.put(SP);
+            buf.put(STATE_BYTES[event.getRequestState().ordinal()]);
+        } else {
+            throw new IllegalArgumentException("Unsupported message type: " + message.getClass().getName());
+        }
+        buf.put(CR).put(LF);
+
+        // write headers
+        for (MrcpHeader header : message.getHeaders()) {
+            MrcpHeaderName headerName = header.getHeaderName();
+            if (headerName != null) {
+                buf.put(HEADER_BYTES[headerName.ordinal()]);
+            } else {
+                putChars(buf, header.getNameString());
+            }
+            buf.put(COLON);
+            putChars(buf, header.getValueString());
+            buf.put(CR).put(LF);
+        }
+
+        // write CRLF line
+        buf.put(CR).put(LF);
+    }
+
+    private static int startLineLength(MrcpMessage message) {
+        int length = message.getVersion().length() + 1;
+        if (message instanceof MrcpRequest) {
+            MrcpRequest request = (MrcpRequest) message;
+            length += 1 + request.getMethodNameAsString().length();
+            length += 1 + digits(request.getRequestID());
+        } else if (message instanceof MrcpResponse) {
+            MrcpResponse response = (MrcpResponse) message;
+            length += 1 + digits(response.getRequestID());
+            length += 1 + digits(response.getStatusCode());
+            length += 1 + STATE_BYTES[response.getRequestState().ordinal()].length;
+        } else if (message instanceof MrcpEvent) {
+            MrcpEvent event = (MrcpEvent) message;
+            length += 1 + EVENT_BYTES[event.getEventName().ordinal()].length;
+            length += 1 + digits(event.getRequestID());
+            length += 1 + STATE_BYTES[event.getRequestState().ordinal()].length;
+        } else {
+            throw new IllegalArgumentException("Unsupported message type: " + message.getClass().getName());
+        }
+        return length;
+    }
+
+    private static int headerLength(MrcpHeader header) {
+        MrcpHeaderName headerName = header.getHeaderName();
+        int nameLength = (headerName != null) ? HEADER_BYTES[headerName.ordinal()].length : header.getNameString().length();
+        return nameLength + 1 + header.getValueString().length();
+    }
+
+    private static void putVersion(ByteBuffer buf, String version) {
+        if (MrcpMessage.MRCP_VERSION_2_0.equals(version)) {
+            buf.put(MRCP_VERSION_2_0);
+        } else {
+            putChars(buf, version);
+        }
+    }
+
+    private static void putChars(ByteBuffer buf, String str) {
+        for (int i = 0, n = str.length(); i < n; i++) {
+            buf.put((byte) str.charAt(i));
+        }
+    }
+
+    private static void putNumber(ByteBuffer buf, long value) {
+        if (value < 0) {
+            buf.put((byte) '-');
+            value = -value;
+        }
+        int end = buf.position() + digits(value);
+        for (int i = end - 1; i >= buf.position(); i--) {
+            buf.put(i, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buf.position(end);
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        if (value < 0) {
+            digits++;
+            value = -value;
+        }
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private static byte[] toBytes(String token) {
+        return token.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[][] toBytes(Enum<?>[] values) {
+        byte[][] tokens = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            tokens[i] = toBytes(values[i].toString());
+        }
+        return tokens;
+    }
+
+}
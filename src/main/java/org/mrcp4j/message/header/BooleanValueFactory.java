@@ -0,0 +1,53 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message.header;
+
+/**
+ * {@link org.mrcp4j.message.header.ValueFactory} for {@link java.lang.Boolean} header values.  As with
+ * {@link Boolean#valueOf(String)}, any value other than {@code true} (ignoring case) is {@code false}.
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class BooleanValueFactory extends BaseValueFactory {
+
+    protected BooleanValueFactory() {
+        super(Boolean.class);
+    }
+
+    /* (non-Javadoc)
+     * @see org.mrcp4j.message.header.ValueFactory#fromValueString(java.lang.String)
+     */
+    public Object fromValueString(String valueString) {
+        return Boolean.valueOf(parseBoolean(valueString));
+    }
+
+    /**
+     * Parses a value string without creating a value object.
+     * @param valueString the (trimmed) value string.
+     * @return true if the value string is {@code true}, ignoring case.
+     */
+    public boolean parseBoolean(String valueString) {
+        return "true".equalsIgnoreCase(valueString);
+    }
+
+}
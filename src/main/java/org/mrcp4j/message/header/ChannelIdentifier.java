@@ -106,12 +106,26 @@ public class ChannelIdentifier {
          * @see org.mrcp4j.message.header.ValueFactory#fromValueString(java.lang.String)
          */
         public Object fromValueString(String valueString) throws IllegalValueException {
-            String[] tokens = valueString.split("@");
-            if (tokens.length != 2) {
+            int at = valueString.indexOf('@');
+            int length = valueString.length();
+            if (at < 0 || at == length - 1 || valueString.indexOf('@', at + 1) >= 0) {
                 throw new IllegalValueException("Illegal Channel-Identifier value: " + valueString);
             }
-            MrcpResourceType resourceType = MrcpResourceType.fromString(tokens[1].trim());
-            return new ChannelIdentifier(tokens[0].trim(), resourceType, valueString);
+
+            // trim the resource type in place rather than creating a substring for the lookup
+            int typeStart = at + 1;
+            int typeEnd = length;
+            while (typeStart < typeEnd && valueString.charAt(typeStart) <= ' ') {
+                typeStart++;
+            }
+            while (typeEnd > typeStart && valueString.charAt(typeEnd - 1) <= ' ') {
+                typeEnd--;
+            }
+            MrcpResourceType resourceType = MrcpResourceType.lookup(valueString, typeStart, typeEnd);
+            if (resourceType == null) {
+                throw new IllegalValueException("Invalid MRCP resource type: " + valueString.substring(typeStart, typeEnd));
+            }
+            return new ChannelIdentifier(valueString.substring(0, at).trim(), resourceType, valueString);
         }
 
     }
@@ -0,0 +1,109 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message.header;
+
+/**
+ * {@link org.mrcp4j.message.header.ValueFactory} for {@link java.lang.Float} header values which checks the range on
+ * the primitive value.  Only plain decimal values ({@code ["-"/"+"] *DIGIT ["." *DIGIT]}) are accepted.
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class FloatValueFactory extends BaseValueFactory {
+
+    private float _min;
+    private float _max;
+    private String _rangeMessage;
+
+    /**
+     * @param min the smallest valid value.
+     * @param max the largest valid value.
+     * @param rangeMessage message prefix used when a value is out of range.
+     */
+    protected FloatValueFactory(float min, float max, String rangeMessage) {
+        super(Float.class);
+        _min = min;
+        _max = max;
+        _rangeMessage = rangeMessage;
+    }
+
+    /* (non-Javadoc)
+     * @see org.mrcp4j.message.header.ValueFactory#fromValueString(java.lang.String)
+     */
+    public Object fromValueString(String valueString) throws IllegalValueException {
+        return Float.valueOf(parseFloat(valueString));
+    }
+
+    /**
+     * Parses and validates a value string without creating a value object.
+     * @param valueString the (trimmed) value string.
+     * @return the value.
+     * @throws IllegalValueException if the value string is not a decimal number within the valid range.
+     */
+    public float parseFloat(String valueString) throws IllegalValueException {
+        if (!isDecimal(valueString)) {
+            throw new IllegalValueException("Illegal " + getValueClass().getName() + " value: " + valueString);
+        }
+        float value = Float.parseFloat(valueString);
+        if (value < _min || value > _max) {
+            throw new IllegalValueException(_rangeMessage + value);
+        }
+        return value;
+    }
+
+    /* (non-Javadoc)
+     * @see org.mrcp4j.message.header.BaseValueFactory#validateObject(java.lang.Object)
+     */
+    @Override
+    protected void validateObject(Object valueObject) throws IllegalValueException {
+        float value = ((Float) valueObject).floatValue();
+        if (!(value >= _min && value <= _max)) {
+            throw new IllegalValueException(_rangeMessage + value);
+        }
+    }
+
+    /**
+     * Checks the value characters up front so that {@link Float#parseFloat(String)} never fails and exponents,
+     * type suffixes, hexadecimal, {@code NaN} and {@code Infinity} are rejected.
+     */
+    private static boolean isDecimal(String valueString) {
+        int length = valueString.length();
+        int i = 0;
+        if (length > 0 && (valueString.charAt(0) == '-' || valueString.charAt(0) == '+')) {
+            i++;
+        }
+        boolean digits = false;
+        boolean point = false;
+        for (; i < length; i++) {
+            char c = valueString.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                return false;
+            }
+        }
+        return digits;
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message.header;
+
+/**
+ * {@link org.mrcp4j.message.header.ValueFactory} for {@link java.lang.Long} header values which parses the value
+ * string directly and checks the range on the primitive value.
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class LongValueFactory extends BaseValueFactory {
+
+    private long _min;
+    private long _max;
+    private String _rangeMessage;
+
+    /**
+     * @param min the smallest valid value.
+     * @param max the largest valid value.
+     * @param rangeMessage message prefix used when a value is out of range.
+     */
+    protected LongValueFactory(long min, long max, String rangeMessage) {
+        super(Long.class);
+        _min = min;
+        _max = max;
+        _rangeMessage = rangeMessage;
+    }
+
+    /* (non-Javadoc)
+     * @see org.mrcp4j.message.header.ValueFactory#fromValueString(java.lang.String)
+     */
+    public Object fromValueString(String valueString) throws IllegalValueException {
+        return Long.valueOf(parseLong(valueString));
+    }
+
+    /**
+     * Parses and validates a value string without creating a value object.
+     * @param valueString the (trimmed) value string.
+     * @return the value.
+     * @throws IllegalValueException if the value string is not a decimal integer within the valid range.
+     */
+    public long parseLong(String valueString) throws IllegalValueException {
+        long value = parseDecimal(valueString, getValueClass());
+        if (value < _min || value > _max) {
+            throw new IllegalValueException(_rangeMessage + value);
+        }
+        return value;
+    }
+
+    /* (non-Javadoc)
+     * @see org.mrcp4j.message.header.BaseValueFactory#validateObject(java.lang.Object)
+     */
+    @Override
+    protected void validateObject(Object valueObject) throws IllegalValueException {
+        long value = ((Long) valueObject).longValue();
+        if (value < _min || value > _max) {
+            throw new IllegalValueException(_rangeMessage + value);
+        }
+    }
+
+    /**
+     * Parses an optionally signed decimal integer, accumulating negatively so that {@link Long#MIN_VALUE} can be
+     * represented.
+     */
+    static long parseDecimal(String valueString, Class<?> valueClass) throws IllegalValueException {
+        int length = valueString.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0) {
+            char c = valueString.charAt(0);
+            if (c == '-' || c == '+') {
+                negative = (c == '-');
+                i++;
+            }
+        }
+        if (i == length) {
+            throw new IllegalValueException("Illegal " + valueClass.getName() + " value: " + valueString);
+        }
+
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multmin = limit / 10;
+        long result = 0;
+        for (; i < length; i++) {
+            int digit = valueString.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result < multmin) {
+                throw new IllegalValueException("Illegal " + valueClass.getName() + " value: " + valueString);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw new IllegalValueException("Illegal " + valueClass.getName() + " value: " + valueString);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+}
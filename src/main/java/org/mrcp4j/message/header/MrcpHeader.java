@@ -28,14 +28,26 @@ package org.mrcp4j.message.header;
  */
 public class MrcpHeader {
 
+    /**
+     * Marks a value object that has not been converted from the value string yet.
+     */
+    private static final Object UNCONVERTED = new Object();
+
     private MrcpHeaderName _name;
     private String _valueString;
-    private Object _valueObject;
+    private volatile Object _valueObject;
     
     /*public MrcpHeader(MrcpHeaderName name, Object valueObject) {
         this(name, valueObject.toString(), valueObject);
     }*/
 
+    /**
+     * Creates a header whose value object is converted from the value string when it is first requested.
+     */
+    MrcpHeader(MrcpHeaderName name, String valueString) {
+        this(name, valueString, UNCONVERTED);
+    }
+
     MrcpHeader(MrcpHeaderName name, String valueString, Object valueObject) {
         _name = name;
         _valueString = valueString;
@@ -51,23 +63,102 @@ public class MrcpHeader {
     }
     
     public boolean isValidValue() {
-        return !(_valueObject == null || _valueObject instanceof Throwable);
+        Object valueObject = valueObject();
+        return !(valueObject == null || valueObject instanceof Throwable);
     }
 
     public Object getValueObject() throws IllegalValueException {
-        if (_valueObject == null) {
+        Object valueObject = valueObject();
+        if (valueObject == null) {
             throw new IllegalValueException("Value object could not be constructed for value string: " + _valueString);
         }
 
-        if (_valueObject instanceof Throwable) {
-            if (_valueObject instanceof IllegalValueException) {
-                throw (IllegalValueException) _valueObject;
+        if (valueObject instanceof Throwable) {
+            if (valueObject instanceof IllegalValueException) {
+                throw (IllegalValueException) valueObject;
             }
             throw new IllegalValueException("Value object could not be constructed for value string: " +
-                    _valueString, (Throwable) _valueObject);
+                    _valueString, (Throwable) valueObject);
         }
 
-        return _valueObject;
+        return valueObject;
+    }
+
+    /**
+     * Returns the value of an integer header without creating a value object.
+     * @return the header value.
+     * @throws IllegalValueException if the value string is not a valid value for this header.
+     * @throws ClassCastException if this header does not have numeric values.
+     */
+    public int getIntValue() throws IllegalValueException {
+        Object valueObject = _valueObject;
+        if (valueObject == UNCONVERTED && _name.getValueFactory() instanceof IntegerValueFactory) {
+            return ((IntegerValueFactory) _name.getValueFactory()).parseInt(trimmedValueString());
+        }
+        return ((Number) getValueObject()).intValue();
+    }
+
+    /**
+     * Returns the value of a long (e.g. timeout) or integer header without creating a value object.
+     * @return the header value.
+     * @throws IllegalValueException if the value string is not a valid value for this header.
+     * @throws ClassCastException if this header does not have numeric values.
+     */
+    public long getLongValue() throws IllegalValueException {
+        Object valueObject = _valueObject;
+        if (valueObject == UNCONVERTED && _name.getValueFactory() instanceof LongValueFactory) {
+            return ((LongValueFactory) _name.getValueFactory()).parseLong(trimmedValueString());
+        }
+        return ((Number) getValueObject()).longValue();
+    }
+
+    /**
+     * Returns the value of a float (e.g. threshold) header without creating a value object.
+     * @return the header value.
+     * @throws IllegalValueException if the value string is not a valid value for this header.
+     * @throws ClassCastException if this header does not have numeric values.
+     */
+    public float getFloatValue() throws IllegalValueException {
+        Object valueObject = _valueObject;
+        if (valueObject == UNCONVERTED && _name.getValueFactory() instanceof FloatValueFactory) {
+            return ((FloatValueFactory) _name.getValueFactory()).parseFloat(trimmedValueString());
+        }
+        return ((Number) getValueObject()).floatValue();
+    }
+
+    /**
+     * Returns the value of a boolean header without creating a value object.
+     * @return the header value.
+     * @throws IllegalValueException if the value string is not a valid value for this header.
+     * @throws ClassCastException if this header does not have boolean values.
+     */
+    public boolean getBooleanValue() throws IllegalValueException {
+        Object valueObject = _valueObject;
+        if (valueObject == UNCONVERTED && _name.getValueFactory() instanceof BooleanValueFactory) {
+            return ((BooleanValueFactory) _name.getValueFactory()).parseBoolean(trimmedValueString());
+        }
+        return ((Boolean) getValueObject()).booleanValue();
+    }
+
+    private String trimmedValueString() {
+        return (_valueString == null) ? "" : _valueString.trim();
+    }
+
+    /**
+     * Converts the value string on first use and retains the value object, or the conversion failure, for later
+     * calls.  Concurrent first calls may each convert.
+     */
+    private Object valueObject() {
+        Object valueObject = _valueObject;
+        if (valueObject == UNCONVERTED) {
+            try {
+                valueObject = _name.createHeaderValue(_valueString);
+            } catch (IllegalValueException e) {
+                valueObject = e;
+            }
+            _valueObject = valueObject;
+        }
+        return valueObject;
     }
 
     public String getValueString() {
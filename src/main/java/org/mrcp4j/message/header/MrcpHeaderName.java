@@ -23,7 +23,9 @@
 package org.mrcp4j.message.header;
 
 import org.mrcp4j.MrcpResourceType;
+import org.mrcp4j.util.AsciiTokenTable;
 
+import java.nio.ByteBuffer;
 import java.util.EnumSet;
 
 /**
@@ -76,7 +78,7 @@ public enum MrcpHeaderName {
     /**
      * java.lang.{@link java.lang.Boolean}
      */
-    KILL_ON_BARGE_IN                    ("Kill-On-Barge-In", Boolean.class),
+    KILL_ON_BARGE_IN                    ("Kill-On-Barge-In", new BooleanValueFactory()),
 
     SPEAKER_PROFILE                     ("Speaker-Profile"),
 
@@ -141,19 +143,19 @@ public enum MrcpHeaderName {
     /**
      * java.lang.{@link java.lang.Boolean}
      */
-    START_INPUT_TIMERS                  ("Start-Input-Timers", Boolean.class),
+    START_INPUT_TIMERS                  ("Start-Input-Timers", new BooleanValueFactory()),
 
 
 
     /**
      * java.lang.{@link java.lang.Long}
      */
-    SPEECH_COMPLETE_TIMEOUT             ("Speech-Complete-Timeout", Long.class),
+    SPEECH_COMPLETE_TIMEOUT             ("Speech-Complete-Timeout", new LongFactory()),
 
     /**
      * java.lang.{@link java.lang.Long}
      */
-    SPEECH_INCOMPLETE_TIMEOUT           ("Speech-Incomplete-Timeout", Long.class),
+    SPEECH_INCOMPLETE_TIMEOUT           ("Speech-Incomplete-Timeout", new LongFactory()),
 
     DTMF_INTERDIGIT_TIMEOUT             ("DTMF-Interdigit-Timeout"),
     DTMF_TERM_TIMEOUT                   ("DTMF-Term-Timeout"),
@@ -165,14 +167,14 @@ public enum MrcpHeaderName {
     /**
      * java.lang.{@link java.lang.Boolean}
      */
-    SAVE_WAVEFORM                       ("Save-Waveform", Boolean.class),
+    SAVE_WAVEFORM                       ("Save-Waveform", new BooleanValueFactory()),
 
     MEDIA_TYPE                          ("Media-Type"),
     NEW_AUDIO_CHANNEL                   ("New-Audio-Channel"),
     //SPEECH_LANGUAGE                     ("Speech-Language"),
     VER_BUFFER_UTTERANCE                ("Ver-Buffer-Utterance"),
     RECOGNITION_MODE                    ("Recognition-Mode"),
-    CANCEL_IF_QUEUE                     ("Cancel-If-Queue", Boolean.class),
+    CANCEL_IF_QUEUE                     ("Cancel-If-Queue", new BooleanValueFactory()),
     HOTWORD_MAX_DURATION                ("Hotword-Max-Duration"),
     HOTWORD_MIN_DURATION                ("Hotword-Min-Duration"),
     INTERPRET_TEXT                      ("Interpret-Text"),
@@ -287,6 +289,8 @@ public enum MrcpHeaderName {
             SPEECH_COMPLETE_TIMEOUT, NEW_AUDIO_CHANNEL, ABORT_VERIFICATION, START_INPUT_TIMERS
     );
 
+    private static final AsciiTokenTable<MrcpHeaderName> NAME_TABLE = new AsciiTokenTable<MrcpHeaderName>(values());
+
     private String _name;
     private ValueFactory _valueFactory;
 
@@ -295,10 +299,6 @@ public enum MrcpHeaderName {
         this(name, new GenericValueFactory(String.class));
     }
 
-    private MrcpHeaderName(String name, Class<?> valueClass) {
-        this(name, new GenericValueFactory(valueClass));
-    }
-
     private MrcpHeaderName(String name, ValueFactory valueFactory) {
         _name = name;
         _valueFactory = valueFactory;
@@ -369,12 +369,33 @@ public enum MrcpHeaderName {
      * an existing MRCP header field-name
      */
     public static MrcpHeaderName fromString(String str) throws IllegalArgumentException {
-        for (MrcpHeaderName value : MrcpHeaderName.values()) {
-            if (value.toString().equalsIgnoreCase(str)) {
-                return value;
-            }
+        MrcpHeaderName value = NAME_TABLE.get(str);
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid MRCP header field-name: " + str);
         }
-        throw new IllegalArgumentException("Invalid MRCP header field-name: " + str);
+        return value;
+    }
+
+    /**
+     * Looks up an MRCP header field-name, ignoring case.
+     * @param name MRCP header field-name
+     * @return the header name enum instance corresponding to the field-name, or null if the field-name is not
+     * an MRCP header field-name (e.g. a vendor-specific header)
+     */
+    public static MrcpHeaderName lookup(CharSequence name) {
+        return NAME_TABLE.get(name);
+    }
+
+    /**
+     * Looks up an MRCP header field-name held in a range of bytes, ignoring case.
+     * @param buf buffer containing the field-name
+     * @param start index of the first byte of the field-name
+     * @param end index following the last byte of the field-name
+     * @return the header name enum instance corresponding to the field-name, or null if the field-name is not
+     * an MRCP header field-name (e.g. a vendor-specific header)
+     */
+    public static MrcpHeaderName lookup(ByteBuffer buf, int start, int end) {
+        return NAME_TABLE.get(buf, start, end);
     }
     
     public MrcpHeader constructHeader(Object valueObject) throws ClassCastException, IllegalArgumentException {
@@ -394,16 +415,13 @@ public enum MrcpHeaderName {
     }
 
     /**
-     * Creates a new {@code MrcpHeader} instance based on this {@code MrcpHeaderName}. 
+     * Creates a new {@code MrcpHeader} instance based on this {@code MrcpHeaderName}.  The value string is not
+     * converted to a value object until the value object is first requested.
      * @param valueString the string value for the new {@code MrcpHeader} instance. 
      * @return a new instance using the {@code MrcpHeaderName} and supplied value.
      */
     public MrcpHeader createHeader(String valueString) {
-        try {
-            return new MrcpHeader(this, valueString, createHeaderValue(valueString));
-        } catch (IllegalValueException e) {
-            return new MrcpHeader(this, valueString, e);
-        }
+        return new MrcpHeader(this, valueString);
     }
 
     /**
@@ -413,35 +431,27 @@ public enum MrcpHeaderName {
      * @return a new instance of {@code MrcpHeaderName} using the supplied field-name and field-value.
      */
     public static MrcpHeader createHeader(String name, String valueString) {
-        MrcpHeaderName headerName = null;
-        try {
-            headerName = fromString(name);
-        } catch (IllegalArgumentException e) {
+        MrcpHeaderName headerName = lookup(name);
+        if (headerName == null) {
             return new VendorSpecificHeader(name, (valueString == null) ? "" : valueString.trim());
         }
         return headerName.createHeader(valueString);
     }
 
     /**
-     * TODOC
+     * Returns the factory used to convert value strings of this header name.
      */
-    private static class NonNegativeIntegerFactory extends GenericValueFactory {
+    ValueFactory getValueFactory() {
+        return _valueFactory;
+    }
 
-        private static final Integer VALUE_MIN = new Integer(0);
+    /**
+     * TODOC
+     */
+    private static class NonNegativeIntegerFactory extends IntegerValueFactory {
 
         protected NonNegativeIntegerFactory() {
-            super(Integer.class);
-        }
-
-        /* (non-Javadoc)
-         * @see org.mrcp4j.message.header.GenericValueFactory#validateObject(java.lang.Object)
-         */
-        @Override
-        protected void validateObject(Object valueObject) throws IllegalValueException {
-            Integer value = (Integer) valueObject;
-            if (value.compareTo(VALUE_MIN) < 0) {
-                throw new IllegalValueException("Illegal non-negative-integer value: " + valueObject);
-            }
+            super(0, Integer.MAX_VALUE, "Illegal non-negative-integer value: ");
         }
 
     }
@@ -449,23 +459,21 @@ public enum MrcpHeaderName {
     /**
      * TODOC
      */
-    private static class PositiveIntegerFactory extends GenericValueFactory {
-
-        private static final Integer VALUE_MIN = new Integer(1);
+    private static class PositiveIntegerFactory extends IntegerValueFactory {
 
         protected PositiveIntegerFactory() {
-            super(Integer.class);
+            super(1, Integer.MAX_VALUE, "Illegal positive-integer value: ");
         }
 
-        /* (non-Javadoc)
-         * @see org.mrcp4j.message.header.GenericValueFactory#validateObject(java.lang.Object)
-         */
-        @Override
-        protected void validateObject(Object valueObject) throws IllegalValueException {
-            Integer value = (Integer) valueObject;
-            if (value.compareTo(VALUE_MIN) < 0) {
-                throw new IllegalValueException("Illegal positive-integer value: " + valueObject);
-            }
+    }
+
+    /**
+     * Converts header values to {@code Long} over the full range of a signed 64-bit integer.
+     */
+    private static class LongFactory extends LongValueFactory {
+
+        protected LongFactory() {
+            super(Long.MIN_VALUE, Long.MAX_VALUE, "Illegal long value: ");
         }
 
     }
@@ -473,24 +481,10 @@ public enum MrcpHeaderName {
     /**
      * TODOC
      */
-    private static class ZeroOneFloatFactory extends GenericValueFactory {
-
-        private static final Float VALUE_MIN = new Float(0.0f);
-        private static final Float VALUE_MAX = new Float(1.0f);
+    private static class ZeroOneFloatFactory extends FloatValueFactory {
 
         protected ZeroOneFloatFactory() {
-            super(Float.class);
-        }
-
-        /* (non-Javadoc)
-         * @see org.mrcp4j.message.header.GenericValueFactory#validateObject(java.lang.Object)
-         */
-        @Override
-        protected void validateObject(Object valueObject) throws IllegalValueException {
-            Float value = (Float) valueObject;
-            if (value.compareTo(VALUE_MIN) < 0 || value.compareTo(VALUE_MAX) > 0) {
-                throw new IllegalValueException("Illegal zero-one-float value: " + valueObject);
-            }
+            super(0.0f, 1.0f, "Illegal zero-one-float value: ");
         }
 
     }
@@ -498,24 +492,10 @@ public enum MrcpHeaderName {
     /**
      * TODOC
      */
-    private static class MinusOnePlusOneFloatFactory extends GenericValueFactory {
-
-        private static final Float VALUE_MIN = new Float(-1.0f);
-        private static final Float VALUE_MAX = new Float(1.0f);
+    private static class MinusOnePlusOneFloatFactory extends FloatValueFactory {
 
         protected MinusOnePlusOneFloatFactory() {
-            super(Float.class);
-        }
-
-        /* (non-Javadoc)
-         * @see org.mrcp4j.message.header.GenericValueFactory#validateObject(java.lang.Object)
-         */
-        @Override
-        protected void validateObject(Object valueObject) throws IllegalValueException {
-            Float value = (Float) valueObject;
-            if (value.compareTo(VALUE_MIN) < 0 || value.compareTo(VALUE_MAX) > 0) {
-                throw new IllegalValueException("Illegal minus_one-plus_one-float value: " + valueObject);
-            }
+            super(-1.0f, 1.0f, "Illegal minus_one-plus_one-float value: ");
         }
 
     }
@@ -523,24 +503,10 @@ public enum MrcpHeaderName {
     /**
      * TODOC
      */
-    private static class TimeoutFactory extends GenericValueFactory {
-
-        private static final Long VALUE_MIN = new Long(0);
-        private static final Long VALUE_MAX = new Long(10 * 60 * 1000);  // arbitrary maximum but ten minutes should be sufficient!
+    private static class TimeoutFactory extends LongValueFactory {
 
         protected TimeoutFactory() {
-            super(Long.class);
-        }
-
-        /* (non-Javadoc)
-         * @see org.mrcp4j.message.header.GenericValueFactory#validateObject(java.lang.Object)
-         */
-        @Override
-        protected void validateObject(Object valueObject) throws IllegalValueException {
-            Long value = (Long) valueObject;
-            if (value.compareTo(VALUE_MIN) < 0 || value.compareTo(VALUE_MAX) > 0) {
-                throw new IllegalValueException("Illegal value for timeout: " + valueObject);
-            }
+            super(0, 10 * 60 * 1000, "Illegal value for timeout: ");  // arbitrary maximum but ten minutes should be sufficient!
         }
 
     }
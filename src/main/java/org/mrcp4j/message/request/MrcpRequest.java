@@ -53,6 +53,14 @@ public abstract class MrcpRequest extends MrcpMessage {
     		return _methodName.toString();
     }
 
+    @Override
+    public MrcpRequest copy() {
+        MrcpRequest copy = (_methodName == null) ?
+            MrcpRequestFactory.createVendorSpecificRequest(_methodNameAsString) :
+            MrcpRequestFactory.createRequest(_methodName);
+        return copyTo(copy);
+    }
+
     @Override
     protected final StringBuilder appendStartLine(StringBuilder sb) {
         sb.append(getVersion());
@@ -0,0 +1,46 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.server;
+
+import java.util.concurrent.CompletionStage;
+
+import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.request.MrcpRequest;
+
+/**
+ * Handles requests without occupying the calling thread until the response is available.
+ * <p>
+ * The response is written to the client when the returned stage completes, by the thread completing it.  A stage
+ * completing exceptionally or with {@code null} is answered with a server internal error.  Events for the request
+ * may only be posted through the session once the stage has completed with an {@code IN-PROGRESS} or
+ * {@code PENDING} response.
+ * </p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ * @see MrcpRequestHandler
+ */
+public interface AsyncMrcpRequestHandler {
+
+    public CompletionStage<MrcpResponse> handleRequest(MrcpRequest request, MrcpSession session);
+
+}
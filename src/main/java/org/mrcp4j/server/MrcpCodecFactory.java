@@ -26,6 +26,7 @@ import org.apache.mina.core.session.IoSession;
 import org.apache.mina.filter.codec.ProtocolCodecFactory;
 import org.apache.mina.filter.codec.ProtocolDecoder;
 import org.apache.mina.filter.codec.ProtocolEncoder;
+import org.mrcp4j.message.codec.MrcpMessageFrameDecoder;
 
 /**
  *
@@ -33,12 +34,70 @@ import org.apache.mina.filter.codec.ProtocolEncoder;
  */
 public class MrcpCodecFactory implements ProtocolCodecFactory {
 
+    private volatile int _maxMessageLength = MrcpMessageFrameDecoder.DEFAULT_MAX_MESSAGE_LENGTH;
+    private volatile int _maxHeaderCount = MrcpMessageFrameDecoder.DEFAULT_MAX_HEADER_COUNT;
+    private volatile int _maxLineLength = MrcpMessageFrameDecoder.DEFAULT_MAX_LINE_LENGTH;
+    private volatile MrcpServerMetrics _metrics;
+    private volatile int _streamingThreshold;
+    private volatile int _streamingBufferSize = MrcpMessageFrameDecoder.DEFAULT_STREAMING_BUFFER_SIZE;
+
+    /**
+     * Sets the metrics receiving the encode latencies and status codes of messages written by encoders created
+     * from now on.
+     * @param metrics the metrics, or null to record none (default).
+     */
+    public void setMetrics(MrcpServerMetrics metrics) {
+        _metrics = metrics;
+    }
+
+    /**
+     * Sets the size limits for received messages.
+     * @param maxMessageLength the maximum message-length in bytes.
+     * @param maxHeaderCount   the maximum number of header lines.
+     * @param maxLineLength    the maximum length in bytes of the start-line and of each header line.
+     * @see org.mrcp4j.message.codec.MrcpMessageFrameDecoder#setLimits(int, int, int)
+     */
+    public void setLimits(int maxMessageLength, int maxHeaderCount, int maxLineLength) {
+        if (maxMessageLength < 1 || maxHeaderCount < 0 || maxLineLength < 1) {
+            throw new IllegalArgumentException("Invalid message limits: " +
+                    maxMessageLength + ", " + maxHeaderCount + ", " + maxLineLength);
+        }
+        _maxMessageLength = maxMessageLength;
+        _maxHeaderCount = maxHeaderCount;
+        _maxLineLength = maxLineLength;
+    }
+
+    /**
+     * Sets the minimum content length of requests whose body is streamed to the request handler.
+     * @param threshold the threshold in bytes, or 0 to disable streaming (default).
+     * @see org.mrcp4j.message.codec.MrcpMessageFrameDecoder#setStreamingThreshold(int)
+     */
+    public void setStreamingThreshold(int threshold) {
+        _streamingThreshold = threshold;
+    }
+
+    /**
+     * Sets the number of content bytes buffered for a streamed request before reading is suspended.
+     * @param bufferSize the buffer size in bytes.
+     * @see org.mrcp4j.message.codec.MrcpMessageFrameDecoder#setStreamingBufferSize(int)
+     */
+    public void setStreamingBufferSize(int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Streaming buffer size must be positive: " + bufferSize);
+        }
+        _streamingBufferSize = bufferSize;
+    }
+
     public ProtocolDecoder getDecoder(IoSession session) {
-        return new MrcpRequestDecoder();
+        MrcpRequestDecoder decoder = new MrcpRequestDecoder();
+        decoder.setLimits(_maxMessageLength, _maxHeaderCount, _maxLineLength);
+        decoder.setStreamingThreshold(_streamingThreshold);
+        decoder.setStreamingBufferSize(_streamingBufferSize);
+        return decoder;
     }
 
     public ProtocolEncoder getEncoder(IoSession session) {
-        return new MrcpMessageEncoder();
+        return new MrcpMessageEncoder(_metrics);
     }
 
 }
@@ -22,12 +22,12 @@
  */
 package org.mrcp4j.server;
 
-import static org.mrcp4j.message.MrcpMessage.CRLF;
+import java.nio.ByteBuffer;
 
 import org.mrcp4j.message.MrcpEvent;
 import org.mrcp4j.message.MrcpResponse;
 import org.mrcp4j.message.MrcpServerMessage;
-import org.mrcp4j.message.header.MrcpHeader;
+import org.mrcp4j.message.codec.MrcpMessageWriter;
 
 import org.apache.mina.core.buffer.IoBuffer;
 import org.apache.mina.core.session.IoSession;
@@ -38,88 +38,69 @@ import org.apache.mina.filter.codec.ProtocolEncoderException;
 
 /**
  * Encodes {@link org.mrcp4j.message.MrcpMessage} instances into MRCPv2 specification format.
+ * <p>
+ * The message length is computed before encoding and the message is written in a single pass into a buffer
+ * of exactly that size, obtained from {@link org.apache.mina.core.buffer.IoBuffer#allocate(int)} so that a
+ * pooling {@link org.apache.mina.core.buffer.IoBufferAllocator} is used if one has been installed.  Content held in
+ * a direct buffer, such as a memory-mapped file, is written from that buffer rather than copied.
+ * </p>
  *
  * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
  */
 public class MrcpMessageEncoder implements ProtocolEncoder {
 
-    private StringBuilder _encodeBuf = new StringBuilder();
+    private MrcpServerMetrics _metrics;
+
+    public MrcpMessageEncoder() {
+        this(null);
+    }
+
+    /**
+     * Creates an encoder recording the time taken to encode each message.
+     * @param metrics the metrics receiving encode latencies and response status codes, or null to record none.
+     */
+    public MrcpMessageEncoder(MrcpServerMetrics metrics) {
+        _metrics = metrics;
+    }
 
     public void encode(IoSession session, Object message, ProtocolEncoderOutput out)
       throws Exception {
+        long startTime = System.nanoTime();
 
-        // clear encode buffer
-        _encodeBuf.delete(0, _encodeBuf.length());
-
-        // append start line
-        int offset = -1;
-        if (message instanceof MrcpResponse) {
-            offset = appendResponseLine(_encodeBuf, ((MrcpResponse) message));
-        } else if (message instanceof MrcpEvent) {
-            offset = appendEventLine(_encodeBuf, ((MrcpEvent) message));
-        } else {
+        if (!(message instanceof MrcpResponse || message instanceof MrcpEvent)) {
             throw new ProtocolEncoderException("Unsupported message type: " + message.getClass().getName());
         }
 
-        // append headers
         MrcpServerMessage serverMessage = (MrcpServerMessage) message;
-        for (MrcpHeader header : serverMessage.getHeaders()) {
-            _encodeBuf.append(header.toString()).append(CRLF);
-        }
-
-        // append CRLF line
-        _encodeBuf.append(CRLF);
-
-        // append message body if present
-        if (serverMessage.hasContent()) {
-            _encodeBuf.append(serverMessage.getContent());
-        }
-
-        // determine and set message length
-        int bufferLength = _encodeBuf.length();
-        int bufferLengthLength = Integer.toString(bufferLength).length();
-        int messageLength = bufferLength + bufferLengthLength;
-        String messageLengthString = Integer.toString(messageLength);
-        if (messageLengthString.length() > bufferLengthLength) {
-            messageLengthString = Integer.toString(++messageLength);
+        int messageLength = MrcpMessageWriter.prepare(serverMessage);
+
+        ByteBuffer content = serverMessage.getContentBytes();
+        if (content != null && content.isDirect()) {
+            // memory-mapped content is written from its own buffer instead of being copied after the headers
+            IoBuffer head = IoBuffer.allocate(messageLength - content.remaining());
+            MrcpMessageWriter.writeHead(serverMessage, head.buf());
+            head.flip();
+            out.write(head);
+            out.write(IoBuffer.wrap(content));
+            recordEncode(serverMessage, startTime);
+            return;
         }
-        _encodeBuf.insert(offset, messageLengthString);
-        serverMessage.setMessageLength(messageLength);
-        bufferLength = _encodeBuf.length();
 
-        // write _encodeBuf to out
-        IoBuffer bytes = IoBuffer.allocate(bufferLength);
-        for (int i = 0; i < bufferLength; i++) {
-            bytes.put((byte) _encodeBuf.charAt(i));
-        }
+        IoBuffer bytes = IoBuffer.allocate(messageLength);
+        MrcpMessageWriter.write(serverMessage, bytes.buf());
         bytes.flip();
         out.write(bytes);
+        recordEncode(serverMessage, startTime);
     }
 
-    private static int appendEventLine(StringBuilder encodeBuf, MrcpEvent event) {
-        String version = event.getVersion();
-        encodeBuf.append(version).append(' ');
-        // message length will be inserted at this position after headers and content are encoded
-        encodeBuf.append(' ').append(event.getEventName());
-        encodeBuf.append(' ').append(event.getRequestID());
-        encodeBuf.append(' ').append(event.getRequestState());
-        encodeBuf.append(CRLF);
-        return version.length() + 1;
-    }
-
-    private static int appendResponseLine(StringBuilder encodeBuf, MrcpResponse response) {
-        String version = response.getVersion();
-        encodeBuf.append(version).append(' ');
-        // message length will be inserted at this position after headers and content are encoded
-        encodeBuf.append(' ').append(response.getRequestID());
-        encodeBuf.append(' ').append(response.getStatusCode());
-        encodeBuf.append(' ').append(response.getRequestState());
-        encodeBuf.append(CRLF);
-        return version.length() + 1;
+    private void recordEncode(MrcpServerMessage message, long startTime) {
+        if (_metrics != null) {
+            _metrics.recordEncode(message, System.nanoTime() - startTime);
+        }
     }
 
     @Override
     public void dispose(IoSession session) throws Exception {
         // No resources to clean up
     }
-}
\ No newline at end of file
+}
@@ -22,24 +22,130 @@
  */
 package org.mrcp4j.server;
 
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
 import org.mrcp4j.MrcpRequestState;
-import org.mrcp4j.message.MrcpEvent;
 import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.header.MrcpHeaderName;
 import org.mrcp4j.message.request.MrcpRequest;
 
 import org.apache.mina.core.service.IoHandlerAdapter;
 import org.apache.mina.core.session.IoSession;
 
 /**
+ * Hands received requests to the {@link MrcpRequestProcessor} on an {@link java.util.concurrent.Executor}.
+ * <p>
+ * Each request is processed by a task that calls the request handler and writes its response; events are written
+ * later by whichever thread posts them, so a task only occupies its thread until the response has been returned.
+ * Asynchronous request handlers release the thread as soon as they have returned a pending response stage.
+ * Unless an executor is supplied, a fixed size thread pool with a bounded queue is created; a request arriving
+ * while all threads are busy and the queue is full is rejected and answered with status 501 (server internal
+ * error), so a burst of requests cannot grow the heap without limit.  Tasks of one connection are not ordered with
+ * respect to each other, an ordering executor (such as MINA's {@code OrderedThreadPoolExecutor}) can be supplied
+ * if required.
+ * </p>
  *
  * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
  */
 public class MrcpProtocolHandler extends IoHandlerAdapter {
 
+    private static Logger _log = LogManager.getLogger(MrcpProtocolHandler.class);
+
     private MrcpRequestProcessor _requestProcessor;
+    private Executor _executor;
+    private boolean _ownsExecutor;
+
+    private volatile MrcpServerMetrics _metrics;
+
+    private AtomicInteger _pendingRequests = new AtomicInteger();
+    private AtomicInteger _activeRequests = new AtomicInteger();
+
+    /**
+     * Default number of requests that may wait for a thread of the default thread pool.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
 
     public MrcpProtocolHandler(MrcpRequestProcessor requestProcessor) {
+        this(requestProcessor, null);
+    }
+
+    /**
+     * Creates a protocol handler that processes requests on a thread pool created (and shut down by
+     * {@link #dispose()}) by this handler.
+     * @param requestProcessor the processor requests are passed to.
+     * @param queueCapacity the number of requests that may wait for a thread before further requests are rejected.
+     */
+    public MrcpProtocolHandler(MrcpRequestProcessor requestProcessor, int queueCapacity) {
         _requestProcessor = requestProcessor;
+        _executor = createDefaultExecutor(queueCapacity);
+        _ownsExecutor = true;
+    }
+
+    /**
+     * Creates a protocol handler that processes requests on the specified executor.
+     * @param requestProcessor the processor requests are passed to.
+     * @param executor the executor on which requests are processed, or null to use a thread pool created
+     *        (and shut down by {@link #dispose()}) by this handler, with a queue of {@link #DEFAULT_QUEUE_CAPACITY}.
+     */
+    public MrcpProtocolHandler(MrcpRequestProcessor requestProcessor, Executor executor) {
+        _requestProcessor = requestProcessor;
+        if (executor == null) {
+            _executor = createDefaultExecutor(DEFAULT_QUEUE_CAPACITY);
+            _ownsExecutor = true;
+        } else {
+            _executor = executor;
+        }
+    }
+
+    private static final int DEFAULT_POOL_SIZE = Math.max(8, Runtime.getRuntime().availableProcessors() * 4);
+
+    private static ExecutorService createDefaultExecutor(int queueCapacity) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(DEFAULT_POOL_SIZE, DEFAULT_POOL_SIZE, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity), new RequestThreadFactory());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Sets the metrics receiving the decode, queue wait and handler latencies of requests.
+     * @param metrics the metrics, or null to record none (default).
+     */
+    public void setMetrics(MrcpServerMetrics metrics) {
+        _metrics = metrics;
+    }
+
+    /**
+     * @return the number of received requests that have been handed to the executor but have not started processing yet.
+     */
+    public int getPendingRequestCount() {
+        return _pendingRequests.get();
+    }
+
+    /**
+     * @return the number of requests currently being processed (i.e. whose response has not yet been written).
+     */
+    public int getActiveRequestCount() {
+        return _activeRequests.get();
+    }
+
+    /**
+     * Shuts down the executor if it was created by this handler.
+     */
+    public void dispose() {
+        if (_ownsExecutor) {
+            ((ExecutorService) _executor).shutdown();
+        }
     }
 
     /* (non-Javadoc)
@@ -51,48 +157,94 @@ public class MrcpProtocolHandler extends IoHandlerAdapter {
         session.closeNow();
     }
 
+    /* (non-Javadoc)
+     * @see org.apache.mina.core.service.IoHandlerAdapter#sessionClosed(org.apache.mina.core.session.IoSession)
+     */
+    @Override
+    public void sessionClosed(IoSession session) {
+        _requestProcessor.connectionClosed(session);
+    }
+
     /* (non-Javadoc)
      * @see org.apache.mina.protocol.ProtocolHandler#messageReceived(org.apache.mina.protocol.ProtocolSession, java.lang.Object)
      */
     @Override
     public void messageReceived(IoSession session, Object message) {
         MrcpRequest request = (MrcpRequest) message;
-        new EventThread(_requestProcessor, session, request).start(); // TODO: move threading down chain
+        MrcpServerMetrics metrics = _metrics;
+        if (metrics != null && request.getDecodedTime() != 0) {
+            metrics.record(MrcpServerMetrics.Stage.DECODE, request, request.getDecodedTime() - request.getDecodeStartTime());
+        }
+        _pendingRequests.incrementAndGet();
+        try {
+            _executor.execute(new RequestTask(session, request));
+        } catch (RejectedExecutionException e) {
+            _pendingRequests.decrementAndGet();
+            _log.warn("Request rejected by executor, responding with server internal error: " + request.getRequestID(), e);
+            request.closeContentStream();
+            session.write(createErrorResponse(request));
+        }
+    }
+
+    private static MrcpResponse createErrorResponse(MrcpRequest request) {
+        MrcpResponse response = new MrcpResponse();
+        response.setVersion(request.getVersion());
+        response.setRequestID(request.getRequestID());
+        response.setStatusCode(MrcpResponse.STATUS_SERVER_INTERNAL_ERROR);
+        response.setRequestState(MrcpRequestState.COMPLETE);
+        response.addHeader(request.getHeader(MrcpHeaderName.CHANNEL_IDENTIFIER));
+        return response;
     }
 
-    private static class EventThread extends Thread {
+    private class RequestTask implements Runnable {
 
-        private MrcpRequestProcessor _requestProcessor;
         private IoSession _session;
         private MrcpRequest _request;
+        private long _queuedTime = System.nanoTime();
 
-        EventThread(MrcpRequestProcessor requestProcessor, IoSession session, MrcpRequest request) {
+        RequestTask(IoSession session, MrcpRequest request) {
             _request = request;
-            _requestProcessor = requestProcessor;
             _session = session;
         }
 
         /* (non-Javadoc)
          * @see java.lang.Runnable#run()
          */
-        @Override
         public void run() {
-            MrcpResponse response = _requestProcessor.processRequest(_request);
-            _session.write(response);
-
-            MrcpRequestState requestState = response.getRequestState();
-
-            while (!requestState.equals(MrcpRequestState.COMPLETE) && !_session.isClosing()) {
-                MrcpEvent event = _requestProcessor.getNextEvent(_request);
-                if (event != null) {
-                    _session.write(event);
-                    requestState = event.getRequestState();
+            _pendingRequests.decrementAndGet();
+            _activeRequests.incrementAndGet();
+            final MrcpServerMetrics metrics = _metrics;
+            final long startTime = System.nanoTime();
+            if (metrics != null) {
+                metrics.record(MrcpServerMetrics.Stage.QUEUE_WAIT, _request, startTime - _queuedTime);
+            }
+            CompletionStage<MrcpResponse> response = null;
+            try {
+                response = _requestProcessor.processRequest(_request, _session);
+            } finally {
+                if (response == null) {
+                    _activeRequests.decrementAndGet();
                 } else {
-                    break;
+                    response.whenComplete(new BiConsumer<MrcpResponse, Throwable>() {
+                        public void accept(MrcpResponse r, Throwable cause) {
+                            _activeRequests.decrementAndGet();
+                            if (metrics != null) {
+                                metrics.record(MrcpServerMetrics.Stage.HANDLER, _request, System.nanoTime() - startTime);
+                            }
+                        }
+                    });
                 }
             }
         }
     }
 
+    private static class RequestThreadFactory implements ThreadFactory {
+
+        private AtomicInteger _threadCount = new AtomicInteger();
+
+        public Thread newThread(Runnable r) {
+            return new Thread(r, "MrcpRequest-" + _threadCount.incrementAndGet());
+        }
+    }
 
 }
@@ -22,167 +22,66 @@
  */
 package org.mrcp4j.server;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 
-import org.apache.log4j.LogManager;
-import org.apache.log4j.Logger;
-import org.apache.mina.core.buffer.IoBuffer;
 import org.apache.mina.core.session.IoSession;
-import org.apache.mina.filter.codec.ProtocolDecoder;
-import org.apache.mina.filter.codec.ProtocolDecoderOutput;
-import org.apache.mina.filter.codec.ProtocolDecoderException;
-import org.mrcp4j.message.header.IllegalValueException;
+import org.mrcp4j.MrcpRequestState;
+import org.mrcp4j.message.MrcpMessage;
+import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.codec.MrcpMessageFrameDecoder;
+import org.mrcp4j.message.codec.MrcpMessageParser;
 import org.mrcp4j.message.header.MrcpHeader;
 import org.mrcp4j.message.header.MrcpHeaderName;
 import org.mrcp4j.message.request.MrcpRequest;
-import org.mrcp4j.message.request.MrcpRequestFactory;
 
 /**
  * Decodes request messages received in MRCPv2 format into {@link org.mrcp4j.message.request.MrcpRequest} instances.
  *
  * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
  */
-public class MrcpRequestDecoder implements ProtocolDecoder {
+public class MrcpRequestDecoder extends MrcpMessageFrameDecoder {
 
-	private static Logger _log = LogManager.getLogger(MrcpRequestDecoder.class);
-
-    private StringBuilder decodeBuf = new StringBuilder();
-
-    public void decode(IoSession session, IoBuffer in, ProtocolDecoderOutput out)
-      throws Exception {
-        try {
-
-            // create request from request-line
-            MrcpRequest request = createRequest(readLine(in));
-            
-            // read message-header
-            String line = null;
-            while ( (line = readLine(in)) != null && !(line = line.trim()).equals("") ) {
-                // TODO: handle multi-line headers
-                int index = line.indexOf(':');
-                if (index < 1) {
-                    throw new ParseException("Incorrect message-header format!", -1);
-                }
-                String name = line.substring(0, index);
-                String value = line.substring(index + 1).trim();
-                MrcpHeader header = MrcpHeaderName.createHeader(name, value);
-
-                request.addHeader(header);
-            }
-
-            // read request message body if present
-            MrcpHeader contentLengthHeader = request.getHeader(MrcpHeaderName.CONTENT_LENGTH);
-            int contentLength = 0;
-            try {
-                contentLength = (contentLengthHeader == null) ? 0 : ((Integer) contentLengthHeader.getValueObject()).intValue();
-            } catch (IllegalValueException e) {
-                throw new ProtocolDecoderException(e.getMessage(), e);
-            }
-            if (contentLength > 0) {
-                StringBuilder sb = new StringBuilder();
-                for (int i = 0; i < contentLength; i++) {
-                    byte b = in.get();
-                    sb.append((char) b);
-                } // TODO: handle exceptions
-                request.setContent(sb.toString());
-            }
-
-            // write request object to out
-            out.write(request);
-
-        } catch (ParseException e) {
-            //TODO: return 408 response to client?
-            _log.debug(e, e);
-            throw new ProtocolDecoderException(e.getMessage(), e);
-        } catch (RuntimeException e) {
-            _log.debug(e, e);
-            throw e;
-        }
+    @Override
+    protected MrcpRequest parseStartLine(ByteBuffer buf, int start, int end) throws ParseException {
+        return MrcpMessageParser.parseRequestLine(buf, start, end);
     }
 
-    private String readLine(IoBuffer in) {
-        if (!in.hasRemaining()) {
-            return null;
+    /**
+     * Responds to an oversized request with status 504 (message too large) before its body has been received.
+     * A request without a Channel-Identifier header closes the connection instead, since the client could not
+     * match the response to the request.
+     */
+    @Override
+    protected void messageTooLarge(IoSession session, MrcpMessage message, String reason) {
+        super.messageTooLarge(session, message, reason);
+        MrcpHeader channelIdentifier = message.getHeader(MrcpHeaderName.CHANNEL_IDENTIFIER);
+        if (channelIdentifier == null) {
+            session.closeNow();
+            return;
         }
-
-        decodeBuf.delete(0, decodeBuf.length());
-        boolean done = false;
-        do {
-            byte b = in.get();
-            switch(b) {
-            case '\r':
-                break;
-            case '\n':
-                done = true;
-                break;
-            default:
-                decodeBuf.append((char) b);
-            }
-        } while (!done && in.hasRemaining());
-
-        return decodeBuf.toString();
+        MrcpResponse response = new MrcpResponse();
+        response.setVersion(message.getVersion());
+        response.setRequestID(((MrcpRequest) message).getRequestID());
+        response.setStatusCode(MrcpResponse.STATUS_MESSAGE_TOO_LARGE);
+        response.setRequestState(MrcpRequestState.COMPLETE);
+        response.addHeader(channelIdentifier);
+        session.write(response);
     }
 
-    private static final int REQUEST_LINE_MRCP_VERSION_PART   = 0;
-    private static final int REQUEST_LINE_MESSAGE_LENGTH_PART = 1;
-    private static final int REQUEST_LINE_METHOD_NAME_PART    = 2;
-    private static final int REQUEST_LINE_REQUEST_ID_PART     = 3;
-    private static final int REQUEST_LINE_PART_COUNT          = 4;
-
+    /**
+     * Creates a request instance from an MRCPv2 request-line.
+     * @param requestLine the request-line.
+     * @return a request instance with version, message-length, method and request-id set.
+     * @throws ParseException if the line is not a correctly formatted request-line.
+     */
     public static MrcpRequest createRequest(String requestLine) throws ParseException {
-
-        if (requestLine == null || (requestLine = requestLine.trim()).length() < 1) {
+        if (requestLine == null) {
             throw new ParseException("No request-line provided!", -1);
         }
-
-        String[] requestLineParts = requestLine.split(" ");
-        if (requestLineParts.length != REQUEST_LINE_PART_COUNT) {
-            throw new ParseException("Incorrect request-line format!", -1);
-        }
-
-        MrcpRequest request = null;
-
-        // construct request from method-name
-        try {
-            request = MrcpRequestFactory.createRequest(requestLineParts[REQUEST_LINE_METHOD_NAME_PART]);
-        } catch (IllegalArgumentException e){
-            String message = "Incorrect method-name format!";
-            throw (ParseException) new ParseException(message, -1).initCause(e);
-        }
-
-        // mrcp-version
-        request.setVersion(requestLineParts[REQUEST_LINE_MRCP_VERSION_PART]);  //TODO: need to check here if version is supported, or maybe at higher level...
-
-        // message-length
-        try {
-            request.setMessageLength(
-                Integer.parseInt(requestLineParts[REQUEST_LINE_MESSAGE_LENGTH_PART])
-            );
-        } catch (NumberFormatException e){
-            String message = "Incorrect message-length format!";
-            throw (ParseException) new ParseException(message, -1).initCause(e);
-        }
-
-        // request-id
-        try {
-            request.setRequestID(
-                Long.parseLong(requestLineParts[REQUEST_LINE_REQUEST_ID_PART])
-            );
-        } catch (NumberFormatException e){
-            String message = "Incorrect request-id format!";
-            throw (ParseException) new ParseException(message, -1).initCause(e);
-        }
-
-        return request;
+        ByteBuffer buf = ByteBuffer.wrap(requestLine.getBytes(StandardCharsets.ISO_8859_1));
+        return MrcpMessageParser.parseRequestLine(buf, 0, buf.limit());
     }
 
-    @Override
-    public void finishDecode(IoSession session, ProtocolDecoderOutput out) throws Exception {
-        // No buffering in this codec
-    }
-
-    @Override
-    public void dispose(IoSession session) throws Exception {
-        // No resources to clean up
-    }
 }
@@ -22,7 +22,9 @@
  */
 package org.mrcp4j.server;
 
-import org.mrcp4j.message.MrcpEvent;
+import java.util.concurrent.CompletionStage;
+
+import org.apache.mina.core.session.IoSession;
 import org.mrcp4j.message.MrcpResponse;
 import org.mrcp4j.message.request.MrcpRequest;
 
@@ -32,8 +34,21 @@ import org.mrcp4j.message.request.MrcpRequest;
  */
 public interface MrcpRequestProcessor {
 
-    public MrcpResponse processRequest(MrcpRequest request);
+    /**
+     * Processes a request and writes the response to the connection the request was received on.  Events
+     * subsequently posted for the request through its {@link MrcpSession} are written directly to the same
+     * connection, so no thread needs to wait for them.
+     * @param request the request received.
+     * @param ioSession the connection the request was received on.
+     * @return a stage completing with the response once it has been written to {@code ioSession}, which may be
+     *         after this method has returned if the request handler responds asynchronously.
+     */
+    public CompletionStage<MrcpResponse> processRequest(MrcpRequest request, IoSession ioSession);
 
-    public MrcpEvent getNextEvent(MrcpRequest request);
+    /**
+     * Releases any requests still in progress on a connection that has been closed.
+     * @param ioSession the closed connection.
+     */
+    public void connectionClosed(IoSession ioSession);
 
 }
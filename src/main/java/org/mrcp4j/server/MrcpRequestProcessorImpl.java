@@ -22,25 +22,27 @@
  */
 package org.mrcp4j.server;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
 
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
+import org.apache.mina.core.future.WriteFuture;
+import org.apache.mina.core.session.IoSession;
 import org.mrcp4j.MrcpEventName;
 import org.mrcp4j.MrcpRequestState;
 import org.mrcp4j.message.MrcpEvent;
 import org.mrcp4j.message.MrcpResponse;
 import org.mrcp4j.message.header.ChannelIdentifier;
 import org.mrcp4j.message.header.IllegalValueException;
+import org.mrcp4j.message.header.MrcpHeader;
 import org.mrcp4j.message.header.MrcpHeaderName;
+import org.mrcp4j.message.header.RequestIdList;
 import org.mrcp4j.message.request.MrcpRequest;
-import org.mrcp4j.util.ObjectWrapper;
 
 /**
  *
@@ -50,54 +52,60 @@ public class MrcpRequestProcessorImpl implements MrcpRequestProcessor {
 
 	private static Logger _log = LogManager.getLogger(MrcpRequestProcessorImpl.class);
 
-    private Map<String, MrcpRequestHandler> _requestHandlers =
-        Collections.synchronizedMap(new HashMap<String, MrcpRequestHandler>());
+    private ConcurrentMap<ChannelIdentifier, AsyncMrcpRequestHandler> _requestHandlers =
+        new ConcurrentHashMap<ChannelIdentifier, AsyncMrcpRequestHandler>();
 
-    private Map<String, MrcpSessionImpl> _sessions =
-        Collections.synchronizedMap(new HashMap<String, MrcpSessionImpl>());
+    // requests in progress, by the connection they were received on
+    private ConcurrentMap<IoSession, ConcurrentMap<RequestKey, MrcpSessionImpl>> _sessions =
+        new ConcurrentHashMap<IoSession, ConcurrentMap<RequestKey, MrcpSessionImpl>>();
 
+    private volatile MrcpServerMetrics _metrics;
 
-    public MrcpResponse processRequest(MrcpRequest request) {
+    /**
+     * Sets the metrics receiving the time to the first event of requests.
+     * @param metrics the metrics, or null to record none (default).
+     */
+    public void setMetrics(MrcpServerMetrics metrics) {
+        _metrics = metrics;
+    }
+
+
+    public CompletionStage<MrcpResponse> processRequest(MrcpRequest request, IoSession ioSession) {
         _log.debug("MrcpRequestProcessorImpl.processRequest()...");
 
         MrcpResponse response = null;
 
-        MrcpSessionImpl session = new MrcpSessionImpl(request);
+        final MrcpSessionImpl session = new MrcpSessionImpl(request, ioSession);
 
         try {
-            ChannelIdentifier channelIdentifier = request.getChannelIdentifier();
+            final ChannelIdentifier channelIdentifier = request.getChannelIdentifier();
             if (channelIdentifier == null) { // channel-identifier header missing
                 response = session.createResponse(MrcpResponse.STATUS_MANDATORY_HEADER_MISSING, MrcpRequestState.COMPLETE);
             } else {
-                MrcpRequestHandler requestHandler = _requestHandlers.get(channelIdentifier.toString());
+                AsyncMrcpRequestHandler requestHandler = _requestHandlers.get(channelIdentifier);
                 if (requestHandler == null) { // no available request handler
                     response = session.createResponse(
                             MrcpResponse.STATUS_RESOURCE_NOT_ALLOCATED, MrcpRequestState.COMPLETE);
                 } else {
+                    // a stage that is already complete (e.g. from a synchronous handler) is responded to before the
+                    // lock is released, so events posted meanwhile by other threads wait for the response
                     synchronized (session) {
-                        Exception cause = null;
+                        CompletionStage<MrcpResponse> stage;
                         try {
-                            response = requestHandler.handleRequest(request, session);
+                            stage = requestHandler.handleRequest(request, session);
                         } catch (Exception e) {
-                            cause = e;
+                            CompletableFuture<MrcpResponse> failed = new CompletableFuture<MrcpResponse>();
+                            failed.completeExceptionally(e);
+                            stage = failed;
                         }
-                        if (response == null) {
-                            if (cause == null) {
-                                _log.warn("processRequest(): got NULL response from request handler!");
-                            } else {
-                                _log.warn("processRequest(): got exception from request handler: ", cause);
-                            }
-                            response = session.createResponse(
-                                    MrcpResponse.STATUS_SERVER_INTERNAL_ERROR, MrcpRequestState.COMPLETE);
-                        } else {
-                            _log.debug("MrcpRequestProcessorImpl got response from request handler.");
-                            session._ready = true;
-                            if (response.getRequestState().equals(MrcpRequestState.COMPLETE)) {
-                                session._complete = true;
-                            } else {
-                                _sessions.put(getRequestKey(request), session);
-                            }
+                        if (stage == null) {
+                            stage = CompletableFuture.completedFuture(null);
                         }
+                        return stage.handle(new BiFunction<MrcpResponse, Throwable, MrcpResponse>() {
+                            public MrcpResponse apply(MrcpResponse handlerResponse, Throwable cause) {
+                                return respond(session, channelIdentifier, handlerResponse, cause);
+                            }
+                        });
                     }
                 }
             }
@@ -106,60 +114,154 @@ public class MrcpRequestProcessorImpl implements MrcpRequestProcessor {
             response.addHeader(request.getHeader(MrcpHeaderName.CHANNEL_IDENTIFIER));
         }
 
-
-        return response;
+        // the request is not passed to a handler, any streamed content is discarded so reading is not left suspended
+        request.closeContentStream();
+        ioSession.write(response);
+        return CompletableFuture.completedFuture(response);
     }
 
-    public MrcpRequestHandler registerRequestHandler(String channelID, MrcpRequestHandler requestHandler) {
-        return _requestHandlers.put(channelID, requestHandler);
+    private MrcpResponse respond(MrcpSessionImpl session, ChannelIdentifier channelIdentifier,
+            MrcpResponse response, Throwable cause) {
+        // content the handler has not read by the time it returns its response is discarded
+        session._request.closeContentStream();
+        synchronized (session) {
+            if (response == null) {
+                if (cause == null) {
+                    _log.warn("processRequest(): got NULL response from request handler!");
+                } else {
+                    _log.warn("processRequest(): got exception from request handler: ", cause);
+                }
+                response = session.createResponse(
+                        MrcpResponse.STATUS_SERVER_INTERNAL_ERROR, MrcpRequestState.COMPLETE);
+                session._ioSession.write(response);
+            } else {
+                _log.debug("MrcpRequestProcessorImpl got response from request handler.");
+                // the response must be written before any event can be posted by the request handler
+                session._ioSession.write(response);
+                session._ready = true;
+                if (response.getRequestState().equals(MrcpRequestState.COMPLETE)) {
+                    session._complete = true;
+                } else {
+                    session._requestKey = new RequestKey(channelIdentifier, session._request.getRequestID());
+                    getSessions(session._ioSession).put(session._requestKey, session);
+                    if (session._ioSession.isClosing()) {
+                        // closed meanwhile, connectionClosed() may already have been called
+                        _sessions.remove(session._ioSession);
+                    }
+                }
+                removeStoppedSessions(session._ioSession, channelIdentifier, response);
+            }
+            return response;
+        }
     }
 
-    public MrcpRequestHandler unregisterRequestHandler(String channelID) {
-        return _requestHandlers.remove(channelID);
+    /**
+     * Removes the requests terminated by a response (to a STOP or BARGE-IN-OCCURRED request) listing them in its
+     * Active-Request-Id-List header, since no COMPLETE event is sent for them.
+     */
+    private void removeStoppedSessions(IoSession ioSession, ChannelIdentifier channelIdentifier, MrcpResponse response) {
+        MrcpHeader header = response.getHeader(MrcpHeaderName.ACTIVE_REQUEST_ID_LIST);
+        if (header == null) {
+            return;
+        }
+        ConcurrentMap<RequestKey, MrcpSessionImpl> sessions = _sessions.get(ioSession);
+        if (sessions == null) {
+            return;
+        }
+        try {
+            for (Long requestID : ((RequestIdList) header.getValueObject()).getIdList()) {
+                sessions.remove(new RequestKey(channelIdentifier, requestID));
+            }
+        } catch (IllegalValueException e) {
+            _log.warn("processRequest(): invalid Active-Request-Id-List in response from request handler: ", e);
+        }
     }
 
-    // TODOC: Once this method has returned a null event or an event with MrcpRequestState.COMPLETE
-    //        the method can no longer be called for the same request or an IllegalStateException will be thrown.
-    public MrcpEvent getNextEvent(MrcpRequest request) {
+    private ConcurrentMap<RequestKey, MrcpSessionImpl> getSessions(IoSession ioSession) {
+        ConcurrentMap<RequestKey, MrcpSessionImpl> sessions = _sessions.get(ioSession);
+        if (sessions == null) {
+            sessions = new ConcurrentHashMap<RequestKey, MrcpSessionImpl>();
+            ConcurrentMap<RequestKey, MrcpSessionImpl> existing = _sessions.putIfAbsent(ioSession, sessions);
+            if (existing != null) {
+                sessions = existing;
+            }
+        }
+        return sessions;
+    }
 
-        //lookup event acceptor for this request
-        String requestKey = getRequestKey(request);
-        MrcpSessionImpl session = _sessions.get(requestKey);
-        if (session == null) {
-            throw new IllegalStateException("The specified request has already been completed.");
+    private void removeSession(MrcpSessionImpl session) {
+        ConcurrentMap<RequestKey, MrcpSessionImpl> sessions = _sessions.get(session._ioSession);
+        if (sessions != null) {
+            sessions.remove(session._requestKey, session);
         }
+    }
 
-        // retrieve event
-        _log.debug("getNextEvent(): waiting to take event from queue...");
-        MrcpEvent event = session.takeEvent();
-        _log.debug("getNextEvent(): got event from queue...");
+    public void connectionClosed(IoSession ioSession) {
+        _sessions.remove(ioSession);
+    }
 
-        // remove event acceptor if request is completed by this event
-        if (event == null || event.getRequestState().equals(MrcpRequestState.COMPLETE)) {
-            _log.debug("getNextEvent(): request is complete.");
-            _sessions.remove(requestKey);
+    /**
+     * @return the number of requests that have been responded to with an {@code IN-PROGRESS} or {@code PENDING}
+     *         state and have not yet been completed by an event or terminated by a STOP request.
+     */
+    public int getInProgressRequestCount() {
+        int count = 0;
+        for (ConcurrentMap<RequestKey, MrcpSessionImpl> sessions : _sessions.values()) {
+            count += sessions.size();
         }
+        return count;
+    }
+
+    public AsyncMrcpRequestHandler registerRequestHandler(String channelID, MrcpRequestHandler requestHandler) {
+        return registerAsyncRequestHandler(channelID, new CompletedRequestHandler(requestHandler));
+    }
 
-        return event;
+    public AsyncMrcpRequestHandler registerAsyncRequestHandler(String channelID, AsyncMrcpRequestHandler requestHandler) {
+        return _requestHandlers.put(toChannelIdentifier(channelID), requestHandler);
     }
 
-    private static String getRequestKey(MrcpRequest request) {
-        StringBuilder sb = new StringBuilder(request.getHeader(MrcpHeaderName.CHANNEL_IDENTIFIER).getValueString());
-        sb.append(':').append(request.getRequestID());
-        return sb.toString();
+    public AsyncMrcpRequestHandler unregisterRequestHandler(String channelID) {
+        return _requestHandlers.remove(toChannelIdentifier(channelID));
     }
 
-    private static class MrcpSessionImpl implements MrcpSession {
+    private static ChannelIdentifier toChannelIdentifier(String channelID) {
+        try {
+            return (ChannelIdentifier) MrcpHeaderName.CHANNEL_IDENTIFIER.createHeaderValue(channelID);
+        } catch (IllegalValueException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Adapts a synchronous request handler, its response is returned as an already completed stage.
+     */
+    private static class CompletedRequestHandler implements AsyncMrcpRequestHandler {
+
+        private MrcpRequestHandler _requestHandler;
+
+        CompletedRequestHandler(MrcpRequestHandler requestHandler) {
+            _requestHandler = requestHandler;
+        }
+
+        public CompletionStage<MrcpResponse> handleRequest(MrcpRequest request, MrcpSession session) {
+            return CompletableFuture.completedFuture(_requestHandler.handleRequest(request, session));
+        }
+    }
+
+    private class MrcpSessionImpl implements MrcpSession {
 
-        private BlockingQueue<ObjectWrapper<MrcpEvent>> _eventQueue = new SynchronousQueue<ObjectWrapper<MrcpEvent>>();
-        private Object _lock = new Object();
         boolean _ready = false;
         boolean _complete = false;
+        boolean _eventPosted = false;
+
+        RequestKey _requestKey;  // set when the session is registered as in progress
 
         private MrcpRequest _request;
+        private IoSession _ioSession;
 
-        private MrcpSessionImpl(MrcpRequest request) {
+        private MrcpSessionImpl(MrcpRequest request, IoSession ioSession) {
             _request = request;
+            _ioSession = ioSession;
         }
 
         /* (non-Javadoc)
@@ -201,7 +303,7 @@ public class MrcpRequestProcessorImpl implements MrcpRequestProcessor {
         /* (non-Javadoc)
          * @see org.mrcp4j.server.MrcpSession#postEvent(org.mrcp4j.message.MrcpEvent)
          */
-        public synchronized void postEvent(MrcpEvent event)
+        public synchronized WriteFuture postEvent(MrcpEvent event)
           throws TimeoutException, IllegalStateException, NullPointerException {
             if (!_ready) {
                 throw new IllegalStateException(
@@ -217,51 +319,28 @@ public class MrcpRequestProcessorImpl implements MrcpRequestProcessor {
                 throw new NullPointerException("Event argument was null!");
             }
 
-            BlockingQueue<ObjectWrapper<MrcpEvent>> eventQueue = null;
-            synchronized (_lock) {
-                eventQueue = _eventQueue;
-            }
-            if (eventQueue == null) {
+            if (_ioSession.isClosing()) {
+                _complete = true;
+                removeSession(this);
                 // TODO: change to more appropriate exception type.
                 throw new TimeoutException(
-                    "The MrcpSession has expired due to a period of inactivity."
+                    "The connection to the MRCP client has been closed."
                 );
             }
 
-            try {
-                eventQueue.put(new ObjectWrapper<MrcpEvent>(event));
-                _complete = event.getRequestState().equals(MrcpRequestState.COMPLETE);
-//                if (_complete) {
-//                    _eventQueue.put(new ObjectWrapper<MrcpEvent>(null));
-//                }
-            } catch (InterruptedException e){
-                // TODO: change to more appropriate exception type.
-                throw (TimeoutException) new TimeoutException(e.getMessage()).initCause(e);
-            }
-        }
-
-        /**
-         * TODOC
-         * @return
-         */
-        MrcpEvent takeEvent() {
-            ObjectWrapper<MrcpEvent> eventWrapper = null;
-            try {
-                eventWrapper = _eventQueue.poll(300, TimeUnit.SECONDS);
-                if (eventWrapper == null) {
-                    // make sure no postEvent() in progress
-                    synchronized (_lock) {
-                        eventWrapper = _eventQueue.poll(100, TimeUnit.MILLISECONDS);
-                        if (eventWrapper == null) {
-                            _eventQueue = null;
-                        }
-                    }
+            WriteFuture future = _ioSession.write(event);
+            if (!_eventPosted) {
+                _eventPosted = true;
+                MrcpServerMetrics metrics = _metrics;
+                if (metrics != null && _request.getDecodedTime() != 0) {
+                    metrics.record(MrcpServerMetrics.Stage.FIRST_EVENT, _request, System.nanoTime() - _request.getDecodedTime());
                 }
-            } catch (InterruptedException e){
-                // TODO: propagate exception?
-                _log.warn("takeEvent(): interrupted: ", e);
             }
-            return (eventWrapper == null) ? null : eventWrapper.getObject();
+            if (event.getRequestState().equals(MrcpRequestState.COMPLETE)) {
+                _complete = true;
+                removeSession(this);
+            }
+            return future;
         }
 
     }
@@ -0,0 +1,173 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.server;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.mrcp4j.MrcpMethodName;
+import org.mrcp4j.MrcpResourceType;
+import org.mrcp4j.message.MrcpEvent;
+import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.MrcpServerMessage;
+import org.mrcp4j.message.header.ChannelIdentifier;
+import org.mrcp4j.message.header.IllegalValueException;
+import org.mrcp4j.message.request.MrcpRequest;
+import org.mrcp4j.util.LatencyHistogram;
+
+/**
+ * Records request latencies and response counts of an {@link MrcpServerSocket}.
+ * <p>
+ * A histogram is created on first use for each stage, resource type and method, so recording only costs
+ * an array lookup and the histogram update.  Vendor specific methods are counted as {@code OTHER}, requests
+ * without a valid channel identifier under resource type {@code unknown}.
+ * </p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class MrcpServerMetrics implements MrcpServerMetricsMXBean {
+
+    enum Stage { DECODE, QUEUE_WAIT, HANDLER, FIRST_EVENT }
+
+    private static final MrcpResourceType[] RESOURCE_TYPES = MrcpResourceType.values();
+    private static final MrcpMethodName[] METHOD_NAMES = MrcpMethodName.values();
+    private static final int RESOURCES = RESOURCE_TYPES.length + 1;  // last for unknown
+    private static final int METHODS = METHOD_NAMES.length + 1;      // last for vendor specific
+
+    private final AtomicReferenceArray<LatencyHistogram> _requestLatencies =
+        new AtomicReferenceArray<LatencyHistogram>(Stage.values().length * RESOURCES * METHODS);
+
+    private final LatencyHistogram _responseEncodeLatency = new LatencyHistogram();
+    private final LatencyHistogram _eventEncodeLatency = new LatencyHistogram();
+
+    private final AtomicLongArray _statusCounts = new AtomicLongArray(1000);
+
+    /**
+     * Records the latency of a processing stage of a request.
+     */
+    void record(Stage stage, MrcpRequest request, long nanos) {
+        int index = (stage.ordinal() * RESOURCES + resourceIndexOf(request)) * METHODS + methodIndexOf(request);
+        LatencyHistogram histogram = _requestLatencies.get(index);
+        if (histogram == null) {
+            _requestLatencies.compareAndSet(index, null, new LatencyHistogram());
+            histogram = _requestLatencies.get(index);
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * Records the encoding of a response or event, counting responses by status code.
+     */
+    void recordEncode(MrcpServerMessage message, long nanos) {
+        if (message instanceof MrcpEvent) {
+            _eventEncodeLatency.record(nanos);
+        } else {
+            _responseEncodeLatency.record(nanos);
+            int statusCode = ((MrcpResponse) message).getStatusCode();
+            if (statusCode >= 0 && statusCode < _statusCounts.length()) {
+                _statusCounts.incrementAndGet(statusCode);
+            }
+        }
+    }
+
+    private static int resourceIndexOf(MrcpRequest request) {
+        try {
+            ChannelIdentifier channelIdentifier = request.getChannelIdentifier();
+            if (channelIdentifier != null && channelIdentifier.getResourceType() != null) {
+                return channelIdentifier.getResourceType().ordinal();
+            }
+        } catch (IllegalValueException e) {
+            // counted as unknown
+        }
+        return RESOURCES - 1;
+    }
+
+    private static int methodIndexOf(MrcpRequest request) {
+        MrcpMethodName methodName = request.getMethodName();
+        return (methodName == null) ? METHODS - 1 : methodName.ordinal();
+    }
+
+    private Map<String, LatencyHistogram.Snapshot> getLatency(Stage stage) {
+        Map<String, LatencyHistogram.Snapshot> latency = new TreeMap<String, LatencyHistogram.Snapshot>();
+        int base = stage.ordinal() * RESOURCES * METHODS;
+        for (int resource = 0; resource < RESOURCES; resource++) {
+            for (int method = 0; method < METHODS; method++) {
+                LatencyHistogram histogram = _requestLatencies.get(base + resource * METHODS + method);
+                if (histogram != null) {
+                    String key = ((resource < RESOURCES - 1) ? RESOURCE_TYPES[resource].toString() : "unknown") + '/' +
+                                 ((method < METHODS - 1) ? METHOD_NAMES[method].toString() : "OTHER");
+                    latency.put(key, histogram.getSnapshot());
+                }
+            }
+        }
+        return latency;
+    }
+
+    public Map<String, LatencyHistogram.Snapshot> getDecodeLatency() {
+        return getLatency(Stage.DECODE);
+    }
+
+    public Map<String, LatencyHistogram.Snapshot> getQueueWaitLatency() {
+        return getLatency(Stage.QUEUE_WAIT);
+    }
+
+    public Map<String, LatencyHistogram.Snapshot> getHandlerLatency() {
+        return getLatency(Stage.HANDLER);
+    }
+
+    public Map<String, LatencyHistogram.Snapshot> getFirstEventLatency() {
+        return getLatency(Stage.FIRST_EVENT);
+    }
+
+    public Map<String, LatencyHistogram.Snapshot> getEncodeLatency() {
+        Map<String, LatencyHistogram.Snapshot> latency = new TreeMap<String, LatencyHistogram.Snapshot>();
+        latency.put("response", _responseEncodeLatency.getSnapshot());
+        latency.put("event", _eventEncodeLatency.getSnapshot());
+        return latency;
+    }
+
+    public Map<String, Long> getResponseCounts() {
+        Map<String, Long> counts = new TreeMap<String, Long>();
+        for (int i = 0; i < _statusCounts.length(); i++) {
+            long count = _statusCounts.get(i);
+            if (count > 0) {
+                counts.put(Integer.toString(i), count);
+            }
+        }
+        return counts;
+    }
+
+    public void reset() {
+        for (int i = 0; i < _requestLatencies.length(); i++) {
+            _requestLatencies.set(i, null);
+        }
+        _responseEncodeLatency.reset();
+        _eventEncodeLatency.reset();
+        for (int i = 0; i < _statusCounts.length(); i++) {
+            _statusCounts.set(i, 0);
+        }
+    }
+
+}
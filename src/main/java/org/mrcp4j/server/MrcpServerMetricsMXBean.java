@@ -0,0 +1,76 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.server;
+
+import java.util.Map;
+
+import org.mrcp4j.util.LatencyHistogram;
+
+/**
+ * Management interface of the request metrics of an {@link MrcpServerSocket}.
+ * <p>
+ * Request latencies are keyed by resource type and method name, e.g. {@code speechrecog/RECOGNIZE}, all
+ * latencies are in nanoseconds.
+ * </p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public interface MrcpServerMetricsMXBean {
+
+    /**
+     * @return the time from decoding the request-line of a request to passing on the complete request.
+     */
+    public Map<String, LatencyHistogram.Snapshot> getDecodeLatency();
+
+    /**
+     * @return the time a decoded request waited for an executor thread.
+     */
+    public Map<String, LatencyHistogram.Snapshot> getQueueWaitLatency();
+
+    /**
+     * @return the time from calling the request handler to writing its response.
+     */
+    public Map<String, LatencyHistogram.Snapshot> getHandlerLatency();
+
+    /**
+     * @return the time from decoding a request to posting its first event.
+     */
+    public Map<String, LatencyHistogram.Snapshot> getFirstEventLatency();
+
+    /**
+     * @return the time taken to encode responses and events (or to copy them on in-JVM connections), keyed by
+     *         {@code response} and {@code event}.
+     */
+    public Map<String, LatencyHistogram.Snapshot> getEncodeLatency();
+
+    /**
+     * @return the number of responses written, keyed by status code.
+     */
+    public Map<String, Long> getResponseCounts();
+
+    /**
+     * Discards all recorded latencies and counts.
+     */
+    public void reset();
+
+}
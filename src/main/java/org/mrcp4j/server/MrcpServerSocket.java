@@ -23,26 +23,46 @@
 package org.mrcp4j.server;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeoutException;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 import org.apache.mina.core.service.IoAcceptor;
 import org.apache.mina.filter.codec.ProtocolCodecFilter;
 import org.apache.mina.transport.socket.nio.NioSocketAcceptor;
+import org.apache.mina.transport.vmpipe.VmPipeAcceptor;
+import org.apache.mina.transport.vmpipe.VmPipeAddress;
 import java.net.InetSocketAddress;
 import org.mrcp4j.MrcpEventName;
 import org.mrcp4j.MrcpRequestState;
 import org.mrcp4j.MrcpResourceType;
 import org.mrcp4j.message.MrcpEvent;
+import org.mrcp4j.message.MrcpMessage;
 import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.MrcpServerMessage;
+import org.mrcp4j.message.codec.MrcpMessageCopyFilter;
 import org.mrcp4j.message.request.MrcpRequest;
+import org.mrcp4j.server.delegator.AsyncRecogOnlyRequestDelegator;
+import org.mrcp4j.server.delegator.AsyncRecorderRequestDelegator;
+import org.mrcp4j.server.delegator.AsyncSpeakVerifyRequestDelegator;
+import org.mrcp4j.server.delegator.AsyncSpeechSynthRequestDelegator;
+import org.mrcp4j.server.delegator.AsyncVoiceEnrollmentRequestDelegator;
 import org.mrcp4j.server.delegator.RecogOnlyRequestDelegator;
 import org.mrcp4j.server.delegator.RecorderRequestDelegator;
 import org.mrcp4j.server.delegator.SpeakVerifyRequestDelegator;
 import org.mrcp4j.server.delegator.SpeechSynthRequestDelegator;
 import org.mrcp4j.server.delegator.VoiceEnrollmentRequestDelegator;
 import org.mrcp4j.server.mina.IoTextLoggingFilter;
+import org.mrcp4j.server.provider.AsyncRecogOnlyRequestHandler;
+import org.mrcp4j.server.provider.AsyncRecorderRequestHandler;
+import org.mrcp4j.server.provider.AsyncSpeakVerifyRequestHandler;
+import org.mrcp4j.server.provider.AsyncSpeechSynthRequestHandler;
+import org.mrcp4j.server.provider.AsyncVoiceEnrollmentRequestHandler;
 import org.mrcp4j.server.provider.RecogOnlyRequestHandler;
 import org.mrcp4j.server.provider.RecorderRequestHandler;
 import org.mrcp4j.server.provider.SpeakVerifyRequestHandler;
@@ -50,6 +70,13 @@ import org.mrcp4j.server.provider.SpeechSynthRequestHandler;
 import org.mrcp4j.server.provider.VoiceEnrollmentRequestHandler;
 
 /**
+ * Accepts MRCPv2 connections on a TCP port and dispatches the requests received to the request handlers of the
+ * open channels.
+ * <p>
+ * Once {@link #bindLocal()} has been called, clients in the same JVM can also connect in-process using
+ * {@link org.mrcp4j.client.MrcpProvider#PROTOCOL_LOCAL_MRCPv2} with the same port number, in which case
+ * messages are passed as objects without being encoded or going through a socket.
+ * </p>
  *
  * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
  */
@@ -57,10 +84,13 @@ public class MrcpServerSocket {
 
 	private static Logger _log = LogManager.getLogger(MrcpServerSocket.class);
 
-    private static MrcpCodecFactory CODEC_FACTORY = new MrcpCodecFactory();
-
+    private MrcpServerMetrics _metrics = new MrcpServerMetrics();
+    private ObjectName _metricsName;
+    private MrcpCodecFactory _codecFactory = new MrcpCodecFactory();
     private MrcpRequestProcessorImpl _requestProcessorImpl;
     private IoAcceptor _acceptor;
+    private IoAcceptor _localAcceptor;
+    private MrcpProtocolHandler _protocolHandler;
     private int _port;
 
     /**
@@ -70,39 +100,199 @@ public class MrcpServerSocket {
      * @throws IOException if an I/O error occurs when opening the socket.
      */
     public MrcpServerSocket(int port) throws IOException {
-        _port = port;
+        this(port, null);
+    }
+
+    /**
+     * Creates a MRCP server socket, bound to the specified port, that processes requests on the specified executor.
+     * <p>
+     * A request occupies an executor thread only until its request handler has returned the response, events
+     * are written by the thread posting them.
+     * </p>
+     *
+     * @param port the port number to bind to
+     * @param executor the executor on which requests are processed, or null to use a default thread pool
+     * @throws IOException if an I/O error occurs when opening the socket.
+     */
+    public MrcpServerSocket(int port, Executor executor) throws IOException {
+        this(new InetSocketAddress(port), executor);
+    }
+
+    /**
+     * Creates a MRCP server socket, bound to the specified local address, that processes requests on the
+     * specified executor.  Binding to the loopback address restricts the socket to clients on the same host,
+     * binding to port 0 selects a free port which can be retrieved with {@link #getPort()}.
+     *
+     * @param address the local address and port to bind to
+     * @param executor the executor on which requests are processed, or null to use a default thread pool
+     * @throws IOException if an I/O error occurs when opening the socket.
+     */
+    public MrcpServerSocket(InetSocketAddress address, Executor executor) throws IOException {
+        this(address, executor, MrcpProtocolHandler.DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Creates a MRCP server socket, bound to the specified local address, that processes requests on a default
+     * thread pool whose queue holds the specified number of requests.  Requests received while the queue is full
+     * are answered with status 501 (server internal error).
+     *
+     * @param address the local address and port to bind to
+     * @param queueCapacity the number of received requests that may wait for a thread
+     * @throws IOException if an I/O error occurs when opening the socket.
+     */
+    public MrcpServerSocket(InetSocketAddress address, int queueCapacity) throws IOException {
+        this(address, null, queueCapacity);
+    }
 
+    private MrcpServerSocket(InetSocketAddress address, Executor executor, int queueCapacity) throws IOException {
         _requestProcessorImpl = new MrcpRequestProcessorImpl();
+        _requestProcessorImpl.setMetrics(_metrics);
+        _codecFactory.setMetrics(_metrics);
 
         // Create acceptor
-        _acceptor = new NioSocketAcceptor();
+        NioSocketAcceptor acceptor = new NioSocketAcceptor();
+        acceptor.setReuseAddress(true);
+        // requests and responses are small and latency bound, so do not let Nagle's algorithm hold them back
+        acceptor.getSessionConfig().setTcpNoDelay(true);
+        _acceptor = acceptor;
         
         // Add logging filter
         _acceptor.getFilterChain().addLast("logger", new IoTextLoggingFilter());
         
         // Add codec filter
-        _acceptor.getFilterChain().addLast("codec", new ProtocolCodecFilter(CODEC_FACTORY));
+        _acceptor.getFilterChain().addLast("codec", new ProtocolCodecFilter(_codecFactory));
         
         // Set handler
-        _acceptor.setHandler(new MrcpProtocolHandler(_requestProcessorImpl));
+        _protocolHandler = (executor == null) ?
+            new MrcpProtocolHandler(_requestProcessorImpl, queueCapacity) :
+            new MrcpProtocolHandler(_requestProcessorImpl, executor);
+        _protocolHandler.setMetrics(_metrics);
+        _acceptor.setHandler(_protocolHandler);
         
         // Bind to port
-        _acceptor.bind(new InetSocketAddress(port));
+        try {
+            _acceptor.bind(address);
+        } catch (IOException e) {
+            _acceptor.dispose();
+            _protocolHandler.dispose();
+            throw e;
+        }
+        _port = acceptor.getLocalAddress().getPort();
 
         if (_log.isDebugEnabled()) {
-            _log.debug("MRCPv2 protocol provider listening on port " + port);
+            _log.debug("MRCPv2 protocol provider listening on " + acceptor.getLocalAddress());
+        }
+
+        registerMetrics(acceptor.getLocalAddress());
+    }
+
+    /**
+     * Accepts in-JVM connections from {@link org.mrcp4j.client.MrcpProvider#PROTOCOL_LOCAL_MRCPv2} channels
+     * created with the port number of this socket, in addition to TCP connections.  Messages on these connections
+     * are passed to the peer as copies of the message objects instead of being encoded, the time taken by the
+     * copies is recorded as the decode and encode latencies in the {@link #getMetrics() metrics}.
+     * @throws IOException if another server socket of this JVM already accepts in-JVM connections on the same
+     *         port number (e.g. one bound to the same port on a different local address).
+     */
+    public synchronized void bindLocal() throws IOException {
+        if (_localAcceptor != null) {
+            return;
+        }
+        VmPipeAcceptor localAcceptor = new VmPipeAcceptor();
+        localAcceptor.getFilterChain().addLast("copy", new MrcpMessageCopyFilter() {
+            @Override
+            protected void messageCopied(MrcpMessage copy, long nanos) {
+                // the copy takes the place of encoding, so responses are counted the same as on TCP connections
+                _metrics.recordEncode((MrcpServerMessage) copy, nanos);
+            }
+        });
+        localAcceptor.setHandler(_protocolHandler);
+        try {
+            localAcceptor.bind(new VmPipeAddress(_port));
+        } catch (IOException e) {
+            localAcceptor.dispose();
+            throw e;
         }
+        _localAcceptor = localAcceptor;
+    }
 
+    private void registerMetrics(InetSocketAddress address) {
+        try {
+            // sockets may share a port number on different local addresses
+            ObjectName name = new ObjectName("org.mrcp4j:type=MrcpServerSocket,address=" +
+                    ObjectName.quote(address.getAddress().getHostAddress()) + ",port=" + _port);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(_metrics, name);
+            _metricsName = name;
+        } catch (JMException e) {
+            _log.warn("Unable to register metrics MBean for " + address + ": " + e.getMessage());
+        }
     }
 
     /**
-     * TODOC
-     * @return Returns the port.
+     * Returns the request metrics of this server socket, which are also registered with the platform MBean
+     * server as {@code org.mrcp4j:type=MrcpServerSocket,address="<address>",port=<port>}, where the address is
+     * the local IP address the socket is bound to (such as {@code 0.0.0.0} for the wildcard address).
+     * @return the request latencies and response counts recorded by this server socket.
+     */
+    public MrcpServerMetrics getMetrics() {
+        return _metrics;
+    }
+
+    /**
+     * @return the port the socket is bound to.
      */
     public int getPort() {
         return _port;
     }
 
+    /**
+     * @return the number of received requests waiting for an executor thread.
+     */
+    public int getPendingRequestCount() {
+        return _protocolHandler.getPendingRequestCount();
+    }
+
+    /**
+     * @return the number of requests currently being handled by a request handler.
+     */
+    public int getActiveRequestCount() {
+        return _protocolHandler.getActiveRequestCount();
+    }
+
+    /**
+     * @return the number of requests responded to as in progress that have not yet been completed by an event.
+     */
+    public int getInProgressRequestCount() {
+        return _requestProcessorImpl.getInProgressRequestCount();
+    }
+
+    /**
+     * Sets the size limits for requests received on connections accepted from now on.  A request exceeding a
+     * limit is answered with status 504 (message too large) as soon as its headers have been decoded and its
+     * body is skipped without being buffered.
+     * @param maxMessageLength the maximum message-length in bytes.
+     * @param maxHeaderCount   the maximum number of header lines.
+     * @param maxLineLength    the maximum length in bytes of the request-line and of each header line.
+     */
+    public void setMessageLimits(int maxMessageLength, int maxHeaderCount, int maxLineLength) {
+        _codecFactory.setLimits(maxMessageLength, maxHeaderCount, maxLineLength);
+    }
+
+    /**
+     * Enables streaming of large request bodies for connections accepted from now on.  A request whose
+     * Content-Length is at least the threshold is passed to its request handler as soon as its headers have
+     * arrived, the handler reads the body from {@link org.mrcp4j.message.MrcpMessage#getContentStream()}
+     * before its response is returned, the rest of the body is discarded once the response has been returned (or
+     * immediately if the request is answered without a handler).  Reading from the connection is suspended while
+     * more than the buffer size of the body is waiting to be read.
+     * @param threshold the minimum content length of streamed requests in bytes, or 0 to disable streaming (default).
+     * @param bufferSize the number of content bytes buffered per connection before reading is suspended.
+     */
+    public void setContentStreaming(int threshold, int bufferSize) {
+        _codecFactory.setStreamingBufferSize(bufferSize);
+        _codecFactory.setStreamingThreshold(threshold);
+    }
+
     public void openChannel(String channelID, RecogOnlyRequestHandler requestHandler) {
         validateChannelID(channelID, RecogOnlyRequestHandler.RESOURCE_TYPES);
         openChannel(channelID, new RecogOnlyRequestDelegator(requestHandler));
@@ -127,7 +317,32 @@ public class MrcpServerSocket {
         validateChannelID(channelID, RecorderRequestHandler.RESOURCE_TYPES);
         openChannel(channelID, new RecorderRequestDelegator(requestHandler));
     }
-    
+
+    public void openChannel(String channelID, AsyncRecogOnlyRequestHandler requestHandler) {
+        validateChannelID(channelID, AsyncRecogOnlyRequestHandler.RESOURCE_TYPES);
+        openAsyncChannel(channelID, new AsyncRecogOnlyRequestDelegator(requestHandler));
+    }
+
+    public void openChannel(String channelID, AsyncVoiceEnrollmentRequestHandler requestHandler) {
+        validateChannelID(channelID, AsyncVoiceEnrollmentRequestHandler.RESOURCE_TYPES);
+        openAsyncChannel(channelID, new AsyncVoiceEnrollmentRequestDelegator(requestHandler));
+    }
+
+    public void openChannel(String channelID, AsyncSpeechSynthRequestHandler requestHandler) {
+        validateChannelID(channelID, AsyncSpeechSynthRequestHandler.RESOURCE_TYPES);
+        openAsyncChannel(channelID, new AsyncSpeechSynthRequestDelegator(requestHandler));
+    }
+
+    public void openChannel(String channelID, AsyncSpeakVerifyRequestHandler requestHandler) {
+        validateChannelID(channelID, AsyncSpeakVerifyRequestHandler.RESOURCE_TYPES);
+        openAsyncChannel(channelID, new AsyncSpeakVerifyRequestDelegator(requestHandler));
+    }
+
+    public void openChannel(String channelID, AsyncRecorderRequestHandler requestHandler) {
+        validateChannelID(channelID, AsyncRecorderRequestHandler.RESOURCE_TYPES);
+        openAsyncChannel(channelID, new AsyncRecorderRequestDelegator(requestHandler));
+    }
+
     private static void validateChannelID(String channelID, MrcpResourceType[] expected) {
         MrcpResourceType actual = MrcpResourceType.fromChannelID(channelID);
         for (MrcpResourceType type : expected) {
@@ -145,14 +360,32 @@ public class MrcpServerSocket {
         _requestProcessorImpl.registerRequestHandler(channelID, requestHandler);
     }
 
+    private void openAsyncChannel(String channelID, AsyncMrcpRequestHandler requestHandler) {
+        _requestProcessorImpl.registerAsyncRequestHandler(channelID, requestHandler);
+    }
+
     public void closeChannel(String channelID) {
         _requestProcessorImpl.unregisterRequestHandler(channelID);
     }
 
-    public void dispose() {
+    public synchronized void dispose() {
+        if (_metricsName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(_metricsName);
+            } catch (JMException e) {
+                _log.debug(e, e);
+            }
+            _metricsName = null;
+        }
         if (_acceptor != null) {
             _acceptor.dispose();
         }
+        if (_localAcceptor != null) {
+            _localAcceptor.dispose();
+        }
+        if (_protocolHandler != null) {
+            _protocolHandler.dispose();
+        }
     }
 
     public static void main(String[] args) throws Exception {
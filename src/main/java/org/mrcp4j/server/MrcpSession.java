@@ -29,6 +29,8 @@ import org.mrcp4j.message.MrcpResponse;
 
 import java.util.concurrent.TimeoutException;
 
+import org.apache.mina.core.future.WriteFuture;
+
 /**
  *
  * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
@@ -39,7 +41,16 @@ public interface MrcpSession {
 
     public MrcpEvent createEvent(MrcpEventName eventName, MrcpRequestState requestState);
 
-    public void postEvent(MrcpEvent event)
+    /**
+     * Writes an event for the request to the MRCP client.  The event is written directly to the client connection
+     * by the calling thread; the returned future can be used to wait for or be notified of the completion of the write.
+     * @param event the event to send.
+     * @return the future of the write operation.
+     * @throws TimeoutException if the connection to the MRCP client has been closed.
+     * @throws IllegalStateException if the response has not been returned yet or the request has already reached
+     *         the {@code COMPLETE} state.
+     */
+    public WriteFuture postEvent(MrcpEvent event)
       throws TimeoutException, IllegalStateException;  //TODO: should not throw TimeoutException
 
 }
@@ -0,0 +1,78 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.server.provider;
+
+import java.util.concurrent.CompletionStage;
+
+import org.mrcp4j.MrcpResourceType;
+import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.request.StopRequest;
+import org.mrcp4j.message.request.MrcpRequestFactory.UnimplementedRequest;
+import org.mrcp4j.server.MrcpSession;
+
+/**
+ * Asynchronous counterpart of {@link SpeakVerifyRequestHandler}, each method returns a stage that completes with the response.
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public interface AsyncSpeakVerifyRequestHandler extends AsyncGenericRequestHandler {
+
+    public static final MrcpResourceType[] RESOURCE_TYPES = SpeakVerifyRequestHandler.RESOURCE_TYPES;
+
+/*
+   verifier-method          = "START-SESSION"           ; A
+                            / "END-SESSION"             ; B
+                            / "QUERY-VOICEPRINT"        ; C
+                            / "DELETE-VOICEPRINT"       ; D
+                            / "VERIFY"                  ; E
+                            / "VERIFY-FROM-BUFFER"      ; F
+                            / "VERIFY-ROLLBACK"         ; G
+                            / "STOP"                    ; H
+                            / "CLEAR-BUFFER"            ; I
+                            / "START-INPUT-TIMERS"      ; J
+                            / "GET-INTERMEDIATE-RESULT" ; K
+*/
+
+    public CompletionStage<MrcpResponse> startSession(UnimplementedRequest request, MrcpSession session);
+
+    public CompletionStage<MrcpResponse> endSession(UnimplementedRequest request, MrcpSession session);
+
+    public CompletionStage<MrcpResponse> queryVoiceprint(UnimplementedRequest request, MrcpSession session);
+
+    public CompletionStage<MrcpResponse> deleteVoiceprint(UnimplementedRequest request, MrcpSession session);
+
+    public CompletionStage<MrcpResponse> verify(UnimplementedRequest request, MrcpSession session);
+
+    public CompletionStage<MrcpResponse> verifyFromBuffer(UnimplementedRequest request, MrcpSession session);
+
+    public CompletionStage<MrcpResponse> verifyRollback(UnimplementedRequest request, MrcpSession session);
+
+    public CompletionStage<MrcpResponse> stop(StopRequest request, MrcpSession session);
+
+    public CompletionStage<MrcpResponse> clearBuffer(UnimplementedRequest request, MrcpSession session);
+
+    public CompletionStage<MrcpResponse> startInputTimers(UnimplementedRequest request, MrcpSession session);
+
+    public CompletionStage<MrcpResponse> getIntermediateResult(UnimplementedRequest request, MrcpSession session);
+
+}
@@ -0,0 +1,194 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Immutable, case-insensitive lookup table from ASCII tokens (such as MRCP header field-names or method names)
+ * to values.  Tokens can be looked up directly from a range of bytes in a {@link java.nio.ByteBuffer} as well as
+ * from (a range of) a string, no lookup allocates and unknown tokens simply return null.
+ * <p>
+ * The table uses open addressing with linear probing over the upper-case form of each token and is kept at most
+ * half full, so a lookup usually compares a single candidate.
+ * </p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ *
+ * @param <T> type of the values in the table
+ */
+public class AsciiTokenTable<T> {
+
+    private byte[][] _tokens;
+    private Object[] _values;
+    private int _mask;
+
+    /**
+     * Constructs a table mapping the {@code toString()} form of each value to the value itself.
+     * @param values the values to be looked up, typically the constants of an enum.
+     * @throws IllegalArgumentException if two values have the same token (ignoring case) or a token
+     *         contains non-ASCII characters.
+     */
+    public AsciiTokenTable(T[] values) throws IllegalArgumentException {
+        int capacity = 4;
+        while (capacity < values.length * 2) {
+            capacity <<= 1;
+        }
+        _tokens = new byte[capacity][];
+        _values = new Object[capacity];
+        _mask = capacity - 1;
+
+        for (T value : values) {
+            byte[] token = toUpperCaseBytes(value.toString());
+            int i = hash(token) & _mask;
+            while (_tokens[i] != null) {
+                if (matches(_tokens[i], token)) {
+                    throw new IllegalArgumentException("Duplicate token: " + value);
+                }
+                i = (i + 1) & _mask;
+            }
+            _tokens[i] = token;
+            _values[i] = value;
+        }
+    }
+
+    /**
+     * Looks up a token, ignoring case.
+     * @param token the token to look up.
+     * @return the value for the token, or null if the token is null or not in the table.
+     */
+    public T get(CharSequence token) {
+        return (token == null) ? null : get(token, 0, token.length());
+    }
+
+    /**
+     * Looks up the token in a range of characters, ignoring case.
+     * @param chars  characters containing the token.
+     * @param start  index of the first character of the token.
+     * @param end    index following the last character of the token.
+     * @return the value for the token, or null if the token is not in the table.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(CharSequence chars, int start, int end) {
+        int length = end - start;
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            char c = chars.charAt(i);
+            if (c > 0x7f) {
+                return null;
+            }
+            h = 31 * h + toUpperCase((byte) c);
+        }
+
+        for (int i = spread(h) & _mask; _tokens[i] != null; i = (i + 1) & _mask) {
+            byte[] candidate = _tokens[i];
+            if (candidate.length == length && matches(candidate, chars, start)) {
+                return (T) _values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Looks up the token in a range of bytes, ignoring case.  The position of the buffer is left unchanged.
+     * @param buf    buffer containing the token.
+     * @param start  index of the first byte of the token.
+     * @param end    index following the last byte of the token.
+     * @return the value for the token, or null if the token is not in the table.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(ByteBuffer buf, int start, int end) {
+        int length = end - start;
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + toUpperCase(buf.get(i));
+        }
+
+        for (int i = spread(h) & _mask; _tokens[i] != null; i = (i + 1) & _mask) {
+            byte[] candidate = _tokens[i];
+            if (candidate.length == length && matches(candidate, buf, start)) {
+                return (T) _values[i];
+            }
+        }
+        return null;
+    }
+
+    private static int hash(byte[] token) {
+        int h = 0;
+        for (byte b : token) {
+            h = 31 * h + b;
+        }
+        return spread(h);
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(byte[] candidate, byte[] token) {
+        if (candidate.length != token.length) {
+            return false;
+        }
+        for (int i = 0; i < candidate.length; i++) {
+            if (candidate[i] != token[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(byte[] candidate, CharSequence chars, int start) {
+        for (int i = 0; i < candidate.length; i++) {
+            if (candidate[i] != toUpperCase((byte) chars.charAt(start + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(byte[] candidate, ByteBuffer buf, int start) {
+        for (int i = 0; i < candidate.length; i++) {
+            if (candidate[i] != toUpperCase(buf.get(start + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte toUpperCase(byte b) {
+        return (b >= 'a' && b <= 'z') ? (byte) (b - ('a' - 'A')) : b;
+    }
+
+    private static byte[] toUpperCaseBytes(String token) {
+        byte[] bytes = new byte[token.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            char c = token.charAt(i);
+            if (c > 0x7f) {
+                throw new IllegalArgumentException("Token is not ASCII: " + token);
+            }
+            bytes[i] = toUpperCase((byte) c);
+        }
+        return bytes;
+    }
+
+}
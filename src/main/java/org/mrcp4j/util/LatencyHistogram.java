@@ -0,0 +1,207 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds.
+ * <p>
+ * Values are counted in log-linear buckets, eight per power of two, so recording is a few arithmetic
+ * operations and one atomic increment, and percentiles are reported with a relative error of at most 12.5%.
+ * Values of about 18 minutes and more are counted in the last bucket.
+ * </p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray _buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong _count = new AtomicLong();
+    private final AtomicLong _sum = new AtomicLong();
+    private final AtomicLong _max = new AtomicLong();
+
+    /**
+     * Records a latency.
+     * @param nanos the latency in nanoseconds, negative values are counted as 0.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        _buckets.incrementAndGet(bucketOf(nanos));
+        _count.incrementAndGet();
+        _sum.addAndGet(nanos);
+        long max = _max.get();
+        while (nanos > max && !_max.compareAndSet(max, nanos)) {
+            max = _max.get();
+        }
+    }
+
+    /**
+     * @return the number of recorded latencies.
+     */
+    public long getCount() {
+        return _count.get();
+    }
+
+    /**
+     * Returns an upper bound of the latency below which the specified fraction of the recorded latencies falls.
+     * @param fraction the fraction of latencies, between 0 and 1.
+     * @return the latency in nanoseconds, or 0 if nothing has been recorded.
+     */
+    public long getPercentile(double fraction) {
+        long count = 0;
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = _buckets.get(i);
+            count += counts[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), _max.get());
+            }
+        }
+        return _max.get();
+    }
+
+    /**
+     * @return the current count, mean, median, 90th, 99th percentile and maximum of the recorded latencies.
+     */
+    public Snapshot getSnapshot() {
+        long count = _count.get();
+        return new Snapshot(count, (count == 0) ? 0 : _sum.get() / count,
+                getPercentile(0.5), getPercentile(0.9), getPercentile(0.99), _max.get());
+    }
+
+    /**
+     * Discards all recorded latencies.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            _buckets.set(i, 0);
+        }
+        _count.set(0);
+        _sum.set(0);
+        _max.set(0);
+    }
+
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = bucket % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((SUB_BUCKETS + subBucket) * width) + width - 1;
+    }
+
+    /**
+     * Summary of the latencies recorded by a histogram, in nanoseconds.
+     */
+    public static class Snapshot {
+
+        private final long _count;
+        private final long _mean;
+        private final long _median;
+        private final long _percentile90;
+        private final long _percentile99;
+        private final long _max;
+
+        public Snapshot(long count, long mean, long median, long percentile90, long percentile99, long max) {
+            _count = count;
+            _mean = mean;
+            _median = median;
+            _percentile90 = percentile90;
+            _percentile99 = percentile99;
+            _max = max;
+        }
+
+        public long getCount() {
+            return _count;
+        }
+
+        public long getMean() {
+            return _mean;
+        }
+
+        public long getMedian() {
+            return _median;
+        }
+
+        public long getPercentile90() {
+            return _percentile90;
+        }
+
+        public long getPercentile99() {
+            return _percentile99;
+        }
+
+        public long getMax() {
+            return _max;
+        }
+
+        /**
+         * Reconstructs a snapshot from its MXBean representation, e.g. for an MXBean proxy.
+         * @param data the composite data mapped from a snapshot.
+         * @return the snapshot.
+         */
+        public static Snapshot from(CompositeData data) {
+            return new Snapshot((Long) data.get("count"), (Long) data.get("mean"), (Long) data.get("median"),
+                    (Long) data.get("percentile90"), (Long) data.get("percentile99"), (Long) data.get("max"));
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + _count + " mean=" + _mean + " p50=" + _median + " p90=" + _percentile90 +
+                   " p99=" + _percentile99 + " max=" + _max + " (ns)";
+        }
+    }
+
+}
@@ -23,6 +23,10 @@
 package org.mrcp4j;
 
 import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 import org.junit.Test;
 
 /**
@@ -150,4 +154,12 @@ public class MrcpMethodNameTest {
     public void testEnumValueOfInvalid() {
         MrcpMethodName.valueOf("INVALID_METHOD");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLookupFromBytes() {
+        ByteBuffer buf = ByteBuffer.wrap("MRCP/2.0 123 set-params 1".getBytes(StandardCharsets.US_ASCII));
+        assertSame(MrcpMethodName.SET_PARAMS, MrcpMethodName.lookup(buf, 13, 23));
+        assertNull(MrcpMethodName.lookup(buf, 13, 22));
+        assertNull(MrcpMethodName.lookup(buf, 0, 8));
+    }
+}
@@ -173,4 +173,11 @@ public class MrcpResourceTypeTest {
     public void testEnumValueOfInvalid() {
         MrcpResourceType.valueOf("INVALID_RESOURCE");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLookupFromCharacterRange() {
+        assertSame(MrcpResourceType.SPEECHSYNTH, MrcpResourceType.lookup("123@SpeechSynth", 4, 15));
+        assertNull(MrcpResourceType.lookup("123@SpeechSynth", 3, 15));
+        assertNull(MrcpResourceType.lookup("123@SpeechSynth", 4, 4));
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.client;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.filter.codec.ProtocolCodecSession;
+import org.junit.Before;
+import org.junit.Test;
+import org.mrcp4j.MrcpEventName;
+import org.mrcp4j.MrcpRequestState;
+import org.mrcp4j.message.MrcpEvent;
+import org.mrcp4j.message.MrcpMessage;
+import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.codec.MrcpMessageWriter;
+import org.mrcp4j.message.header.MrcpHeaderName;
+
+/**
+ * Unit tests for {@link MrcpMessageDecoder}.
+ */
+public class MrcpMessageDecoderTest {
+
+    private MrcpMessageDecoder _decoder;
+    private ProtocolCodecSession _session;
+
+    @Before
+    public void setUp() {
+        _decoder = new MrcpMessageDecoder();
+        // the dummy session reports no fragmentation, force the cumulative code path anyway
+        _decoder.setTransportMetadataFragmentation(false);
+        _session = new ProtocolCodecSession();
+    }
+
+    private static byte[] encode(MrcpMessage message) {
+        ByteBuffer buf = ByteBuffer.allocate(MrcpMessageWriter.prepare(message));
+        MrcpMessageWriter.write(message, buf);
+        return buf.array();
+    }
+
+    private void decode(byte[] data, int offset, int length) throws Exception {
+        _decoder.decode(_session, IoBuffer.wrap(data, offset, length), _session.getDecoderOutput());
+    }
+
+    @Test
+    public void testResponseAndEventSplitAcrossReads() throws Exception {
+        MrcpResponse response = new MrcpResponse();
+        response.setVersion(MrcpMessage.MRCP_VERSION_2_0);
+        response.setRequestID(5);
+        response.setStatusCode(MrcpResponse.STATUS_SUCCESS);
+        response.setRequestState(MrcpRequestState.IN_PROGRESS);
+        response.addHeader(MrcpHeaderName.CHANNEL_IDENTIFIER.createHeader("32AECB23433801@speechrecog"));
+
+        MrcpEvent event = new MrcpEvent();
+        event.setVersion(MrcpMessage.MRCP_VERSION_2_0);
+        event.setEventName(MrcpEventName.RECOGNITION_COMPLETE);
+        event.setRequestID(5);
+        event.setRequestState(MrcpRequestState.COMPLETE);
+        event.addHeader(MrcpHeaderName.CHANNEL_IDENTIFIER.createHeader("32AECB23433801@speechrecog"));
+        event.setContent("application/x-nlsml", null, "<result/>");
+
+        byte[] first = encode(response);
+        byte[] second = encode(event);
+        byte[] data = new byte[first.length + second.length];
+        System.arraycopy(first, 0, data, 0, first.length);
+        System.arraycopy(second, 0, data, first.length, second.length);
+
+        Queue<Object> output = _session.getDecoderOutputQueue();
+        for (int offset = 0; offset < data.length; offset += 7) {
+            decode(data, offset, Math.min(7, data.length - offset));
+        }
+
+        assertEquals(2, output.size());
+        MrcpResponse decodedResponse = (MrcpResponse) output.poll();
+        assertEquals(5, decodedResponse.getRequestID());
+        assertEquals(MrcpRequestState.IN_PROGRESS, decodedResponse.getRequestState());
+        assertEquals("32AECB23433801@speechrecog", decodedResponse.getChannelIdentifier().toString());
+
+        MrcpEvent decodedEvent = (MrcpEvent) output.poll();
+        assertEquals(MrcpEventName.RECOGNITION_COMPLETE, decodedEvent.getEventName());
+        assertEquals(MrcpRequestState.COMPLETE, decodedEvent.getRequestState());
+        assertEquals(event.getContent(), decodedEvent.getContent());
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.client;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Queue;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.filter.codec.ProtocolCodecSession;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mrcp4j.MrcpMethodName;
+import org.mrcp4j.message.MrcpMessage;
+import org.mrcp4j.message.header.MrcpHeaderName;
+import org.mrcp4j.message.request.MrcpRequest;
+import org.mrcp4j.message.request.MrcpRequestFactory;
+
+/**
+ * Unit tests for {@link MrcpRequestEncoder}.
+ */
+public class MrcpRequestEncoderTest {
+
+    @Rule
+    public TemporaryFolder _folder = new TemporaryFolder();
+
+    private static MrcpRequest createRequest() {
+        MrcpRequest request = MrcpRequestFactory.createRequest(MrcpMethodName.DEFINE_GRAMMAR);
+        request.setVersion(MrcpMessage.MRCP_VERSION_2_0);
+        request.setRequestID(12);
+        request.addHeader(MrcpHeaderName.CHANNEL_IDENTIFIER.createHeader("32AECB23433801@speechrecog"));
+        return request;
+    }
+
+    private static String encode(MrcpRequest request, int expectedBuffers) throws Exception {
+        ProtocolCodecSession session = new ProtocolCodecSession();
+        new MrcpRequestEncoder().encode(session, request, session.getEncoderOutput());
+        Queue<Object> output = session.getEncoderOutputQueue();
+        assertEquals(expectedBuffers, output.size());
+        StringBuilder sb = new StringBuilder();
+        for (Object buffer : output) {
+            IoBuffer bytes = (IoBuffer) buffer;
+            byte[] b = new byte[bytes.remaining()];
+            bytes.get(b);
+            sb.append(new String(b, StandardCharsets.UTF_8));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testEncodeStringContent() throws Exception {
+        MrcpRequest request = createRequest();
+        request.setContent("application/srgs+xml", null, "<grammar/>");
+        String encoded = encode(request, 1);
+        assertEquals(request.toString(), encoded);
+    }
+
+    @Test
+    public void testEncodeFileContent() throws Exception {
+        String grammar = "<grammar>\u00e9</grammar>\r\n";
+        File file = _folder.newFile("grammar.grxml");
+        Files.write(file.toPath(), grammar.getBytes(StandardCharsets.UTF_8));
+
+        MrcpRequest request = createRequest();
+        request.setContent("application/srgs+xml", "grammar@example.com", file.toPath());
+        assertEquals(Long.toString(file.length()),
+                request.getHeader(MrcpHeaderName.CONTENT_LENGTH).getValueString());
+        assertTrue(request.getContentBytes().isDirect());
+
+        // headers and mapped content are written as separate buffers
+        String encoded = encode(request, 2);
+        assertTrue(encoded.endsWith("\r\n\r\n" + grammar));
+        assertEquals(request.getMessageLength(), encoded.getBytes(StandardCharsets.UTF_8).length);
+        assertEquals(grammar, request.getContent());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyFileContent() throws Exception {
+        createRequest().setContent("application/srgs+xml", null, _folder.newFile("empty.grxml").toPath());
+    }
+
+}
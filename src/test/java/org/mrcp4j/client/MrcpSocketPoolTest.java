@@ -0,0 +1,186 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.client;
+
+import static org.junit.Assert.*;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.transport.socket.nio.NioSocketAcceptor;
+import org.apache.mina.transport.socket.nio.NioSocketConnector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mrcp4j.message.MrcpMessage;
+import org.mrcp4j.message.header.ChannelIdentifier;
+import org.mrcp4j.message.header.MrcpHeaderName;
+
+/**
+ * Unit tests for {@link MrcpSocketPool}.
+ */
+public class MrcpSocketPoolTest {
+
+    private NioSocketAcceptor _acceptor;
+    private NioSocketConnector _connector;
+    private MrcpSocketPool _pool;
+
+    @Before
+    public void setUp() throws Exception {
+        _acceptor = new NioSocketAcceptor();
+        _acceptor.setHandler(new IoHandlerAdapter());
+        _acceptor.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+        _connector = new NioSocketConnector();
+        _connector.setHandler(new MrcpSocket.SocketHandler());
+        _pool = new MrcpSocketPool(_connector, _acceptor.getLocalAddress(), 2);
+    }
+
+    @After
+    public void tearDown() {
+        _pool.close();
+        _connector.dispose();
+        _acceptor.dispose();
+    }
+
+    private static void addChannel(MrcpSocket socket, String channelID) throws Exception {
+        ChannelIdentifier id = (ChannelIdentifier) MrcpHeaderName.CHANNEL_IDENTIFIER.createHeaderValue(channelID);
+        socket.addMessageHandler(id, new MrcpMessageHandler() {
+            public void handleMessage(MrcpMessage message) {
+                // not used
+            }
+            public void messageTooLarge(MrcpMessage message, String reason) {
+                // not used
+            }
+            public void connectionClosed() {
+                // not used
+            }
+        });
+    }
+
+    @Test
+    public void testLeastLoadedSelection() throws Exception {
+        MrcpSocket first = _pool.getSocket();
+        _pool.release(first);
+        MrcpSocket reused = _pool.getSocket();
+        _pool.release(reused);
+        assertSame("idle connection should be reused", first, reused);
+        assertEquals(1, _pool.getSocketCount());
+
+        addChannel(first, "1@speechrecog");
+        MrcpSocket second = _pool.getSocket();
+        _pool.release(second);
+        assertNotSame(first, second);
+        assertEquals(2, _pool.getSocketCount());
+
+        addChannel(second, "2@speechrecog");
+        addChannel(second, "3@speechrecog");
+        MrcpSocket leastLoaded = _pool.getSocket();
+        _pool.release(leastLoaded);
+        assertSame("pool is full, least loaded connection expected", first, leastLoaded);
+        assertEquals(2, _pool.getSocketCount());
+    }
+
+    @Test
+    public void testReservedConnectionNotReused() throws Exception {
+        MrcpSocket first = _pool.getSocket();
+        MrcpSocket second = _pool.getSocket();
+        assertNotSame("reserved connection should count as loaded", first, second);
+
+        _pool.release(first);
+        _pool.release(second);
+        MrcpSocket third = _pool.getSocket();
+        _pool.release(third);
+        assertSame(first, third);
+    }
+
+    @Test
+    public void testConcurrentCreateChannel() throws Exception {
+        final int connections = 4;
+        final int channelsPerConnection = 3;
+        final MrcpProvider provider = new MrcpProvider();
+        provider.setConnectionsPerEndpoint(connections);
+        final int port = _acceptor.getLocalAddress().getPort();
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<MrcpChannel> channels = Collections.synchronizedList(new ArrayList<MrcpChannel>());
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        try {
+            Thread[] threads = new Thread[connections * channelsPerConnection];
+            for (int i = 0; i < threads.length; i++) {
+                final String channelID = i + "@speechrecog";
+                threads[i] = new Thread() {
+                    @Override
+                    public void run() {
+                        try {
+                            start.await();
+                            channels.add(provider.createChannel(channelID, InetAddress.getLoopbackAddress(), port,
+                                    MrcpProvider.PROTOCOL_TCP_MRCPv2));
+                        } catch (Throwable t) {
+                            failures.add(t);
+                        }
+                    }
+                };
+                threads[i].start();
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join(10000);
+            }
+
+            assertTrue(failures.toString(), failures.isEmpty());
+            assertEquals(threads.length, channels.size());
+            Map<MrcpSocket, Integer> counts = new IdentityHashMap<MrcpSocket, Integer>();
+            for (MrcpChannel channel : channels) {
+                counts.put(channel.getSocket(), channel.getSocket().getChannelCount());
+            }
+            assertEquals("channels should be spread over all connections", connections, counts.size());
+            for (Integer count : counts.values()) {
+                assertEquals(channelsPerConnection, count.intValue());
+            }
+        } finally {
+            provider.dispose();
+        }
+    }
+
+    @Test
+    public void testClosedConnectionReplaced() throws Exception {
+        MrcpSocket first = _pool.getSocket();
+        first.close();
+        for (int i = 0; i < 100 && first.isConnected(); i++) {
+            Thread.sleep(10);
+        }
+
+        MrcpSocket second = _pool.getSocket();
+        assertNotSame(first, second);
+        assertTrue(second.isConnected());
+        assertEquals(1, _pool.getSocketCount());
+    }
+
+}
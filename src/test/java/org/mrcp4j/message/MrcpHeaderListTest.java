@@ -0,0 +1,130 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mrcp4j.message.header.MrcpHeader;
+import org.mrcp4j.message.header.MrcpHeaderName;
+import org.mrcp4j.message.header.VendorSpecificHeader;
+
+/**
+ * Unit tests for {@link MrcpHeaderList}.
+ */
+public class MrcpHeaderListTest {
+
+    private MrcpHeaderList _headers;
+    private MrcpHeader _channel;
+    private MrcpHeader _vendor;
+    private MrcpHeader _length;
+
+    @Before
+    public void setUp() {
+        _headers = new MrcpHeaderList();
+        _channel = MrcpHeaderName.CHANNEL_IDENTIFIER.createHeader("32AECB23433801@speechrecog");
+        _vendor = new VendorSpecificHeader("X-Vendor-Param", "1");
+        _length = MrcpHeaderName.CONTENT_LENGTH.createHeader("12");
+        _headers.put(_channel);
+        _headers.put(_vendor);
+        _headers.put(_length);
+    }
+
+    private List<MrcpHeader> toList() {
+        return new ArrayList<MrcpHeader>(_headers);
+    }
+
+    @Test
+    public void testInsertionOrder() {
+        assertEquals(3, _headers.size());
+        List<MrcpHeader> list = toList();
+        assertSame(_channel, list.get(0));
+        assertSame(_vendor, list.get(1));
+        assertSame(_length, list.get(2));
+    }
+
+    @Test
+    public void testGet() {
+        assertSame(_length, _headers.get(MrcpHeaderName.CONTENT_LENGTH));
+        assertSame(_length, _headers.get("content-length"));
+        assertSame(_vendor, _headers.get("x-vendor-PARAM"));
+        assertNull(_headers.get(MrcpHeaderName.CONTENT_TYPE));
+        assertNull(_headers.get("X-Other"));
+    }
+
+    @Test
+    public void testReplaceKeepsPosition() {
+        MrcpHeader channel = MrcpHeaderName.CHANNEL_IDENTIFIER.createHeader("1234@speechsynth");
+        MrcpHeader vendor = new VendorSpecificHeader("x-vendor-param", "2");
+        assertSame(_channel, _headers.put(channel));
+        assertSame(_vendor, _headers.put(vendor));
+
+        List<MrcpHeader> list = toList();
+        assertEquals(3, list.size());
+        assertSame(channel, list.get(0));
+        assertSame(vendor, list.get(1));
+    }
+
+    @Test
+    public void testRemove() {
+        assertSame(_vendor, _headers.remove("X-VENDOR-PARAM"));
+        assertSame(_channel, _headers.remove(MrcpHeaderName.CHANNEL_IDENTIFIER));
+        assertNull(_headers.remove(MrcpHeaderName.CHANNEL_IDENTIFIER));
+        assertNull(_headers.get("X-Vendor-Param"));
+
+        List<MrcpHeader> list = toList();
+        assertEquals(1, list.size());
+        assertSame(_length, list.get(0));
+    }
+
+    @Test
+    public void testVendorHeaderWithKnownName() {
+        MrcpHeader header = new VendorSpecificHeader("Content-Length", "34");
+        assertSame(_length, _headers.put(header));
+        assertSame(header, _headers.get(MrcpHeaderName.CONTENT_LENGTH));
+        assertEquals(3, _headers.size());
+    }
+
+    @Test
+    public void testGrow() {
+        for (int i = 0; i < 20; i++) {
+            _headers.put(new VendorSpecificHeader("X-Param-" + i, Integer.toString(i)));
+        }
+        assertEquals(23, _headers.size());
+        assertEquals("19", _headers.get("x-param-19").getValueString());
+        assertSame(_length, _headers.get(MrcpHeaderName.CONTENT_LENGTH));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testIteratorRemove() {
+        Iterator<MrcpHeader> it = _headers.iterator();
+        it.next();
+        it.remove();
+    }
+
+}
@@ -23,7 +23,13 @@
 package org.mrcp4j.message;
 
 import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
 import org.junit.Test;
+import org.mrcp4j.MrcpRequestState;
+import org.mrcp4j.message.header.MrcpHeaderName;
 
 /**
  * Unit tests for {@link MrcpResponse}.
@@ -226,4 +232,41 @@ public class MrcpResponseTest {
             }
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCopy() {
+        MrcpResponse response = new MrcpResponse();
+        response.setVersion(MrcpMessage.MRCP_VERSION_2_0);
+        response.setRequestID(42);
+        response.setStatusCode(MrcpResponse.STATUS_SUCCESS);
+        response.setRequestState(MrcpRequestState.IN_PROGRESS);
+        response.setContent("text/plain", null, "result");
+
+        MrcpResponse copy = response.copy();
+        response.setStatusCode(MrcpResponse.STATUS_OPERATION_FAILED);
+        response.setRequestState(MrcpRequestState.COMPLETE);
+        response.removeContent();
+
+        assertNotSame(response, copy);
+        assertEquals(MrcpMessage.MRCP_VERSION_2_0, copy.getVersion());
+        assertEquals(42, copy.getRequestID());
+        assertEquals(MrcpResponse.STATUS_SUCCESS, copy.getStatusCode());
+        assertEquals(MrcpRequestState.IN_PROGRESS, copy.getRequestState());
+        assertEquals("text/plain", copy.getContentType());
+        assertEquals("result\r\n", copy.getContent());
+    }
+
+    @Test
+    public void testCopyMovesContentStream() throws Exception {
+        MrcpResponse response = new MrcpResponse();
+        response.setStatusCode(MrcpResponse.STATUS_SUCCESS);
+        response.addHeader(MrcpHeaderName.CONTENT_TYPE.constructHeader("text/plain"));
+        response.addHeader(MrcpHeaderName.CONTENT_LENGTH.constructHeader(Integer.valueOf(6)));
+        response.setContentStream(new ByteArrayInputStream("result".getBytes(StandardCharsets.US_ASCII)));
+
+        MrcpResponse copy = response.copy();
+        assertFalse("only one message may read the stream", response.hasContent());
+        assertTrue(copy.isContentStreamed());
+        assertEquals("result", copy.getContent());
+    }
+}
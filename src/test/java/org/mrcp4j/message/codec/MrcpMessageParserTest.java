@@ -0,0 +1,182 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message.codec;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+
+import org.junit.Test;
+import org.mrcp4j.MrcpEventName;
+import org.mrcp4j.MrcpMethodName;
+import org.mrcp4j.MrcpRequestState;
+import org.mrcp4j.message.MrcpEvent;
+import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.MrcpServerMessage;
+import org.mrcp4j.message.header.MrcpHeader;
+import org.mrcp4j.message.header.MrcpHeaderName;
+import org.mrcp4j.message.header.VendorSpecificHeader;
+import org.mrcp4j.message.request.MrcpRequest;
+
+/**
+ * Unit tests for {@link MrcpMessageParser}.
+ */
+public class MrcpMessageParserTest {
+
+    private static ByteBuffer buffer(String str) {
+        return ByteBuffer.wrap(str.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void testParseRequestLine() throws Exception {
+        ByteBuffer buf = buffer("MRCP/2.0 123 DEFINE-GRAMMAR 543257\r\n");
+        MrcpRequest request = MrcpMessageParser.parseRequestLine(buf, 0, buf.limit() - 1);
+        assertEquals("MRCP/2.0", request.getVersion());
+        assertEquals(123, request.getMessageLength());
+        assertEquals(MrcpMethodName.DEFINE_GRAMMAR, request.getMethodName());
+        assertEquals(543257, request.getRequestID());
+        assertEquals(0, buf.position());
+    }
+
+    @Test
+    public void testParseRequestLineCaseInsensitive() throws Exception {
+        ByteBuffer buf = buffer("mrcp/2.0 90 recognize 1");
+        MrcpRequest request = MrcpMessageParser.parseRequestLine(buf, 0, buf.limit());
+        assertEquals("MRCP/2.0", request.getVersion());
+        assertEquals(MrcpMethodName.RECOGNIZE, request.getMethodName());
+    }
+
+    @Test
+    public void testParseRequestLineWithinRange() throws Exception {
+        ByteBuffer buf = buffer("garbageMRCP/2.0 80 STOP 7\r\nmore");
+        MrcpRequest request = MrcpMessageParser.parseRequestLine(buf, 7, MrcpMessageParser.indexOfLineEnd(buf, 7, buf.limit()));
+        assertEquals(MrcpMethodName.STOP, request.getMethodName());
+        assertEquals(7, request.getRequestID());
+    }
+
+    @Test
+    public void testParseRequestLineErrors() {
+        String[] lines = {
+            "",
+            "MRCP/2.0 80 STOP",
+            "MRCP/2.0 80 STOP 7 8",
+            "MRCP/2.0 8x STOP 7",
+            "MRCP/2.0 80 STOP -7",
+            "MRCP/2.0 80 NO-SUCH-METHOD 7",
+            "MRCP/2.0 99999999999 STOP 7",
+        };
+        for (String line : lines) {
+            ByteBuffer buf = buffer(line);
+            try {
+                MrcpMessageParser.parseRequestLine(buf, 0, buf.limit());
+                fail("Expected ParseException for: " + line);
+            } catch (ParseException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testParseResponseLine() throws Exception {
+        ByteBuffer buf = buffer("MRCP/2.0 79 543257 200 COMPLETE\r\n");
+        MrcpServerMessage message = MrcpMessageParser.parseServerMessageLine(buf, 0, buf.limit());
+        assertTrue(message instanceof MrcpResponse);
+        MrcpResponse response = (MrcpResponse) message;
+        assertEquals(79, response.getMessageLength());
+        assertEquals(543257, response.getRequestID());
+        assertEquals(MrcpResponse.STATUS_SUCCESS, response.getStatusCode());
+        assertEquals(MrcpRequestState.COMPLETE, response.getRequestState());
+    }
+
+    @Test
+    public void testParseEventLine() throws Exception {
+        ByteBuffer buf = buffer("MRCP/2.0 104 START-OF-INPUT 543257 IN-PROGRESS\r\n");
+        MrcpServerMessage message = MrcpMessageParser.parseServerMessageLine(buf, 0, buf.limit());
+        assertTrue(message instanceof MrcpEvent);
+        MrcpEvent event = (MrcpEvent) message;
+        assertEquals(104, event.getMessageLength());
+        assertEquals(MrcpEventName.START_OF_INPUT, event.getEventName());
+        assertEquals(543257, event.getRequestID());
+        assertEquals(MrcpRequestState.IN_PROGRESS, event.getRequestState());
+    }
+
+    @Test(expected = ParseException.class)
+    public void testParseServerMessageLineUnknownState() throws Exception {
+        ByteBuffer buf = buffer("MRCP/2.0 79 543257 200 DONE");
+        MrcpMessageParser.parseServerMessageLine(buf, 0, buf.limit());
+    }
+
+    @Test
+    public void testParseHeader() throws Exception {
+        ByteBuffer buf = buffer("content-length :  42 \r\n");
+        MrcpHeader header = MrcpMessageParser.parseHeader(buf, 0, buf.limit());
+        assertEquals(MrcpHeaderName.CONTENT_LENGTH, header.getHeaderName());
+        assertEquals("42", header.getValueString());
+        assertEquals(Integer.valueOf(42), header.getValueObject());
+    }
+
+    @Test
+    public void testParseVendorSpecificHeader() throws Exception {
+        ByteBuffer buf = buffer("Vendor-Specific-Thing:value: with colon\r\n");
+        MrcpHeader header = MrcpMessageParser.parseHeader(buf, 0, buf.limit());
+        assertTrue(header instanceof VendorSpecificHeader);
+        assertEquals("Vendor-Specific-Thing", header.getNameString());
+        assertEquals("value: with colon", header.getValueString());
+    }
+
+    @Test
+    public void testParseHeaderEmptyValue() throws Exception {
+        ByteBuffer buf = buffer("Content-ID:\r\n");
+        MrcpHeader header = MrcpMessageParser.parseHeader(buf, 0, buf.limit());
+        assertEquals(MrcpHeaderName.CONTENT_ID, header.getHeaderName());
+        assertEquals("", header.getValueString());
+    }
+
+    @Test(expected = ParseException.class)
+    public void testParseHeaderMissingColon() throws Exception {
+        ByteBuffer buf = buffer("Content-Length 42\r\n");
+        MrcpMessageParser.parseHeader(buf, 0, buf.limit());
+    }
+
+    @Test
+    public void testIsBlankLine() {
+        ByteBuffer buf = buffer("x\r\n \r\n");
+        assertFalse(MrcpMessageParser.isBlankLine(buf, 0, 2));
+        assertTrue(MrcpMessageParser.isBlankLine(buf, 3, 5));
+        assertEquals(2, MrcpMessageParser.indexOfLineEnd(buf, 0, buf.limit()));
+        assertEquals(-1, MrcpMessageParser.indexOfLineEnd(buf, 0, 2));
+    }
+
+    @Test
+    public void testDirectBuffer() throws Exception {
+        byte[] bytes = "Channel-Identifier: 32AECB23433801@speechrecog\r\n".getBytes(StandardCharsets.ISO_8859_1);
+        ByteBuffer buf = ByteBuffer.allocateDirect(bytes.length);
+        buf.put(bytes).flip();
+        MrcpHeader header = MrcpMessageParser.parseHeader(buf, 0, buf.limit());
+        assertEquals(MrcpHeaderName.CHANNEL_IDENTIFIER, header.getHeaderName());
+        assertEquals("32AECB23433801@speechrecog", header.getValueString());
+    }
+
+}
@@ -0,0 +1,166 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message.codec;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.mrcp4j.MrcpEventName;
+import org.mrcp4j.MrcpMethodName;
+import org.mrcp4j.MrcpRequestState;
+import org.mrcp4j.message.MrcpEvent;
+import org.mrcp4j.message.MrcpMessage;
+import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.header.MrcpHeaderName;
+import org.mrcp4j.message.header.VendorSpecificHeader;
+import org.mrcp4j.message.request.MrcpRequest;
+import org.mrcp4j.message.request.MrcpRequestFactory;
+
+/**
+ * Unit tests for {@link MrcpMessageWriter}.
+ */
+public class MrcpMessageWriterTest {
+
+    private static String write(MrcpMessage message) {
+        int length = MrcpMessageWriter.prepare(message);
+        assertEquals(length, message.getMessageLength());
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        MrcpMessageWriter.write(message, buf);
+        assertFalse("buffer must be filled exactly", buf.hasRemaining());
+        return new String(buf.array(), StandardCharsets.ISO_8859_1);
+    }
+
+    @Test
+    public void testWriteRequest() {
+        MrcpRequest request = MrcpRequestFactory.createRequest(MrcpMethodName.DEFINE_GRAMMAR);
+        request.setVersion(MrcpMessage.MRCP_VERSION_2_0);
+        request.setRequestID(543257);
+        request.addHeader(MrcpHeaderName.CHANNEL_IDENTIFIER.createHeader("32AECB23433801@speechrecog"));
+        request.setContent("application/srgs+xml", null, "<grammar/>");
+
+        String encoded = write(request);
+        assertEquals(request.toString(), encoded);
+        assertTrue(encoded.startsWith("MRCP/2.0 " + encoded.length() + " DEFINE-GRAMMAR 543257\r\n"));
+    }
+
+    @Test
+    public void testWriteVendorSpecificRequest() {
+        MrcpRequest request = MrcpRequestFactory.createVendorSpecificRequest("X-VENDOR-METHOD");
+        request.setVersion(MrcpMessage.MRCP_VERSION_2_0);
+        request.setRequestID(1);
+        request.addHeader(new VendorSpecificHeader("Vendor-Specific-Param", "value"));
+
+        String encoded = write(request);
+        assertEquals(request.toString(), encoded);
+        assertTrue(encoded.startsWith("MRCP/2.0 " + encoded.length() + " X-VENDOR-METHOD 1\r\n"));
+    }
+
+    @Test
+    public void testWriteResponse() {
+        MrcpResponse response = new MrcpResponse();
+        response.setVersion(MrcpMessage.MRCP_VERSION_2_0);
+        response.setRequestID(543257);
+        response.setStatusCode(MrcpResponse.STATUS_SUCCESS);
+        response.setRequestState(MrcpRequestState.COMPLETE);
+        response.addHeader(MrcpHeaderName.CHANNEL_IDENTIFIER.createHeader("32AECB23433801@speechrecog"));
+
+        String encoded = write(response);
+        assertEquals(response.toString(), encoded);
+        assertTrue(encoded.startsWith("MRCP/2.0 " + encoded.length() + " 543257 200 COMPLETE\r\n"));
+    }
+
+    @Test
+    public void testWriteEvent() {
+        MrcpEvent event = new MrcpEvent();
+        event.setVersion(MrcpMessage.MRCP_VERSION_2_0);
+        event.setEventName(MrcpEventName.START_OF_INPUT);
+        event.setRequestID(543257);
+        event.setRequestState(MrcpRequestState.IN_PROGRESS);
+
+        String encoded = write(event);
+        assertEquals(event.toString(), encoded);
+        assertEquals("MRCP/2.0 " + encoded.length() + " START-OF-INPUT 543257 IN-PROGRESS\r\n\r\n", encoded);
+    }
+
+    @Test
+    public void testMessageLengthDigitBoundary() {
+        // grow the content across the point where the message-length gains a digit
+        for (int size = 60; size < 120; size++) {
+            StringBuilder content = new StringBuilder();
+            for (int i = 0; i < size; i++) {
+                content.append('x');
+            }
+            MrcpEvent event = new MrcpEvent();
+            event.setVersion(MrcpMessage.MRCP_VERSION_2_0);
+            event.setEventName(MrcpEventName.RECOGNITION_COMPLETE);
+            event.setRequestID(1);
+            event.setRequestState(MrcpRequestState.COMPLETE);
+            event.setContent("application/x-nlsml", null, content.toString());
+
+            String encoded = write(event);
+            assertEquals(encoded.length(), event.getMessageLength());
+        }
+    }
+
+    @Test
+    public void testWriteEncodedContent() {
+        MrcpEvent event = new MrcpEvent();
+        event.setVersion(MrcpMessage.MRCP_VERSION_2_0);
+        event.setEventName(MrcpEventName.RECOGNITION_COMPLETE);
+        event.setRequestID(1);
+        event.setRequestState(MrcpRequestState.COMPLETE);
+        event.setContent("application/x-nlsml; charset=\"ISO-8859-1\"", null, "<result>\u00e9</result>");
+        assertEquals(20, event.getContentByteLength());
+
+        event.setContent("application/x-nlsml", null, "<result>\u00e9</result>");
+        assertEquals(21, event.getContentByteLength());
+
+        int length = MrcpMessageWriter.prepare(event);
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        MrcpMessageWriter.write(event, buf);
+        assertFalse(buf.hasRemaining());
+        String encoded = new String(buf.array(), StandardCharsets.UTF_8);
+        assertTrue(encoded.endsWith("\r\n\r\n<result>\u00e9</result>\r\n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedMessageType() {
+        MrcpMessage message = new MrcpMessage() {
+            @Override
+            protected StringBuilder appendStartLine(StringBuilder sb) {
+                return sb;
+            }
+
+            @Override
+            public MrcpMessage copy() {
+                return this;
+            }
+        };
+        message.setVersion(MrcpMessage.MRCP_VERSION_2_0);
+        MrcpMessageWriter.prepare(message);
+    }
+
+}
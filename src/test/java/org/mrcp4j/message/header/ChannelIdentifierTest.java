@@ -232,4 +232,10 @@ public class ChannelIdentifierTest {
         // We can't directly test this as it's protected, but we can verify the factory works
         assertNotNull("Factory should be created", factory);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testHeaderWithInvalidResourceType() {
+        MrcpHeader header = MrcpHeaderName.CHANNEL_IDENTIFIER.createHeader("test@invalidresource");
+        assertFalse("Should not be valid value", header.isValidValue());
+    }
+}
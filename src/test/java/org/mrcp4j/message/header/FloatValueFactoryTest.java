@@ -0,0 +1,80 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message.header;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link FloatValueFactory}.
+ */
+public class FloatValueFactoryTest {
+
+    private final FloatValueFactory _factory = new FloatValueFactory(0.0f, 1.0f, "Illegal zero-one-float value: ");
+
+    @Test
+    public void testParseFloat() throws IllegalValueException {
+        assertEquals(0.5f, _factory.parseFloat("0.5"), 0.0f);
+        assertEquals(0.0f, _factory.parseFloat("0"), 0.0f);
+        assertEquals(1.0f, _factory.parseFloat("1."), 0.0f);
+        assertEquals(0.25f, _factory.parseFloat(".25"), 0.0f);
+        assertEquals(Float.valueOf(0.75f), _factory.fromValueString("0.75"));
+    }
+
+    @Test
+    public void testIllegalValues() {
+        assertIllegal("");
+        assertIllegal(".");
+        assertIllegal("NaN");
+        assertIllegal("1e-1");
+        assertIllegal("0.5f");
+        assertIllegal("0x1p-1");
+        assertIllegal("0.5.1");
+    }
+
+    @Test
+    public void testOutOfRange() {
+        try {
+            _factory.parseFloat("1234");
+            fail("Should have thrown IllegalValueException");
+        } catch (IllegalValueException e) {
+            assertEquals("Illegal zero-one-float value: 1234.0", e.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testToValueStringNaN() {
+        _factory.toValueString(Float.valueOf(Float.NaN));
+    }
+
+    private void assertIllegal(String valueString) {
+        try {
+            _factory.parseFloat(valueString);
+            fail("Should have thrown IllegalValueException for: " + valueString);
+        } catch (IllegalValueException e) {
+            // expected
+        }
+    }
+
+}
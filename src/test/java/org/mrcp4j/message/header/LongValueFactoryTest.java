@@ -0,0 +1,91 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message.header;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link LongValueFactory}.
+ */
+public class LongValueFactoryTest {
+
+    private final LongValueFactory _factory = new LongValueFactory(0, 600000, "Illegal value for timeout: ");
+
+    @Test
+    public void testParseLong() throws IllegalValueException {
+        assertEquals(0, _factory.parseLong("0"));
+        assertEquals(5000, _factory.parseLong("5000"));
+        assertEquals(600000, _factory.parseLong("+600000"));
+        assertEquals(Long.valueOf(1234), _factory.fromValueString("1234"));
+    }
+
+    @Test
+    public void testParseDecimalLimits() throws IllegalValueException {
+        assertEquals(Long.MAX_VALUE, LongValueFactory.parseDecimal("9223372036854775807", Long.class));
+        assertEquals(Long.MIN_VALUE, LongValueFactory.parseDecimal("-9223372036854775808", Long.class));
+        assertIllegal("9223372036854775808");
+        assertIllegal("-9223372036854775809");
+    }
+
+    @Test
+    public void testIllegalValues() {
+        assertIllegal("");
+        assertIllegal("-");
+        assertIllegal("12a");
+        assertIllegal("1.5");
+        assertIllegal(" 12");
+    }
+
+    @Test
+    public void testOutOfRange() {
+        try {
+            _factory.parseLong("600001");
+            fail("Should have thrown IllegalValueException");
+        } catch (IllegalValueException e) {
+            assertEquals("Illegal value for timeout: 600001", e.getMessage());
+        }
+        try {
+            _factory.parseLong("-1");
+            fail("Should have thrown IllegalValueException");
+        } catch (IllegalValueException e) {
+            // expected
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testToValueStringOutOfRange() {
+        _factory.toValueString(Long.valueOf(600001));
+    }
+
+    private static void assertIllegal(String valueString) {
+        try {
+            LongValueFactory.parseDecimal(valueString, Long.class);
+            fail("Should have thrown IllegalValueException for: " + valueString);
+        } catch (IllegalValueException e) {
+            // expected
+        }
+    }
+
+}
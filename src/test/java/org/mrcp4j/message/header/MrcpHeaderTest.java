@@ -197,4 +197,55 @@ public class MrcpHeaderTest {
         assertNull("Value string should be null", header.getValueString());
         assertFalse("Should not be valid value", header.isValidValue());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCreateHeaderConvertsOnFirstUse() throws IllegalValueException {
+        MrcpHeader header = MrcpHeaderName.CONTENT_LENGTH.createHeader("123");
+
+        Object valueObject = header.getValueObject();
+        assertEquals(Integer.valueOf(123), valueObject);
+        assertSame("Value object should be retained", valueObject, header.getValueObject());
+    }
+
+    @Test
+    public void testCreateHeaderWithIllegalValue() {
+        MrcpHeader header = MrcpHeaderName.CONTENT_LENGTH.createHeader("abc");
+
+        assertEquals("abc", header.getValueString());
+        assertEquals(MrcpHeaderName.CONTENT_LENGTH + ":abc", header.toString());
+        assertFalse("Should not be valid value", header.isValidValue());
+        try {
+            header.getValueObject();
+            fail("Should have thrown IllegalValueException");
+        } catch (IllegalValueException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testTypedValues() throws IllegalValueException {
+        assertEquals(123, MrcpHeaderName.CONTENT_LENGTH.createHeader("123").getIntValue());
+        assertEquals(123L, MrcpHeaderName.CONTENT_LENGTH.createHeader("123").getLongValue());
+        assertEquals(5000L, MrcpHeaderName.NO_INPUT_TIMEOUT.createHeader(" 5000 ").getLongValue());
+        assertEquals(0.5f, MrcpHeaderName.CONFIDENCE_THRESHOLD.createHeader("0.5").getFloatValue(), 0.0f);
+        assertTrue(MrcpHeaderName.START_INPUT_TIMERS.createHeader("TRUE").getBooleanValue());
+        assertFalse(MrcpHeaderName.SAVE_WAVEFORM.createHeader("false").getBooleanValue());
+    }
+
+    @Test
+    public void testTypedValueAfterConversion() throws IllegalValueException {
+        MrcpHeader header = MrcpHeaderName.SPEECH_COMPLETE_TIMEOUT.createHeader("800");
+        assertEquals(Long.valueOf(800), header.getValueObject());
+        assertEquals(800L, header.getLongValue());
+    }
+
+    @Test(expected = IllegalValueException.class)
+    public void testTypedValueOutOfRange() throws IllegalValueException {
+        MrcpHeaderName.CONFIDENCE_THRESHOLD.createHeader("1.5").getFloatValue();
+    }
+
+    @Test(expected = ClassCastException.class)
+    public void testTypedValueWrongType() throws IllegalValueException {
+        MrcpHeaderName.LOGGING_TAG.createHeader("tag").getIntValue();
+    }
+}
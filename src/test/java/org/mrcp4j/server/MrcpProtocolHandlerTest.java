@@ -0,0 +1,189 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.server;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.mina.core.filterchain.IoFilterAdapter;
+import org.apache.mina.core.session.DummySession;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.core.write.WriteRequest;
+import org.junit.Before;
+import org.junit.Test;
+import org.mrcp4j.MrcpMethodName;
+import org.mrcp4j.MrcpRequestState;
+import org.mrcp4j.message.MrcpMessage;
+import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.header.MrcpHeaderName;
+import org.mrcp4j.message.request.MrcpRequest;
+import org.mrcp4j.message.request.MrcpRequestFactory;
+
+/**
+ * Unit tests for {@link MrcpProtocolHandler}.
+ */
+public class MrcpProtocolHandlerTest {
+
+    private List<Object> _written;
+    private DummySession _session;
+    private MrcpRequest _request;
+
+    @Before
+    public void setUp() {
+        _written = new ArrayList<Object>();
+        _session = new DummySession();
+        _session.getFilterChain().addLast("capture", new IoFilterAdapter() {
+            @Override
+            public void filterWrite(NextFilter nextFilter, IoSession session, WriteRequest writeRequest) {
+                _written.add(writeRequest.getMessage());
+            }
+        });
+
+        _request = MrcpRequestFactory.createRequest(MrcpMethodName.SET_PARAMS);
+        _request.setVersion(MrcpMessage.MRCP_VERSION_2_0);
+        _request.setRequestID(42);
+        _request.addHeader(MrcpHeaderName.CHANNEL_IDENTIFIER.createHeader("32AECB23433801@speechrecog"));
+    }
+
+    @Test
+    public void testRequestProcessedOnExecutor() {
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        MrcpProtocolHandler handler = new MrcpProtocolHandler(new CompletingRequestProcessor(), new Executor() {
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        });
+
+        handler.messageReceived(_session, _request);
+        assertEquals(1, tasks.size());
+        assertEquals(1, handler.getPendingRequestCount());
+        assertTrue(_written.isEmpty());
+
+        tasks.get(0).run();
+        assertEquals(0, handler.getPendingRequestCount());
+        assertEquals(0, handler.getActiveRequestCount());
+        assertEquals(1, _written.size());
+        assertEquals(MrcpResponse.STATUS_SUCCESS, ((MrcpResponse) _written.get(0)).getStatusCode());
+    }
+
+    @Test
+    public void testActiveUntilResponseCompletes() {
+        final CompletableFuture<MrcpResponse> pending = new CompletableFuture<MrcpResponse>();
+        MrcpProtocolHandler handler = new MrcpProtocolHandler(new MrcpRequestProcessor() {
+            public CompletionStage<MrcpResponse> processRequest(MrcpRequest request, IoSession ioSession) {
+                return pending;
+            }
+
+            public void connectionClosed(IoSession ioSession) {
+                // nothing in progress
+            }
+        }, new Executor() {
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+
+        handler.messageReceived(_session, _request);
+        assertEquals(0, handler.getPendingRequestCount());
+        assertEquals(1, handler.getActiveRequestCount());
+
+        pending.complete(new MrcpResponse());
+        assertEquals(0, handler.getActiveRequestCount());
+    }
+
+    @Test
+    public void testRequestRejectedByExecutor() {
+        MrcpProtocolHandler handler = new MrcpProtocolHandler(new CompletingRequestProcessor(), new Executor() {
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        });
+
+        handler.messageReceived(_session, _request);
+        assertEquals(0, handler.getPendingRequestCount());
+        assertEquals(1, _written.size());
+        MrcpResponse response = (MrcpResponse) _written.get(0);
+        assertEquals(MrcpResponse.STATUS_SERVER_INTERNAL_ERROR, response.getStatusCode());
+        assertEquals(MrcpRequestState.COMPLETE, response.getRequestState());
+        assertEquals(42, response.getRequestID());
+    }
+
+    @Test
+    public void testDefaultExecutorQueueBounded() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        MrcpProtocolHandler handler = new MrcpProtocolHandler(new MrcpRequestProcessor() {
+            public CompletionStage<MrcpResponse> processRequest(MrcpRequest request, IoSession ioSession) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return CompletableFuture.completedFuture(null);
+            }
+
+            public void connectionClosed(IoSession ioSession) {
+                // nothing in progress
+            }
+        }, 2);
+        try {
+            // occupy all threads and fill the queue until a request is rejected
+            for (int i = 0; i < 1000 && _written.isEmpty(); i++) {
+                handler.messageReceived(_session, _request);
+            }
+            assertEquals(1, _written.size());
+            assertEquals(MrcpResponse.STATUS_SERVER_INTERNAL_ERROR, ((MrcpResponse) _written.get(0)).getStatusCode());
+            for (int i = 0; i < 100 && handler.getPendingRequestCount() > 2; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, handler.getPendingRequestCount());
+        } finally {
+            release.countDown();
+            handler.dispose();
+        }
+    }
+
+    private static class CompletingRequestProcessor implements MrcpRequestProcessor {
+
+        public CompletionStage<MrcpResponse> processRequest(MrcpRequest request, IoSession ioSession) {
+            MrcpResponse response = new MrcpResponse();
+            response.setVersion(request.getVersion());
+            response.setRequestID(request.getRequestID());
+            response.setStatusCode(MrcpResponse.STATUS_SUCCESS);
+            response.setRequestState(MrcpRequestState.COMPLETE);
+            ioSession.write(response);
+            return CompletableFuture.completedFuture(response);
+        }
+
+        public void connectionClosed(IoSession ioSession) {
+            // nothing in progress
+        }
+    }
+
+}
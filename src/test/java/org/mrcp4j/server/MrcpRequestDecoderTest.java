@@ -0,0 +1,382 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.server;
+
+import static org.junit.Assert.*;
+
+import java.io.EOFException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.filter.codec.ProtocolCodecSession;
+import org.apache.mina.filter.codec.ProtocolDecoderException;
+import org.junit.Before;
+import org.junit.Test;
+import org.mrcp4j.MrcpMethodName;
+import org.mrcp4j.message.MrcpMessage;
+import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.codec.MrcpMessageWriter;
+import org.mrcp4j.message.header.MrcpHeaderName;
+import org.mrcp4j.message.request.MrcpRequest;
+import org.mrcp4j.message.request.MrcpRequestFactory;
+
+/**
+ * Unit tests for {@link MrcpRequestDecoder}.
+ */
+public class MrcpRequestDecoderTest {
+
+    private MrcpRequestDecoder _decoder;
+    private ProtocolCodecSession _session;
+
+    @Before
+    public void setUp() {
+        _decoder = new MrcpRequestDecoder();
+        // the dummy session reports no fragmentation, force the cumulative code path anyway
+        _decoder.setTransportMetadataFragmentation(false);
+        _session = new ProtocolCodecSession();
+    }
+
+    private static String request(String method, long requestID, String content) {
+        String headers = "Channel-Identifier:32AECB23433801@speechrecog\r\n";
+        if (content != null) {
+            headers += "Content-Type:application/srgs+xml\r\n" +
+                       "Content-Length:" + content.length() + "\r\n";
+        }
+        return frame(" " + method + " " + requestID + "\r\n" + headers + "\r\n" + (content == null ? "" : content));
+    }
+
+    private static String frame(String rest) {
+        String prefix = "MRCP/2.0 ";
+        int length = prefix.length() + rest.length();
+        length += Integer.toString(length).length();
+        if (Integer.toString(length).length() > Integer.toString(length - Integer.toString(length).length()).length()) {
+            length++;
+        }
+        return prefix + length + rest;
+    }
+
+    private void decode(String data) throws Exception {
+        IoBuffer buffer = IoBuffer.wrap(data.getBytes(StandardCharsets.US_ASCII));
+        _decoder.decode(_session, buffer, _session.getDecoderOutput());
+    }
+
+    @Test
+    public void testSingleRequest() throws Exception {
+        String message = request("SET-PARAMS", 1, null);
+        decode(message);
+
+        Queue<Object> output = _session.getDecoderOutputQueue();
+        assertEquals(1, output.size());
+        MrcpRequest request = (MrcpRequest) output.poll();
+        assertEquals(MrcpMethodName.SET_PARAMS, request.getMethodName());
+        assertEquals(1, request.getRequestID());
+        assertEquals(message.length(), request.getMessageLength());
+        assertEquals("32AECB23433801@speechrecog", request.getChannelIdentifier().toString());
+        assertFalse(request.hasContent());
+    }
+
+    @Test
+    public void testRequestSplitAcrossReads() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            content.append((char) ('a' + (i % 26)));
+        }
+        String message = request("DEFINE-GRAMMAR", 7, content.toString());
+
+        Queue<Object> output = _session.getDecoderOutputQueue();
+        int chunk = 1000;
+        for (int offset = 0; offset < message.length(); offset += chunk) {
+            assertTrue("request emitted before all bytes were received", output.isEmpty());
+            decode(message.substring(offset, Math.min(offset + chunk, message.length())));
+        }
+
+        assertEquals(1, output.size());
+        MrcpRequest request = (MrcpRequest) output.poll();
+        assertEquals(MrcpMethodName.DEFINE_GRAMMAR, request.getMethodName());
+        assertEquals(7, request.getRequestID());
+        assertEquals(content.toString(), request.getContent());
+    }
+
+    @Test
+    public void testStreamedContent() throws Exception {
+        _decoder.setStreamingThreshold(100);
+        _decoder.setStreamingBufferSize(256);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            content.append((char) ('a' + (i % 26)));
+        }
+        String message = request("DEFINE-GRAMMAR", 8, content.toString()) + request("GET-PARAMS", 9, null);
+        int bodyStart = message.indexOf("\r\n\r\n") + 4;
+
+        // the request is passed on once its headers have arrived
+        Queue<Object> output = _session.getDecoderOutputQueue();
+        decode(message.substring(0, bodyStart + 10));
+        assertEquals(1, output.size());
+        MrcpRequest request = (MrcpRequest) output.poll();
+        assertTrue(request.isContentStreamed());
+        InputStream in = request.getContentStream();
+        byte[] buf = new byte[2000];
+        assertEquals(10, in.read(buf));
+        assertEquals(content.substring(0, 10), new String(buf, 0, 10, StandardCharsets.US_ASCII));
+
+        decode(message.substring(bodyStart + 10, bodyStart + 500));
+        assertTrue(output.isEmpty());
+        decode(message.substring(bodyStart + 500));
+
+        // the rest of the body and the following request
+        assertEquals(1, output.size());
+        assertEquals(9, ((MrcpRequest) output.poll()).getRequestID());
+        assertEquals(content.substring(10), request.getContent());
+        assertFalse(request.isContentStreamed());
+    }
+
+    @Test(expected = EOFException.class)
+    public void testStreamedContentConnectionClosed() throws Exception {
+        _decoder.setStreamingThreshold(1);
+        String message = request("DEFINE-GRAMMAR", 8, "<grammar/>");
+        decode(message.substring(0, message.length() - 4));
+        MrcpRequest request = (MrcpRequest) _session.getDecoderOutputQueue().poll();
+        _decoder.dispose(_session);
+
+        InputStream in = request.getContentStream();
+        assertEquals(6, in.read(new byte[100]));
+        in.read();
+    }
+
+    private List<Object> captureWrites() {
+        final List<Object> written = new ArrayList<Object>();
+        _session.setHandler(new IoHandlerAdapter() {
+            @Override
+            public void messageSent(IoSession session, Object message) {
+                written.add(message);
+            }
+        });
+        return written;
+    }
+
+    @Test
+    public void testMessageTooLarge() throws Exception {
+        List<Object> written = captureWrites();
+        _decoder.setLimits(500, 10, 200);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            content.append('x');
+        }
+        String message = request("DEFINE-GRAMMAR", 21, content.toString());
+        int bodyStart = message.indexOf("\r\n\r\n") + 4;
+
+        // rejected once the headers have arrived, before the body
+        decode(message.substring(0, bodyStart));
+        assertEquals(1, written.size());
+        MrcpResponse response = (MrcpResponse) written.get(0);
+        assertEquals(MrcpResponse.STATUS_MESSAGE_TOO_LARGE, response.getStatusCode());
+        assertEquals(21, response.getRequestID());
+        assertEquals("32AECB23433801@speechrecog", response.getChannelIdentifier().toString());
+
+        // the body is skipped and the following request is decoded
+        decode(message.substring(bodyStart, bodyStart + 300));
+        decode(message.substring(bodyStart + 300) + request("GET-PARAMS", 22, null));
+        Queue<Object> output = _session.getDecoderOutputQueue();
+        assertEquals(1, output.size());
+        assertEquals(22, ((MrcpRequest) output.poll()).getRequestID());
+    }
+
+    @Test
+    public void testTooManyHeaders() throws Exception {
+        List<Object> written = captureWrites();
+        _decoder.setLimits(10000, 2, 200);
+        String message = frame(" SET-PARAMS 5\r\nChannel-Identifier:1@speechrecog\r\nA:1\r\nB:2\r\nC:3\r\n\r\n");
+        decode(message + request("GET-PARAMS", 6, null));
+
+        assertEquals(1, written.size());
+        assertEquals(MrcpResponse.STATUS_MESSAGE_TOO_LARGE, ((MrcpResponse) written.get(0)).getStatusCode());
+        assertEquals(6, ((MrcpRequest) _session.getDecoderOutputQueue().poll()).getRequestID());
+    }
+
+    @Test
+    public void testHeaderLineTooLong() throws Exception {
+        List<Object> written = captureWrites();
+        _decoder.setLimits(10000, 10, 100);
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            value.append('v');
+        }
+        String message = frame(" SET-PARAMS 5\r\nVendor-Specific-Parameters:" + value +
+                "\r\nChannel-Identifier:1@speechrecog\r\n\r\n");
+
+        // the rejection is only responded to once the Channel-Identifier following the long line has been seen
+        decode(message.substring(0, 150));
+        assertTrue(written.isEmpty());
+        decode(message.substring(150, 330));
+        assertTrue(written.isEmpty());
+        decode(message.substring(330));
+        assertEquals(1, written.size());
+        assertEquals("1@speechrecog", ((MrcpResponse) written.get(0)).getChannelIdentifier().toString());
+        assertTrue(_session.getDecoderOutputQueue().isEmpty());
+        decode(request("GET-PARAMS", 6, null));
+        assertEquals(6, ((MrcpRequest) _session.getDecoderOutputQueue().poll()).getRequestID());
+    }
+
+    @Test
+    public void testHeaderLineTooLongInSingleRead() throws Exception {
+        List<Object> written = captureWrites();
+        _decoder.setLimits(1 << 20, 256, 100);
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            value.append('v');
+        }
+        decode(frame(" SET-PARAMS 5\r\nChannel-Identifier:1@speechrecog\r\nVendor-X:" + value + "\r\n\r\n") +
+                request("GET-PARAMS", 6, null));
+
+        assertEquals(1, written.size());
+        MrcpResponse response = (MrcpResponse) written.get(0);
+        assertEquals(MrcpResponse.STATUS_MESSAGE_TOO_LARGE, response.getStatusCode());
+        assertEquals(5, response.getRequestID());
+        Queue<Object> output = _session.getDecoderOutputQueue();
+        assertEquals(1, output.size());
+        assertEquals(6, ((MrcpRequest) output.poll()).getRequestID());
+    }
+
+    @Test
+    public void testChannelIdentifierAfterHeaderLimit() throws Exception {
+        List<Object> written = captureWrites();
+        _decoder.setLimits(10000, 2, 200);
+        String message = frame(" SET-PARAMS 5\r\nA:1\r\nB:2\r\nC:3\r\nChannel-Identifier:1@speechrecog\r\nD:4\r\n\r\n");
+        decode(message + request("GET-PARAMS", 6, null));
+
+        assertEquals(1, written.size());
+        MrcpResponse response = (MrcpResponse) written.get(0);
+        assertEquals(MrcpResponse.STATUS_MESSAGE_TOO_LARGE, response.getStatusCode());
+        assertEquals(5, response.getRequestID());
+        assertEquals("1@speechrecog", response.getChannelIdentifier().toString());
+        assertEquals(6, ((MrcpRequest) _session.getDecoderOutputQueue().poll()).getRequestID());
+    }
+
+    @Test
+    public void testHeaderLimitWithoutChannelIdentifier() throws Exception {
+        List<Object> written = captureWrites();
+        _decoder.setLimits(10000, 2, 200);
+        decode(frame(" SET-PARAMS 5\r\nA:1\r\nB:2\r\nC:3\r\n\r\n"));
+
+        // a response the client cannot route is not sent, the connection is closed instead
+        assertTrue(written.isEmpty());
+        assertTrue(_session.isClosing());
+    }
+
+    @Test(expected = ProtocolDecoderException.class)
+    public void testStartLineTooLong() throws Exception {
+        _decoder.setLimits(10000, 10, 20);
+        decode("MRCP/2.0 1000 SET-PARAMS 12345678901234567890");
+    }
+
+    @Test(expected = ProtocolDecoderException.class)
+    public void testCompleteStartLineTooLong() throws Exception {
+        _decoder.setLimits(10000, 10, 20);
+        decode(request("SET-PARAMS", 1234567890123L, null));
+    }
+
+    @Test
+    public void testRequestSplitInsideStartLine() throws Exception {
+        String message = request("RECOGNIZE", 3, "<grammar/>");
+        Queue<Object> output = _session.getDecoderOutputQueue();
+
+        decode(message.substring(0, 5));
+        decode(message.substring(5, 12));
+        assertTrue(output.isEmpty());
+        decode(message.substring(12));
+
+        assertEquals(1, output.size());
+        assertEquals("<grammar/>", ((MrcpRequest) output.poll()).getContent());
+    }
+
+    @Test
+    public void testPipelinedRequests() throws Exception {
+        String first = request("DEFINE-GRAMMAR", 1, "<grammar>one</grammar>");
+        String second = request("RECOGNIZE", 2, null);
+        String third = request("STOP", 3, null);
+
+        // two and a half messages in the first read, the rest in the second
+        String data = first + second + third;
+        int split = first.length() + second.length() + third.length() / 2;
+        decode(data.substring(0, split));
+
+        Queue<Object> output = _session.getDecoderOutputQueue();
+        assertEquals(2, output.size());
+        assertEquals(1, ((MrcpRequest) output.poll()).getRequestID());
+        assertEquals(2, ((MrcpRequest) output.poll()).getRequestID());
+
+        decode(data.substring(split));
+        assertEquals(1, output.size());
+        MrcpRequest request = (MrcpRequest) output.poll();
+        assertEquals(MrcpMethodName.STOP, request.getMethodName());
+        assertEquals(3, request.getRequestID());
+    }
+
+    @Test
+    public void testLeadingLineBreaksIgnored() throws Exception {
+        decode("\r\n\r\n" + request("GET-PARAMS", 4, null));
+
+        Queue<Object> output = _session.getDecoderOutputQueue();
+        assertEquals(1, output.size());
+        assertEquals(MrcpMethodName.GET_PARAMS, ((MrcpRequest) output.poll()).getMethodName());
+    }
+
+    @Test(expected = ProtocolDecoderException.class)
+    public void testContentLengthExceedsMessageLength() throws Exception {
+        decode("MRCP/2.0 76 SET-PARAMS 1\r\nContent-Type:text/plain\r\nContent-Length:100\r\n\r\nabc");
+    }
+
+    @Test
+    public void testMultiByteContentRoundTrip() throws Exception {
+        String ssml = "<speak>Caf\u00e9 \u65e5\u672c</speak>";
+        MrcpRequest request = MrcpRequestFactory.createRequest(MrcpMethodName.SPEAK);
+        request.setVersion(MrcpMessage.MRCP_VERSION_2_0);
+        request.setRequestID(9);
+        request.addHeader(MrcpHeaderName.CHANNEL_IDENTIFIER.createHeader("32AECB23433801@speechsynth"));
+        request.setContent("application/ssml+xml; charset=UTF-8", null, ssml);
+        byte[] encoded = (ssml + "\r\n").getBytes(StandardCharsets.UTF_8);
+        assertEquals(Integer.toString(encoded.length), request.getHeader(MrcpHeaderName.CONTENT_LENGTH).getValueString());
+
+        IoBuffer buffer = IoBuffer.allocate(MrcpMessageWriter.prepare(request));
+        MrcpMessageWriter.write(request, buffer.buf());
+        buffer.flip();
+        _decoder.decode(_session, buffer, _session.getDecoderOutput());
+
+        MrcpRequest decoded = (MrcpRequest) _session.getDecoderOutputQueue().poll();
+        assertEquals(ssml + "\r\n", decoded.getContent());
+        assertEquals(encoded.length, decoded.getContentByteLength());
+        assertEquals(ByteBuffer.wrap(encoded), decoded.getContentBytes());
+    }
+
+    @Test(expected = ProtocolDecoderException.class)
+    public void testIncorrectRequestLine() throws Exception {
+        decode("MRCP/2.0 SET-PARAMS 1\r\n\r\n");
+    }
+}
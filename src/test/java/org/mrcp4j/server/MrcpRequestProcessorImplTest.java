@@ -0,0 +1,226 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.server;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.mina.core.filterchain.IoFilterAdapter;
+import org.apache.mina.core.session.DummySession;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.core.write.WriteRequest;
+import org.junit.Before;
+import org.junit.Test;
+import org.mrcp4j.MrcpEventName;
+import org.mrcp4j.MrcpMethodName;
+import org.mrcp4j.MrcpRequestState;
+import org.mrcp4j.message.MrcpEvent;
+import org.mrcp4j.message.MrcpMessage;
+import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.header.MrcpHeaderName;
+import org.mrcp4j.message.request.MrcpRequest;
+import org.mrcp4j.message.request.MrcpRequestFactory;
+
+/**
+ * Unit tests for {@link MrcpRequestProcessorImpl}.
+ */
+public class MrcpRequestProcessorImplTest {
+
+    private static final String CHANNEL_ID = "32AECB23433801@speechrecog";
+
+    private List<Object> _written;
+    private DummySession _ioSession;
+    private MrcpRequestProcessorImpl _processor;
+    private MrcpSession _session;
+
+    @Before
+    public void setUp() {
+        _written = new ArrayList<Object>();
+        _ioSession = new DummySession();
+        _ioSession.getFilterChain().addLast("capture", new IoFilterAdapter() {
+            @Override
+            public void filterWrite(NextFilter nextFilter, IoSession session, WriteRequest writeRequest) {
+                _written.add(writeRequest.getMessage());
+            }
+        });
+
+        _processor = new MrcpRequestProcessorImpl();
+        _processor.registerRequestHandler(CHANNEL_ID, new MrcpRequestHandler() {
+            public MrcpResponse handleRequest(MrcpRequest request, MrcpSession session) {
+                _session = session;
+                return session.createResponse(MrcpResponse.STATUS_SUCCESS, MrcpRequestState.IN_PROGRESS);
+            }
+        });
+    }
+
+    private static MrcpRequest createRequest(String channelID, long requestID) {
+        MrcpRequest request = MrcpRequestFactory.createRequest(MrcpMethodName.RECOGNIZE);
+        request.setVersion(MrcpMessage.MRCP_VERSION_2_0);
+        request.setRequestID(requestID);
+        if (channelID != null) {
+            request.addHeader(MrcpHeaderName.CHANNEL_IDENTIFIER.createHeader(channelID));
+        }
+        return request;
+    }
+
+    @Test
+    public void testEventsWrittenAfterResponse() throws Exception {
+        MrcpResponse response = _processor.processRequest(createRequest(CHANNEL_ID, 1), _ioSession).toCompletableFuture().get();
+        assertEquals(MrcpRequestState.IN_PROGRESS, response.getRequestState());
+        assertEquals(1, _processor.getInProgressRequestCount());
+
+        MrcpEvent started = _session.createEvent(MrcpEventName.START_OF_INPUT, MrcpRequestState.IN_PROGRESS);
+        assertNotNull(_session.postEvent(started));
+        MrcpEvent completed = _session.createEvent(MrcpEventName.RECOGNITION_COMPLETE, MrcpRequestState.COMPLETE);
+        assertNotNull(_session.postEvent(completed));
+
+        assertEquals(3, _written.size());
+        assertSame(response, _written.get(0));
+        assertSame(started, _written.get(1));
+        assertSame(completed, _written.get(2));
+        assertEquals(0, _processor.getInProgressRequestCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPostEventAfterComplete() throws Exception {
+        _processor.processRequest(createRequest(CHANNEL_ID, 1), _ioSession);
+        _session.postEvent(_session.createEvent(MrcpEventName.RECOGNITION_COMPLETE, MrcpRequestState.COMPLETE));
+        _session.postEvent(_session.createEvent(MrcpEventName.RECOGNITION_COMPLETE, MrcpRequestState.COMPLETE));
+    }
+
+    @Test
+    public void testPostEventAfterConnectionClosed() throws Exception {
+        _processor.processRequest(createRequest(CHANNEL_ID, 1), _ioSession);
+        _ioSession.closeNow();
+        try {
+            _session.postEvent(_session.createEvent(MrcpEventName.START_OF_INPUT, MrcpRequestState.IN_PROGRESS));
+            fail("Expected TimeoutException");
+        } catch (TimeoutException e) {
+            // expected
+        }
+        assertEquals(0, _processor.getInProgressRequestCount());
+    }
+
+    @Test
+    public void testConnectionClosed() {
+        _processor.processRequest(createRequest(CHANNEL_ID, 1), _ioSession);
+        _processor.processRequest(createRequest(CHANNEL_ID, 2), _ioSession);
+        _processor.processRequest(createRequest(CHANNEL_ID, 3), new DummySession());
+        assertEquals(3, _processor.getInProgressRequestCount());
+
+        _processor.connectionClosed(_ioSession);
+        assertEquals(1, _processor.getInProgressRequestCount());
+    }
+
+    @Test
+    public void testStopRemovesStoppedRequests() throws Exception {
+        _processor.registerRequestHandler(CHANNEL_ID, new MrcpRequestHandler() {
+            public MrcpResponse handleRequest(MrcpRequest request, MrcpSession session) {
+                if (request.getMethodName() != MrcpMethodName.STOP) {
+                    return session.createResponse(MrcpResponse.STATUS_SUCCESS, MrcpRequestState.IN_PROGRESS);
+                }
+                MrcpResponse response = session.createResponse(MrcpResponse.STATUS_SUCCESS, MrcpRequestState.COMPLETE);
+                response.addHeader(MrcpHeaderName.ACTIVE_REQUEST_ID_LIST.createHeader("1,2"));
+                return response;
+            }
+        });
+        _processor.processRequest(createRequest(CHANNEL_ID, 1), _ioSession);
+        _processor.processRequest(createRequest(CHANNEL_ID, 2), _ioSession);
+        _processor.processRequest(createRequest(CHANNEL_ID, 3), _ioSession);
+        assertEquals(3, _processor.getInProgressRequestCount());
+
+        MrcpRequest stop = MrcpRequestFactory.createRequest(MrcpMethodName.STOP);
+        stop.setVersion(MrcpMessage.MRCP_VERSION_2_0);
+        stop.setRequestID(4);
+        stop.addHeader(MrcpHeaderName.CHANNEL_IDENTIFIER.createHeader(CHANNEL_ID));
+        _processor.processRequest(stop, _ioSession);
+        assertEquals(1, _processor.getInProgressRequestCount());
+    }
+
+    @Test
+    public void testErrorResponses() throws Exception {
+        MrcpResponse response = _processor.processRequest(createRequest(null, 1), _ioSession).toCompletableFuture().get();
+        assertEquals(MrcpResponse.STATUS_MANDATORY_HEADER_MISSING, response.getStatusCode());
+
+        response = _processor.processRequest(createRequest("1234@speechsynth", 2), _ioSession).toCompletableFuture().get();
+        assertEquals(MrcpResponse.STATUS_RESOURCE_NOT_ALLOCATED, response.getStatusCode());
+
+        assertEquals(2, _written.size());
+        assertEquals(0, _processor.getInProgressRequestCount());
+    }
+
+    @Test
+    public void testAsyncResponseWrittenOnCompletion() throws Exception {
+        final CompletableFuture<MrcpResponse> pending = new CompletableFuture<MrcpResponse>();
+        _processor.registerAsyncRequestHandler(CHANNEL_ID, new AsyncMrcpRequestHandler() {
+            public CompletionStage<MrcpResponse> handleRequest(MrcpRequest request, MrcpSession session) {
+                _session = session;
+                return pending;
+            }
+        });
+
+        CompletableFuture<MrcpResponse> result =
+            _processor.processRequest(createRequest(CHANNEL_ID, 1), _ioSession).toCompletableFuture();
+        assertFalse(result.isDone());
+        assertTrue(_written.isEmpty());
+
+        MrcpResponse response = _session.createResponse(MrcpResponse.STATUS_SUCCESS, MrcpRequestState.IN_PROGRESS);
+        pending.complete(response);
+        assertSame(response, result.get());
+        assertEquals(1, _written.size());
+        assertSame(response, _written.get(0));
+        assertEquals(1, _processor.getInProgressRequestCount());
+
+        MrcpEvent completed = _session.createEvent(MrcpEventName.RECOGNITION_COMPLETE, MrcpRequestState.COMPLETE);
+        assertNotNull(_session.postEvent(completed));
+        assertSame(completed, _written.get(1));
+        assertEquals(0, _processor.getInProgressRequestCount());
+    }
+
+    @Test
+    public void testAsyncFailureRespondsWithServerError() throws Exception {
+        final CompletableFuture<MrcpResponse> pending = new CompletableFuture<MrcpResponse>();
+        _processor.registerAsyncRequestHandler(CHANNEL_ID, new AsyncMrcpRequestHandler() {
+            public CompletionStage<MrcpResponse> handleRequest(MrcpRequest request, MrcpSession session) {
+                return pending;
+            }
+        });
+
+        CompletableFuture<MrcpResponse> result =
+            _processor.processRequest(createRequest(CHANNEL_ID, 7), _ioSession).toCompletableFuture();
+        pending.completeExceptionally(new IllegalStateException("engine unavailable"));
+
+        MrcpResponse response = result.get();
+        assertEquals(MrcpResponse.STATUS_SERVER_INTERNAL_ERROR, response.getStatusCode());
+        assertEquals(MrcpRequestState.COMPLETE, response.getRequestState());
+        assertEquals(7, response.getRequestID());
+        assertEquals(1, _written.size());
+        assertEquals(0, _processor.getInProgressRequestCount());
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.server;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.junit.Test;
+import org.mrcp4j.MrcpEventName;
+import org.mrcp4j.MrcpMethodName;
+import org.mrcp4j.MrcpRequestState;
+import org.mrcp4j.message.MrcpEvent;
+import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.header.MrcpHeaderName;
+import org.mrcp4j.message.request.MrcpRequest;
+import org.mrcp4j.message.request.MrcpRequestFactory;
+import org.mrcp4j.util.LatencyHistogram;
+
+/**
+ * Unit tests for {@link MrcpServerMetrics}.
+ */
+public class MrcpServerMetricsTest {
+
+    private static MrcpRequest createRequest(MrcpMethodName methodName, String channelID) {
+        MrcpRequest request = MrcpRequestFactory.createRequest(methodName);
+        if (channelID != null) {
+            request.addHeader(MrcpHeaderName.CHANNEL_IDENTIFIER.createHeader(channelID));
+        }
+        return request;
+    }
+
+    private static MrcpResponse createResponse(short statusCode) {
+        MrcpResponse response = new MrcpResponse();
+        response.setStatusCode(statusCode);
+        response.setRequestState(MrcpRequestState.COMPLETE);
+        return response;
+    }
+
+    @Test
+    public void testRequestLatenciesByResourceAndMethod() {
+        MrcpServerMetrics metrics = new MrcpServerMetrics();
+        MrcpRequest recognize = createRequest(MrcpMethodName.RECOGNIZE, "1@speechrecog");
+        metrics.record(MrcpServerMetrics.Stage.HANDLER, recognize, 1000);
+        metrics.record(MrcpServerMetrics.Stage.HANDLER, recognize, 3000);
+        metrics.record(MrcpServerMetrics.Stage.HANDLER, createRequest(MrcpMethodName.SPEAK, "2@speechsynth"), 500);
+        metrics.record(MrcpServerMetrics.Stage.HANDLER, createRequest(MrcpMethodName.STOP, null), 10);
+        metrics.record(MrcpServerMetrics.Stage.QUEUE_WAIT, recognize, 20);
+
+        Map<String, LatencyHistogram.Snapshot> handler = metrics.getHandlerLatency();
+        assertEquals(3, handler.size());
+        assertEquals(2, handler.get("speechrecog/RECOGNIZE").getCount());
+        assertEquals(2000, handler.get("speechrecog/RECOGNIZE").getMean());
+        assertEquals(1, handler.get("speechsynth/SPEAK").getCount());
+        assertEquals(1, handler.get("unknown/STOP").getCount());
+        assertEquals(1, metrics.getQueueWaitLatency().size());
+        assertTrue(metrics.getDecodeLatency().isEmpty());
+
+        metrics.reset();
+        assertTrue(metrics.getHandlerLatency().isEmpty());
+    }
+
+    @Test
+    public void testEncodeAndStatusCounts() {
+        MrcpServerMetrics metrics = new MrcpServerMetrics();
+        metrics.recordEncode(createResponse(MrcpResponse.STATUS_SUCCESS), 100);
+        metrics.recordEncode(createResponse(MrcpResponse.STATUS_SUCCESS), 100);
+        metrics.recordEncode(createResponse(MrcpResponse.STATUS_MESSAGE_TOO_LARGE), 100);
+        MrcpEvent event = new MrcpEvent();
+        event.setEventName(MrcpEventName.RECOGNITION_COMPLETE);
+        metrics.recordEncode(event, 100);
+
+        Map<String, Long> counts = metrics.getResponseCounts();
+        assertEquals(Long.valueOf(2), counts.get("200"));
+        assertEquals(Long.valueOf(1), counts.get("504"));
+        assertEquals(2, counts.size());
+        assertEquals(3, metrics.getEncodeLatency().get("response").getCount());
+        assertEquals(1, metrics.getEncodeLatency().get("event").getCount());
+    }
+
+    @Test
+    public void testMXBean() throws Exception {
+        MrcpServerMetrics metrics = new MrcpServerMetrics();
+        metrics.record(MrcpServerMetrics.Stage.DECODE, createRequest(MrcpMethodName.RECOGNIZE, "1@speechrecog"), 42);
+        metrics.recordEncode(createResponse(MrcpResponse.STATUS_SUCCESS), 100);
+
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        ObjectName name = new ObjectName("org.mrcp4j:type=MrcpServerSocket,address=\"0.0.0.0\",port=0");
+        server.registerMBean(metrics, name);
+
+        TabularData decode = (TabularData) server.getAttribute(name, "DecodeLatency");
+        CompositeData row = decode.get(new Object[] {"speechrecog/RECOGNIZE"});
+        CompositeData snapshot = (CompositeData) row.get("value");
+        assertEquals(Long.valueOf(1), snapshot.get("count"));
+        assertEquals(Long.valueOf(42), snapshot.get("max"));
+
+        TabularData counts = (TabularData) server.getAttribute(name, "ResponseCounts");
+        assertEquals(Long.valueOf(1), counts.get(new Object[] {"200"}).get("value"));
+
+        MrcpServerMetricsMXBean proxy = JMX.newMXBeanProxy(server, name, MrcpServerMetricsMXBean.class);
+        assertEquals(42, proxy.getDecodeLatency().get("speechrecog/RECOGNIZE").getMax());
+
+        server.invoke(name, "reset", null, null);
+        assertTrue(metrics.getDecodeLatency().isEmpty());
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.server;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.mrcp4j.MrcpResourceType;
+import org.mrcp4j.message.header.ChannelIdentifier;
+
+/**
+ * Unit tests for {@link RequestKey}.
+ */
+public class RequestKeyTest {
+
+    @Test
+    public void testEqualsAndHashCode() {
+        RequestKey key = new RequestKey(new ChannelIdentifier("32AECB23433801", MrcpResourceType.SPEECHRECOG), 42);
+        RequestKey same = new RequestKey(new ChannelIdentifier("32AECB23433801", MrcpResourceType.SPEECHRECOG), 42);
+        assertEquals(key, same);
+        assertEquals(key.hashCode(), same.hashCode());
+
+        assertFalse(key.equals(new RequestKey(new ChannelIdentifier("32AECB23433801", MrcpResourceType.SPEECHRECOG), 43)));
+        assertFalse(key.equals(new RequestKey(new ChannelIdentifier("32AECB23433802", MrcpResourceType.SPEECHRECOG), 42)));
+        assertFalse(key.equals(null));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullChannelIdentifier() {
+        new RequestKey(null, 1);
+    }
+
+}
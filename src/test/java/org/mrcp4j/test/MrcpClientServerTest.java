@@ -22,20 +22,39 @@
  */
 package org.mrcp4j.test;
 
+import static org.mrcp4j.client.MrcpProvider.PROTOCOL_LOCAL_MRCPv2;
 import static org.mrcp4j.client.MrcpProvider.PROTOCOL_TCP_MRCPv2;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import org.junit.After;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Before;
-import org.junit.Ignore;
 import org.junit.Test;
+import org.mrcp4j.MrcpEventName;
 import org.mrcp4j.MrcpMethodName;
 import org.mrcp4j.MrcpRequestState;
 import org.mrcp4j.client.MrcpChannel;
+import org.mrcp4j.client.MrcpClientMetrics;
+import org.mrcp4j.client.MrcpEventListener;
 import org.mrcp4j.client.MrcpFactory;
+import org.mrcp4j.client.MrcpInvocationException;
 import org.mrcp4j.client.MrcpProvider;
+import org.mrcp4j.message.MrcpEvent;
 import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.header.MrcpHeaderName;
 import org.mrcp4j.message.request.MrcpRequest;
 import org.mrcp4j.message.request.MrcpRequestFactory.UnimplementedRequest;
 import org.mrcp4j.message.request.StartInputTimersRequest;
@@ -49,6 +68,7 @@ public class MrcpClientServerTest {
     private static final int MRCP_SERVER_PORT = 32414;
 
     private MrcpServerSocket _mrcpServer;
+    private MrcpProvider _provider;
     private MrcpChannel _recogChannel;
 
     // for some reason the @Before method is not getting called (maybe something to do with maven?)
@@ -66,8 +86,20 @@ public class MrcpClientServerTest {
         _mrcpServer.openChannel(channelID, new DummyRequestHandler());
 
         // setup client
-        MrcpProvider provider = MrcpFactory.newInstance().createProvider();
-        _recogChannel = provider.createChannel(channelID, InetAddress.getLocalHost(), MRCP_SERVER_PORT, PROTOCOL_TCP_MRCPv2);
+        _provider = MrcpFactory.newInstance().createProvider();
+        _recogChannel = _provider.createChannel(channelID, InetAddress.getLocalHost(), MRCP_SERVER_PORT, PROTOCOL_TCP_MRCPv2);
+    }
+
+    @After
+    public void tearDown() {
+        if (_provider != null) {
+            _provider.dispose();
+            _provider = null;
+        }
+        if (_mrcpServer != null) {
+            _mrcpServer.dispose();
+            _mrcpServer = null;
+        }
     }
 
     @Test
@@ -82,7 +114,89 @@ public class MrcpClientServerTest {
     }
 
     @Test
-    @Ignore()  
+    public void testMetrics() throws Exception {
+
+        // force setup
+        setUp();
+
+        MrcpRequest request = _recogChannel.createRequest(MrcpMethodName.SET_PARAMS);
+        _recogChannel.sendRequest(request);
+
+        Assert.assertEquals(1, _mrcpServer.getMetrics().getDecodeLatency().get("speechrecog/SET-PARAMS").getCount());
+        Set<ObjectName> names = ManagementFactory.getPlatformMBeanServer().queryNames(
+                new ObjectName("org.mrcp4j:type=MrcpServerSocket,port=" + MRCP_SERVER_PORT + ",*"), null);
+        Assert.assertEquals(1, names.size());
+        ObjectName name = names.iterator().next();
+        TabularData counts = (TabularData) ManagementFactory.getPlatformMBeanServer().getAttribute(name, "ResponseCounts");
+        Assert.assertEquals(Long.valueOf(1), counts.get(new Object[] {"200"}).get("value"));
+    }
+
+    @Test
+    public void testClientMetrics() throws Exception {
+
+        // force setup
+        setUp();
+
+        final CountDownLatch complete = new CountDownLatch(1);
+        _recogChannel.addEventListener(new MrcpEventListener() {
+            public void eventReceived(MrcpEvent event) {
+                if (event.getRequestState() == MrcpRequestState.COMPLETE) {
+                    complete.countDown();
+                }
+            }
+        });
+        _recogChannel.sendRequest(_recogChannel.createRequest(MrcpMethodName.SET_PARAMS));
+        MrcpResponse response = _recogChannel.sendRequest(_recogChannel.createRequest(MrcpMethodName.RECOGNIZE));
+        Assert.assertEquals(MrcpRequestState.IN_PROGRESS, response.getRequestState());
+        Assert.assertTrue(complete.await(10, TimeUnit.SECONDS));
+
+        MrcpClientMetrics channelMetrics = _recogChannel.getMetrics();
+        Assert.assertEquals(1, channelMetrics.getRoundTripLatency().get("SET-PARAMS").getCount());
+        Assert.assertEquals(1, channelMetrics.getRoundTripLatency().get("RECOGNIZE").getCount());
+        Assert.assertEquals(1, channelMetrics.getCompletionLatency().get("RECOGNIZE").getCount());
+        Assert.assertNull(channelMetrics.getCompletionLatency().get("SET-PARAMS"));
+        Assert.assertEquals(1, _provider.getMetrics().getCompletionLatency().get("RECOGNIZE").getCount());
+
+        channelMetrics.reset();
+        Assert.assertTrue(channelMetrics.getRoundTripLatency().isEmpty());
+        Assert.assertFalse(_provider.getMetrics().getRoundTripLatency().isEmpty());
+    }
+
+    @Test
+    public void testStoppedRequestCompleted() throws Exception {
+        MrcpServerSocket server = new MrcpServerSocket(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), null);
+        MrcpProvider provider = MrcpFactory.newInstance().createProvider();
+        try {
+            String channelID = Long.toString(System.nanoTime()) + "@" + "SPEECHRECOG";
+            server.openChannel(channelID, new DummyRequestHandler() {
+
+                private long _activeRequestID;
+
+                @Override
+                public MrcpResponse recognize(UnimplementedRequest request, MrcpSession session) {
+                    _activeRequestID = request.getRequestID();
+                    return session.createResponse(MrcpResponse.STATUS_SUCCESS, MrcpRequestState.IN_PROGRESS);
+                }
+
+                @Override
+                public MrcpResponse stop(StopRequest request, MrcpSession session) {
+                    MrcpResponse response = session.createResponse(MrcpResponse.STATUS_SUCCESS, MrcpRequestState.COMPLETE);
+                    response.addHeader(MrcpHeaderName.ACTIVE_REQUEST_ID_LIST.createHeader(Long.toString(_activeRequestID)));
+                    return response;
+                }
+            });
+            MrcpChannel channel = provider.createChannel(channelID, InetAddress.getLoopbackAddress(), server.getPort(), PROTOCOL_TCP_MRCPv2);
+            channel.sendRequest(channel.createRequest(MrcpMethodName.RECOGNIZE));
+            Assert.assertNull(channel.getMetrics().getCompletionLatency().get("RECOGNIZE"));
+            channel.sendRequest(channel.createRequest(MrcpMethodName.STOP));
+            Assert.assertEquals(1, channel.getMetrics().getCompletionLatency().get("RECOGNIZE").getCount());
+        } finally {
+            provider.dispose();
+            server.dispose();
+        }
+    }
+
+    @Test
     public void testLargeGrammar() throws Exception {
 
         // force setup
@@ -90,7 +204,7 @@ public class MrcpClientServerTest {
 
         MrcpRequest request = _recogChannel.createRequest(MrcpMethodName.DEFINE_GRAMMAR);
         StringBuilder content = new StringBuilder();
-        for (int i = 0; i < 256; i++) { // TODO: make this larger (currently causes the response to never be received)
+        for (int i = 0; i < 200 * 1024; i++) {
             content.append('a');
         }
         request.setContent("application/jsgf", null, content.toString());
@@ -98,6 +212,214 @@ public class MrcpClientServerTest {
         Assert.assertEquals(MrcpResponse.STATUS_SUCCESS, response.getStatusCode());
     }
 
+    @Test
+    public void testSendRequestAsync() throws Exception {
+
+        // force setup
+        setUp();
+
+        MrcpRequest recognize = _recogChannel.createRequest(MrcpMethodName.RECOGNIZE);
+        MrcpRequest stop = _recogChannel.createRequest(MrcpMethodName.STOP);
+        CompletableFuture<MrcpResponse> recognizeFuture = _recogChannel.sendRequestAsync(recognize);
+        CompletableFuture<MrcpResponse> stopFuture = _recogChannel.sendRequestAsync(stop);
+
+        MrcpResponse stopResponse = stopFuture.get(10, TimeUnit.SECONDS);
+        MrcpResponse recognizeResponse = recognizeFuture.get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(stop.getRequestID(), stopResponse.getRequestID());
+        Assert.assertEquals(recognize.getRequestID(), recognizeResponse.getRequestID());
+        Assert.assertEquals(MrcpResponse.STATUS_SUCCESS, recognizeResponse.getStatusCode());
+    }
+
+    @Test
+    public void testLocalTransport() throws Exception {
+
+        // force setup
+        setUp();
+
+        String channelID = Long.toString(System.nanoTime()) + "@" + "SPEECHRECOG";
+        _mrcpServer.openChannel(channelID, new DummyRequestHandler());
+        _mrcpServer.bindLocal();
+        MrcpChannel channel = _provider.createChannel(channelID, null, MRCP_SERVER_PORT, PROTOCOL_LOCAL_MRCPv2);
+
+        final CountDownLatch complete = new CountDownLatch(1);
+        channel.addEventListener(new MrcpEventListener() {
+            public void eventReceived(MrcpEvent event) {
+                if (event.getRequestState() == MrcpRequestState.COMPLETE) {
+                    complete.countDown();
+                }
+            }
+        });
+
+        MrcpRequest request = channel.createRequest(MrcpMethodName.DEFINE_GRAMMAR);
+        request.setContent("application/jsgf", null, "#JSGF V1.0;");
+        MrcpResponse response = channel.sendRequest(request);
+        Assert.assertEquals(MrcpResponse.STATUS_SUCCESS, response.getStatusCode());
+        Assert.assertEquals(request.getRequestID(), response.getRequestID());
+
+        response = channel.sendRequest(channel.createRequest(MrcpMethodName.RECOGNIZE));
+        Assert.assertEquals(MrcpRequestState.IN_PROGRESS, response.getRequestState());
+        Assert.assertTrue(complete.await(10, TimeUnit.SECONDS));
+
+        Assert.assertEquals(1, _mrcpServer.getMetrics().getDecodeLatency().get("speechrecog/DEFINE-GRAMMAR").getCount());
+        Assert.assertEquals(Long.valueOf(2), _mrcpServer.getMetrics().getResponseCounts().get("200"));
+        Assert.assertEquals(2, _mrcpServer.getMetrics().getEncodeLatency().get("response").getCount());
+        Assert.assertEquals(1, _mrcpServer.getMetrics().getEncodeLatency().get("event").getCount());
+    }
+
+    @Test
+    public void testLoopbackEphemeralPort() throws Exception {
+        MrcpServerSocket server = new MrcpServerSocket(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), null);
+        MrcpProvider provider = MrcpFactory.newInstance().createProvider();
+        try {
+            Assert.assertTrue(server.getPort() > 0);
+            String channelID = Long.toString(System.nanoTime()) + "@" + "SPEECHRECOG";
+            server.openChannel(channelID, new DummyRequestHandler());
+            MrcpChannel channel = provider.createChannel(channelID, InetAddress.getLoopbackAddress(), server.getPort(), PROTOCOL_TCP_MRCPv2);
+            MrcpResponse response = channel.sendRequest(channel.createRequest(MrcpMethodName.SET_PARAMS));
+            Assert.assertEquals(MrcpResponse.STATUS_SUCCESS, response.getStatusCode());
+        } finally {
+            provider.dispose();
+            server.dispose();
+        }
+    }
+
+    @Test
+    public void testStreamedContentNotRead() throws Exception {
+        MrcpServerSocket server = new MrcpServerSocket(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), null);
+        server.setContentStreaming(1024, 4096);
+        MrcpProvider provider = MrcpFactory.newInstance().createProvider();
+        try {
+            String channelID = Long.toString(System.nanoTime()) + "@" + "SPEECHRECOG";
+            server.openChannel(channelID, new DummyRequestHandler());
+            MrcpChannel channel = provider.createChannel(channelID, InetAddress.getLoopbackAddress(), server.getPort(), PROTOCOL_TCP_MRCPv2);
+            MrcpChannel unregistered = provider.createChannel("1@speechrecog", InetAddress.getLoopbackAddress(), server.getPort(), PROTOCOL_TCP_MRCPv2);
+            StringBuilder content = new StringBuilder();
+            for (int i = 0; i < 200 * 1024; i++) {
+                content.append('a');
+            }
+
+            // answered without a request handler
+            MrcpRequest request = unregistered.createRequest(MrcpMethodName.DEFINE_GRAMMAR);
+            request.setContent("application/jsgf", null, content.toString());
+            try {
+                unregistered.sendRequestAsync(request).get(10, TimeUnit.SECONDS);
+                Assert.fail("channel not allocated");
+            } catch (ExecutionException e) {
+                MrcpResponse response = ((MrcpInvocationException) e.getCause()).getResponse();
+                Assert.assertEquals(MrcpResponse.STATUS_RESOURCE_NOT_ALLOCATED, response.getStatusCode());
+            }
+            MrcpResponse response = channel.sendRequestAsync(channel.createRequest(MrcpMethodName.SET_PARAMS)).get(10, TimeUnit.SECONDS);
+            Assert.assertEquals(MrcpResponse.STATUS_SUCCESS, response.getStatusCode());
+
+            // answered by a request handler that does not read the content
+            request = channel.createRequest(MrcpMethodName.DEFINE_GRAMMAR);
+            request.setContent("application/jsgf", null, content.toString());
+            response = channel.sendRequestAsync(request).get(10, TimeUnit.SECONDS);
+            Assert.assertEquals(MrcpResponse.STATUS_SUCCESS, response.getStatusCode());
+            response = channel.sendRequestAsync(channel.createRequest(MrcpMethodName.SET_PARAMS)).get(10, TimeUnit.SECONDS);
+            Assert.assertEquals(MrcpResponse.STATUS_SUCCESS, response.getStatusCode());
+        } finally {
+            provider.dispose();
+            server.dispose();
+        }
+    }
+
+    @Test
+    public void testResponseTooLarge() throws Exception {
+        MrcpServerSocket server = new MrcpServerSocket(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), null);
+        MrcpProvider provider = MrcpFactory.newInstance().createProvider();
+        provider.setMessageLimits(1024, 10, 200);
+        try {
+            String channelID = Long.toString(System.nanoTime()) + "@" + "SPEECHRECOG";
+            server.openChannel(channelID, new DummyRequestHandler() {
+                @Override
+                public MrcpResponse getParams(UnimplementedRequest request, MrcpSession session) {
+                    MrcpResponse response = session.createResponse(MrcpResponse.STATUS_SUCCESS, MrcpRequestState.COMPLETE);
+                    StringBuilder content = new StringBuilder();
+                    for (int i = 0; i < 4096; i++) {
+                        content.append('a');
+                    }
+                    response.setContent("text/plain", null, content.toString());
+                    return response;
+                }
+            });
+            MrcpChannel channel = provider.createChannel(channelID, InetAddress.getLoopbackAddress(), server.getPort(), PROTOCOL_TCP_MRCPv2);
+            try {
+                channel.sendRequestAsync(channel.createRequest(MrcpMethodName.GET_PARAMS)).get(10, TimeUnit.SECONDS);
+                Assert.fail("response exceeds the message limits");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof IOException);
+            }
+
+            // the connection remains usable
+            MrcpResponse response = channel.sendRequest(channel.createRequest(MrcpMethodName.SET_PARAMS));
+            Assert.assertEquals(MrcpResponse.STATUS_SUCCESS, response.getStatusCode());
+        } finally {
+            provider.dispose();
+            server.dispose();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testLocalTransportNotListening() throws Exception {
+
+        // force setup
+        setUp();
+
+        // not enabled by bindLocal()
+        _provider.createChannel("1@speechrecog", null, MRCP_SERVER_PORT, PROTOCOL_LOCAL_MRCPv2);
+    }
+
+    @Test
+    public void testBindLocalConflict() throws Exception {
+        MrcpServerSocket first = new MrcpServerSocket(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), null);
+        MrcpServerSocket second = null;
+        try {
+            first.bindLocal();
+            try {
+                // same port on another local address (the whole 127/8 network is local on Linux)
+                second = new MrcpServerSocket(new InetSocketAddress("127.0.0.2", first.getPort()), null);
+            } catch (IOException e) {
+                Assume.assumeNoException(e);
+            }
+            try {
+                second.bindLocal();
+                Assert.fail("in-JVM port number already bound");
+            } catch (IOException e) {
+                // expected, the TCP socket stays usable
+            }
+            Assert.assertEquals(first.getPort(), second.getPort());
+        } finally {
+            if (second != null) {
+                second.dispose();
+            }
+            first.dispose();
+        }
+    }
+
+    @Test
+    public void testMetricsNamedByAddress() throws Exception {
+        MrcpServerSocket first = new MrcpServerSocket(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), null);
+        MrcpServerSocket second = null;
+        try {
+            try {
+                second = new MrcpServerSocket(new InetSocketAddress("127.0.0.2", first.getPort()), null);
+            } catch (IOException e) {
+                Assume.assumeNoException(e);
+            }
+            for (String address : new String[] {"127.0.0.1", "127.0.0.2"}) {
+                ObjectName name = new ObjectName("org.mrcp4j:type=MrcpServerSocket,address=" +
+                        ObjectName.quote(address) + ",port=" + first.getPort());
+                Assert.assertTrue(name.toString(), ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+            }
+        } finally {
+            if (second != null) {
+                second.dispose();
+            }
+            first.dispose();
+        }
+    }
+
     private static class DummyRequestHandler implements RecogOnlyRequestHandler {
 
         public MrcpResponse startInputTimers(StartInputTimersRequest request, MrcpSession session) {
@@ -128,8 +450,19 @@ public class MrcpClientServerTest {
             return session.createResponse(MrcpResponse.STATUS_SUCCESS, MrcpRequestState.COMPLETE);
         }
 
-        public MrcpResponse recognize(UnimplementedRequest request, MrcpSession session) {
-            return session.createResponse(MrcpResponse.STATUS_SUCCESS, MrcpRequestState.COMPLETE);
+        public MrcpResponse recognize(UnimplementedRequest request, final MrcpSession session) {
+            // the event waits for the response, which is written while the session is locked by this call
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        session.postEvent(session.createEvent(MrcpEventName.RECOGNITION_COMPLETE, MrcpRequestState.COMPLETE));
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                }
+            }.start();
+            return session.createResponse(MrcpResponse.STATUS_SUCCESS, MrcpRequestState.IN_PROGRESS);
         }
         
     }
@@ -0,0 +1,79 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.util;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.mrcp4j.message.header.MrcpHeaderName;
+
+/**
+ * Unit tests for {@link AsciiTokenTable}.
+ */
+public class AsciiTokenTableTest {
+
+    private final AsciiTokenTable<MrcpHeaderName> _table = new AsciiTokenTable<MrcpHeaderName>(MrcpHeaderName.values());
+
+    @Test
+    public void testGetAllValues() {
+        for (MrcpHeaderName name : MrcpHeaderName.values()) {
+            assertSame(name, _table.get(name.toString()));
+            assertSame(name, _table.get(name.toString().toLowerCase()));
+            assertSame(name, _table.get(name.toString().toUpperCase()));
+        }
+    }
+
+    @Test
+    public void testGetUnknown() {
+        assertNull(_table.get("X-Vendor-Unknown"));
+        assertNull(_table.get("Content-Lengt"));
+        assertNull(_table.get(""));
+        assertNull(_table.get((CharSequence) null));
+        assertNull(_table.get("Cont\u00e9nt-Length"));
+    }
+
+    @Test
+    public void testGetFromByteRange() {
+        ByteBuffer buf = ByteBuffer.wrap("xxcontent-LENGTH:12".getBytes(StandardCharsets.US_ASCII));
+        assertSame(MrcpHeaderName.CONTENT_LENGTH, _table.get(buf, 2, 16));
+        assertNull(_table.get(buf, 2, 15));
+        assertNull(_table.get(buf, 0, 16));
+        assertEquals(0, buf.position());
+    }
+
+    @Test
+    public void testGetFromDirectBuffer() {
+        ByteBuffer buf = ByteBuffer.allocateDirect(32);
+        buf.put("channel-identifier".getBytes(StandardCharsets.US_ASCII));
+        assertSame(MrcpHeaderName.CHANNEL_IDENTIFIER, _table.get(buf, 0, 18));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateTokens() {
+        new AsciiTokenTable<String>(new String[] {"Content-Type", "content-type"});
+    }
+
+}